@@ -16,6 +16,8 @@
  */
 package edu.cornell.gdiac.assets;
 
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.*;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
@@ -27,8 +29,11 @@ import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.graphics.g2d.freetype.*;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.audio.*;
 import edu.cornell.gdiac.util.*;
 
@@ -52,6 +57,18 @@ import edu.cornell.gdiac.util.*;
  * loader per file suffix, there is no limit on the number of asset parsers per type.
  * Use the method {@link #addParser} to add additional asset parsers.
  * 
+ * A directory may also divide its assets into groups (such as one per screen) in a
+ * "groups" entry.  Pass group names to {@link #loadAssets} to load only those groups,
+ * and then use {@link #acquireGroup} and {@link #releaseGroup} to load and unload the
+ * other groups as they are needed.  Groups are reference counted, and an asset in
+ * several groups stays loaded until every group holding it is released.
+ *
+ * Textures are the exception.  A texture released by every group is parked instead,
+ * and only unloaded once textures use more video memory than the budget of the
+ * {@link TextureResidency}, least recently used first.  So returning to a recent
+ * screen does not load its art again.  Use {@link #prefetchGroup} to start loading
+ * the textures of the next screen while the current one is still up.
+ *
  * Right now, this class supports built-in reading for Textures (and Texture regions),
  * audio assets, fonts, and other JSON files.  To add more assets, you will need to
  * extend this class.
@@ -61,6 +78,11 @@ import edu.cornell.gdiac.util.*;
  * need to globalize access to this asset manager, use {@link ResourceManager}.
  */
 public class AssetDirectory extends AssetManager {
+    /** The group holding every asset not assigned to another group */
+    public static final String CORE_GROUP = "core";
+    /** The default video memory budget for textures (512 MB) */
+    public static final long DEFAULT_TEXTURE_BUDGET = 512L << 20;
+
     /** The resolver (converting strings to file handles) */
     protected FileHandleResolver resolver;
     /** The asset directory of this asset manager */
@@ -69,6 +91,23 @@ public class AssetDirectory extends AssetManager {
     protected Index contents;
     /** The dedicated loader for the {@link Index} class */
     protected DirectoryLoader topLoader;
+    /** The loader for the {@link Texture} class (decodes ahead on worker threads) */
+    protected ParallelTextureLoader textureLoader;
+
+    /** The number of holders of each acquired group */
+    private ObjectIntMap<String> acquired = new ObjectIntMap<String>();
+    /** The groups acquired before the directory finished loading */
+    private Array<String> pending = new Array<String>();
+    /** The index whose assets are being recorded (null if none) */
+    private Index recording;
+    /** The thread parsing the recorded index */
+    private Thread recorder;
+    /** The timing of every asset loaded by this manager */
+    private final AssetProfile profile = new AssetProfile();
+    /** The video memory budget of the textures */
+    private final TextureResidency residency = new TextureResidency( DEFAULT_TEXTURE_BUDGET );
+    /** The textures held for a {@link #getEntry} caller outside of any group */
+    private final ObjectSet<String> borrowed = new ObjectSet<String>();
 
     /**
      * This class represents the top level index of an asset directory.
@@ -82,12 +121,20 @@ public class AssetDirectory extends AssetManager {
         ObjectMap<Class<?>, ObjectMap<String, String>> keymap;
         /** The contents of the JSON file */
         JsonValue directory;
+        /** The load request of each asset file, as the parsers made it */
+        ObjectMap<String, AssetDescriptor<?>> descriptors;
+        /** The asset files in each group */
+        ObjectMap<String, Array<String>> groups;
+        /** Whether only the acquired groups are loaded (as opposed to every asset) */
+        boolean deferred;
         
         /**
          * Creates a new, empty directory index
          */
         public Index() {
             keymap = new ObjectMap<Class<?>, ObjectMap<String, String>>();
+            descriptors = new ObjectMap<String, AssetDescriptor<?>>();
+            groups = new ObjectMap<String, Array<String>>();
         }
     }
 
@@ -107,6 +154,10 @@ public class AssetDirectory extends AssetManager {
         @Override
         public void finishedLoading(AssetManager manager, String fileName, Class type) {
             contents = manager.get( fileName, Index.class );
+            for (String group : pending) {
+                acquireGroup( group );
+            }
+            pending.clear();
         }
     };
 
@@ -150,10 +201,12 @@ public class AssetDirectory extends AssetManager {
         setLoader( MusicQueue.class, new MusicQueueLoader( resolver ) );
 
         setLoader( Pixmap.class, new PixmapLoader( resolver ) );
-        setLoader( Texture.class, new TextureLoader( resolver ) );
+        textureLoader = new ParallelTextureLoader( resolver );
+        setLoader( Texture.class, textureLoader );
         setLoader( TextureAtlas.class, new TextureAtlasLoader( resolver ) );
         setLoader( TextureRegion.class, new TextureRegionLoader( resolver ) );
         setLoader( FilmStrip.class, new FilmStripLoader( resolver ) );
+        setLoader( StreamingFilmStrip.class, new StreamingFilmStripLoader( resolver ) );
 
         setLoader( JsonValue.class, new JsonValueLoader( resolver ) );
 
@@ -167,11 +220,13 @@ public class AssetDirectory extends AssetManager {
         topLoader.addParser( new TextureParser() );
         topLoader.addParser( new TextureRegionParser() );
         topLoader.addParser( new FilmStripParser() );
+        topLoader.addParser( new StreamingFilmStripParser() );
         topLoader.addParser( new FreetypeFontParser() );
         topLoader.addParser( new SoundParser() );
         topLoader.addParser( new MusicParser() );
         topLoader.addParser( new SoundEffectParser() );
         topLoader.addParser( new MusicQueueParser() );
+        topLoader.addParser( new AudioSourceParser() );
     }
 
     /**
@@ -185,6 +240,146 @@ public class AssetDirectory extends AssetManager {
         return (float)getLoadedAssets()/(getLoadedAssets()+getQueuedAssets());
     }
     
+    /**
+     * Adds the given asset to the loading queue of the AssetManager.
+     *
+     * Textures start decoding on the worker threads right away, so that they are
+     * ready by the time the manager gets to them.
+     *
+     * @param fileName  the file name (interpretation depends on {@link AssetLoader})
+     * @param type      the type of the asset.
+     * @param parameter parameters for the AssetLoader.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+        if (recorder == Thread.currentThread()) {
+            if (!recording.descriptors.containsKey( fileName )) {
+                recording.descriptors.put( fileName, new AssetDescriptor<T>( fileName, type, parameter ) );
+            }
+            if (recording.deferred) {
+                return;
+            }
+        }
+        boolean loaded = isLoaded( fileName, type );
+        super.load( fileName, type, parameter );
+        if (!loaded) {
+            profile.queued( fileName, type );
+        }
+        if (!loaded && type == Texture.class && getLoader( type, fileName ) == textureLoader) {
+            textureLoader.prefetch( fileName, (TextureLoader.TextureParameter)parameter );
+        }
+    }
+
+    /**
+     * Adds a newly loaded asset to this manager (on the GL thread).
+     *
+     * This is where the profile records that the asset is finished, along with the
+     * size of its file and (for textures) its video memory.
+     *
+     * @param fileName  the file name of the asset
+     * @param type      the type of the asset
+     * @param asset     the loaded asset
+     */
+    @Override
+    protected <T> void addAsset(String fileName, Class<T> type, T asset) {
+        super.addAsset( fileName, type, asset );
+        profile.finished( fileName, type, asset, resolver.resolve( fileName ) );
+        if (asset instanceof Texture) {
+            residency.track( fileName, AssetProfile.textureBytes( (Texture)asset ) );
+            // Video memory peaks while a group loads on top of the parked textures
+            trimTextures();
+        }
+    }
+
+    /**
+     * Returns the timing of every asset loaded by this manager.
+     *
+     * Loaders that know how long the decode and GPU upload took (such as the texture
+     * loader) report them here as well.  Use {@link AssetProfile#write} to dump the
+     * profile to JSON.
+     *
+     * @return the timing of every asset loaded by this manager.
+     */
+    public AssetProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the video memory budget of the textures.
+     *
+     * Use this to change the budget, or to see how much texture memory is in use.
+     *
+     * @return the video memory budget of the textures.
+     */
+    public TextureResidency getResidency() {
+        return residency;
+    }
+
+    /**
+     * Unloads parked textures, least recently used first, until within the budget
+     */
+    private synchronized void trimTextures() {
+        for (String file : residency.victims()) {
+            residency.unpark( file );
+            boolean last = getReferenceCount( file ) == 1;
+            unload( file );
+            if (last) {
+                residency.evicted( file );
+            }
+        }
+    }
+
+    /**
+     * Removes the asset and all its dependencies, if they are not used by other assets.
+     *
+     * Textures that are no longer wanted stop decoding.
+     *
+     * @param fileName  the file name
+     */
+    @Override
+    public synchronized void unload(String fileName) {
+        super.unload( fileName );
+        if (!contains( fileName )) {
+            textureLoader.discard( fileName );
+            residency.untrack( fileName );
+        }
+    }
+
+    /**
+     * Clears and disposes all assets and the preloading queue.
+     */
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        textureLoader.cancel();
+        residency.reset();
+        borrowed.clear();
+        acquired.clear();
+        pending.clear();
+    }
+
+    /**
+     * Starts recording the load requests of the asset parsers.
+     *
+     * This is called by {@link DirectoryLoader} on its loading thread.  If the index
+     * is deferred, the requests are only recorded, and nothing is queued.
+     *
+     * @param index The index to record into
+     */
+    synchronized void beginRecording(Index index) {
+        recording = index;
+        recorder = Thread.currentThread();
+    }
+
+    /**
+     * Stops recording the load requests of the asset parsers.
+     */
+    synchronized void endRecording() {
+        recording = null;
+        recorder = null;
+    }
+
     /**
      * Returns the file name for the asset directory.
      *
@@ -195,38 +390,191 @@ public class AssetDirectory extends AssetManager {
     }
 
     /**
-     * Loads all assets defined by the asset directory
+     * Loads the assets defined by the asset directory
      * 
      * Each asset must have an associated {@link AssetParser} for this to work.
      * There are default parsers for the classes {@link Texture}, {@link TextureRegion},
      * {@link BitmapFont}, {@link SoundEffect}, {@link MusicQueue}, {@link JsonValue}.
      *
+     * If no groups are given, or the directory does not define any groups, every
+     * asset is loaded.  Otherwise, only the given groups are acquired (as with
+     * {@link #acquireGroup}), and the rest of the directory is loaded on request.
+     *
      * Any additional asset parsers should be added with the {@link #addParser} method. 
+     *
+     * @param groups    The asset groups to load (empty for every asset)
      */
-    public void loadAssets() {
+    public synchronized void loadAssets(String... groups) {
         DirectoryLoader.DirectoryLoaderParameters params = new DirectoryLoader.DirectoryLoaderParameters();
         params.loadedCallback = callback;
+        params.deferred = groups.length > 0;
+        pending.addAll( groups );
         load( filename, Index.class, params );
     }
     
     /**
      * Unloads all assets previously loaded by {@link #loadAssets}.
      *
+     * This releases every acquired group, no matter how many times it was acquired.
      * Assets loaded manually (e.g. not via the asset directory JSON) will not be
      * affected and will remain in this asset manager.
      */
-    public void unloadAssets() {
+    public synchronized void unloadAssets() {
+        pending.clear();
         if (contents == null) {
             return;
         }
-        for (ObjectMap<String, String> category : contents.keymap.values()) {
-            for (String filename : category.values()) {
-                unload( filename );
+        for (ObjectIntMap.Entry<String> entry : acquired.entries()) {
+            for (int ii = 0; ii < entry.value; ii++) {
+                for (String filename : contents.groups.get( entry.key )) {
+                    unload( filename );
+                }
+            }
+        }
+        acquired.clear();
+        for (String filename : residency.unparkAll()) {
+            unload( filename );
+        }
+        for (String filename : borrowed) {
+            unload( filename );
+        }
+        borrowed.clear();
+        if (!contents.deferred) {
+            for (ObjectMap<String, String> category : contents.keymap.values()) {
+                for (String filename : category.values()) {
+                    unload( filename );
+                }
             }
         }
         contents = null;
     }
+
+    /**
+     * Returns true if the asset directory defines the given group
+     *
+     * The method {@link #loadAssets} must have finished for this method to return
+     * anything other than false.
+     *
+     * @param group the group name
+     *
+     * @return true if the asset directory defines the given group
+     */
+    public synchronized boolean hasGroup(String group) {
+        return contents != null && contents.groups.containsKey( group );
+    }
+
+    /**
+     * Adds the assets of the given group to the loading queue.
+     *
+     * Every call must be matched by a call to {@link #releaseGroup}.  Assets that
+     * are already loaded are not loaded again.  If the directory has not finished
+     * loading, the group is loaded once it has.
+     *
+     * If the directory does not define any groups, every asset is already loaded
+     * and this method does nothing.
+     *
+     * @param group the group name
+     */
+    public synchronized void acquireGroup(String group) {
+        if (contents == null) {
+            pending.add( group );
+            return;
+        } else if (contents.groups.size == 0) {
+            return;
+        }
+        Array<String> files = contents.groups.get( group );
+        if (files == null) {
+            throw new GdxRuntimeException( "No asset group '"+group+"' in "+filename );
+        }
+        acquired.getAndIncrement( group, 0, 1 );
+        for (String file : files) {
+            // A parked texture is still loaded; the group takes over its reference
+            if (!residency.unpark( file )) {
+                load( contents.descriptors.get( file ) );
+            }
+        }
+    }
+
+    /**
+     * Starts loading the textures of the given group, without acquiring it.
+     *
+     * The textures are parked once loaded, so that acquiring the group later finds
+     * them ready.  Like every parked texture, they may be evicted if the budget
+     * runs out before then.  The loading happens in {@link #update}, like any other.
+     *
+     * @param group the group name
+     */
+    public synchronized void prefetchGroup(String group) {
+        if (contents == null || contents.groups.size == 0) {
+            return;
+        }
+        Array<String> files = contents.groups.get( group );
+        if (files == null) {
+            throw new GdxRuntimeException( "No asset group '"+group+"' in "+filename );
+        }
+        for (String file : files) {
+            AssetDescriptor<?> descriptor = contents.descriptors.get( file );
+            if (descriptor.type != Texture.class || residency.isParked( file )) {
+                continue;
+            } else if (contains( file )) {
+                residency.touch( file );
+                continue;
+            }
+            load( descriptor );
+            residency.park( file );
+        }
+    }
+
+    /**
+     * Unloads the assets of the given group, if nothing else holds them.
+     *
+     * An asset is only unloaded when every group (and every manual load) holding it
+     * has been released.
+     *
+     * @param group the group name
+     */
+    public synchronized void releaseGroup(String group) {
+        if (contents == null) {
+            pending.removeValue( group, false );
+            return;
+        } else if (contents.groups.size == 0) {
+            return;
+        }
+        int count = acquired.get( group, 0 );
+        if (count == 0) {
+            throw new GdxRuntimeException( "Asset group '"+group+"' was released more than acquired" );
+        } else if (count == 1) {
+            acquired.remove( group, 0 );
+        } else {
+            acquired.put( group, count-1 );
+        }
+        for (String file : contents.groups.get( group )) {
+            release( file );
+        }
+        // Releasing a group means the screen that borrowed these is done with them
+        for (String file : borrowed) {
+            release( file );
+        }
+        borrowed.clear();
+        trimTextures();
+    }
     
+    /**
+     * Gives up one reference to the asset, parking it if it is a texture on its last one
+     *
+     * @param file  The asset file name
+     */
+    private void release(String file) {
+        AssetDescriptor<?> descriptor = contents.descriptors.get( file );
+        if (descriptor.type == Texture.class && isLoaded( file ) &&
+            getReferenceCount( file ) == 1 && !residency.isParked( file )) {
+            // The last holder; keep it on the GPU while the budget allows
+            residency.park( file );
+        } else {
+            unload( file );
+        }
+    }
+
     /**
      * Returns the {@link AssetParser} objects associated with this directory loader
      *
@@ -289,9 +637,40 @@ public class AssetDirectory extends AssetManager {
         if (filename == null) {
             return null;
         }
+        if (residency.isEvicted( filename ) || residency.isParked( filename )) {
+            borrow( filename );
+        }
+        residency.touch( filename );
         return get( filename, type );
     }
 
+    /**
+     * Holds a parked or evicted texture for a caller outside of its groups.
+     *
+     * A parked texture may be unloaded at any time to stay within budget, so it cannot
+     * be handed out as is.  The directory takes the parked reference (or loads an
+     * evicted texture again, blocking until it is loaded) and holds it until the next
+     * group is released.  Groups are only released when the screen changes, and the
+     * screen that asked for the texture stops drawing it then.
+     *
+     * @param filename  The texture file name
+     */
+    private synchronized void borrow(String filename) {
+        if (borrowed.contains( filename )) {
+            return;
+        } else if (residency.unpark( filename )) {
+            borrowed.add( filename );
+            if (!isLoaded( filename )) {
+                // Still being prefetched
+                finishLoadingAsset( filename );
+            }
+        } else if (residency.isEvicted( filename ) && !isLoaded( filename )) {
+            load( contents.descriptors.get( filename ) );
+            borrowed.add( filename );
+            finishLoadingAsset( filename );
+        }
+    }
+
     /**
      * Returns true if there is an asset associated with the given directory key
      * 
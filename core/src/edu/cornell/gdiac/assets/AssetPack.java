@@ -0,0 +1,415 @@
+/*
+ * AssetPack.java
+ *
+ * The asset directory names a few hundred small files, and reading each of them is
+ * an open, a stat, a few reads and a close.  An asset pack puts all of those files
+ * in one archive, so that startup is a single memory mapping instead.
+ *
+ * A pack starts with a header and a table of contents with one fixed-size record
+ * per file, sorted by the hash of the file name.  Looking up a file is a binary
+ * search of the mapped table; nothing is read into the heap.  The names follow the
+ * table (to check for hash collisions), and the file contents follow the names,
+ * stored as is.  Each record also keeps the modification time of the file that was
+ * packed, so that a resolver can tell when the loose file has changed since.
+ *
+ * This class both reads and writes packs.  Run {@link #main} (the packAssets task
+ * of the desktop build) to pack the asset folder.
+ */
+package edu.cornell.gdiac.assets;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only archive of asset files, memory mapped from disk.
+ *
+ * The file contents are returned as {@link ByteBuffer} slices of the mapping, so
+ * they are never copied unless the caller copies them.  The slices are direct
+ * buffers, and may be shared across threads as long as they are not modified.
+ */
+public class AssetPack {
+    /** The first four bytes of every pack ("UPAK") */
+    public static final int MAGIC = 0x5550414B;
+    /** The version of the pack format */
+    public static final int VERSION = 2;
+    /** The size of the header (magic, version, file count, name table size) */
+    private static final int HEADER_SIZE = 16;
+    /** The size of a table record (hash, offset, length, name offset, modified) */
+    private static final int RECORD_SIZE = 32;
+    /** The alignment of the file contents */
+    private static final int ALIGNMENT = 8;
+
+    /** The mapped pack */
+    private final MappedByteBuffer data;
+    /** The number of files in the pack */
+    private final int count;
+    /** The position of the name table */
+    private final int names;
+
+    /**
+     * Maps the given pack file into memory.
+     *
+     * The file is closed right away; the mapping stays valid until this pack is
+     * garbage collected.
+     *
+     * @param file  The pack file
+     *
+     * @throws IOException if the file cannot be read, or is not a pack
+     */
+    public AssetPack(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try {
+            FileChannel channel = input.getChannel();
+            data = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        } finally {
+            input.close();
+        }
+        if (data.limit() < HEADER_SIZE || data.getInt( 0 ) != MAGIC) {
+            throw new IOException( file+" is not an asset pack" );
+        } else if (data.getInt( 4 ) != VERSION) {
+            throw new IOException( file+" has pack version "+data.getInt( 4 )+", expected "+VERSION );
+        }
+        count = data.getInt( 8 );
+        names = HEADER_SIZE + count * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the number of files in this pack
+     *
+     * @return the number of files in this pack
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns true if this pack has a file of the given name
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return true if this pack has a file of the given name
+     */
+    public boolean contains(String fileName) {
+        return indexOf( fileName ) >= 0;
+    }
+
+    /**
+     * Returns the contents of the given file, or null if it is not in this pack.
+     *
+     * The buffer is a slice of the mapping, positioned at the start of the file.
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return the contents of the given file, or null if it is not in this pack.
+     */
+    public ByteBuffer find(String fileName) {
+        int index = indexOf( fileName );
+        if (index < 0) {
+            return null;
+        }
+        int record = HEADER_SIZE + index * RECORD_SIZE;
+        int offset = (int)data.getLong( record + 8 );
+        int length = data.getInt( record + 16 );
+
+        ByteBuffer slice = data.duplicate();
+        slice.position( offset );
+        slice.limit( offset + length );
+        return slice.slice();
+    }
+
+    /**
+     * Returns the modification time of the file when it was packed (-1 if not packed)
+     *
+     * The time is in milliseconds, as returned by {@link File#lastModified}.
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return the modification time of the file when it was packed
+     */
+    public long lastModified(String fileName) {
+        int index = indexOf( fileName );
+        if (index < 0) {
+            return -1;
+        }
+        return data.getLong( HEADER_SIZE + index * RECORD_SIZE + 24 );
+    }
+
+    /**
+     * Returns the table index of the given file, or -1 if it is not in this pack
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return the table index of the given file, or -1 if it is not in this pack
+     */
+    private int indexOf(String fileName) {
+        byte[] name = normalize( fileName ).getBytes( StandardCharsets.UTF_8 );
+        long hash = hash( name );
+
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long other = data.getLong( HEADER_SIZE + mid * RECORD_SIZE );
+            if (other < hash) {
+                lo = mid + 1;
+            } else if (other > hash) {
+                hi = mid - 1;
+            } else {
+                // Check every record with this hash, in case of a collision
+                int first = mid;
+                while (first > 0 && data.getLong( HEADER_SIZE + (first-1) * RECORD_SIZE ) == hash) {
+                    first--;
+                }
+                for (int ii = first; ii < count && data.getLong( HEADER_SIZE + ii * RECORD_SIZE ) == hash; ii++) {
+                    if (nameEquals( ii, name )) {
+                        return ii;
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the record at the given index has the given name
+     *
+     * @param index The table index
+     * @param name  The file name in UTF-8
+     *
+     * @return true if the record at the given index has the given name
+     */
+    private boolean nameEquals(int index, byte[] name) {
+        int start = names + data.getInt( HEADER_SIZE + index * RECORD_SIZE + 20 );
+        int length = data.getShort( start ) & 0xFFFF;
+        if (length != name.length) {
+            return false;
+        }
+        for (int ii = 0; ii < length; ii++) {
+            if (data.get( start + 2 + ii ) != name[ii]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the file name as stored in a pack (forward slashes, no leading ./)
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return the file name as stored in a pack
+     */
+    static String normalize(String fileName) {
+        String result = fileName.replace( '\\', '/' );
+        while (result.startsWith( "./" )) {
+            result = result.substring( 2 );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of the given name
+     *
+     * @param name  The file name in UTF-8
+     *
+     * @return the 64-bit FNV-1a hash of the given name
+     */
+    private static long hash(byte[] name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name) {
+            hash ^= (b & 0xFF);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * A file to be written to a pack
+     */
+    private static class Entry implements Comparable<Entry> {
+        /** The file on disk */
+        final File file;
+        /** The file name in UTF-8, relative to the asset folder */
+        final byte[] name;
+        /** The hash of the name */
+        final long hash;
+        /** The position of the contents in the pack */
+        long offset;
+        /** The position of the name in the name table */
+        int nameOffset;
+
+        /**
+         * Creates an entry for the given file
+         *
+         * @param file  The file on disk
+         * @param name  The file name, relative to the asset folder
+         */
+        Entry(File file, String name) {
+            this.file = file;
+            this.name = name.getBytes( StandardCharsets.UTF_8 );
+            this.hash = hash( this.name );
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare( hash, other.hash );
+        }
+    }
+
+    /**
+     * Writes every file in the given folder to a pack.
+     *
+     * The output file is skipped if it is inside the folder.  The pack is written
+     * to a temporary file first, so a failed build never leaves a broken pack.
+     *
+     * @param folder    The asset folder
+     * @param output    The pack file to write
+     *
+     * @throws IOException if a file cannot be read, or the pack cannot be written
+     */
+    public static void write(File folder, File output) throws IOException {
+        List<Entry> entries = new ArrayList<Entry>();
+        collect( folder, "", output.getCanonicalFile(), entries );
+
+        // Contents in folder order (so loading a folder reads forward), table in hash order
+        int nameSize = 0;
+        for (Entry entry : entries) {
+            if (entry.name.length > 0xFFFF) {
+                throw new IOException( "File name too long: "+entry.file );
+            }
+            entry.nameOffset = nameSize;
+            nameSize += 2 + entry.name.length;
+        }
+        long position = align( HEADER_SIZE + (long)entries.size() * RECORD_SIZE + nameSize );
+        for (Entry entry : entries) {
+            entry.offset = position;
+            position = align( position + entry.file.length() );
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException( "Asset pack would be larger than 2GB" );
+        }
+
+        List<Entry> table = new ArrayList<Entry>( entries );
+        Collections.sort( table );
+
+        File temp = new File( output.getPath()+".tmp" );
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ), 1 << 16 ) );
+        try {
+            out.writeInt( MAGIC );
+            out.writeInt( VERSION );
+            out.writeInt( entries.size() );
+            out.writeInt( nameSize );
+            for (Entry entry : table) {
+                out.writeLong( entry.hash );
+                out.writeLong( entry.offset );
+                out.writeInt( (int)entry.file.length() );
+                out.writeInt( entry.nameOffset );
+                out.writeLong( entry.file.lastModified() );
+            }
+            for (Entry entry : entries) {
+                out.writeShort( entry.name.length );
+                out.write( entry.name );
+            }
+
+            byte[] buffer = new byte[1 << 16];
+            for (Entry entry : entries) {
+                pad( out, entry.offset );
+                InputStream in = new FileInputStream( entry.file );
+                try {
+                    int read;
+                    while ((read = in.read( buffer )) > 0) {
+                        out.write( buffer, 0, read );
+                    }
+                } finally {
+                    in.close();
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        if (output.exists() && !output.delete()) {
+            throw new IOException( "Could not replace "+output );
+        } else if (!temp.renameTo( output )) {
+            throw new IOException( "Could not write "+output );
+        }
+    }
+
+    /**
+     * Adds every file in the given folder (recursively) to the list of entries
+     *
+     * @param folder    The folder to search
+     * @param prefix    The name of the folder, relative to the asset folder
+     * @param skip      The file to leave out
+     * @param entries   The list of entries to add to
+     *
+     * @throws IOException if the folder cannot be listed
+     */
+    private static void collect(File folder, String prefix, File skip, List<Entry> entries) throws IOException {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            throw new IOException( "Could not list "+folder );
+        }
+        Arrays.sort( files );
+        for (File file : files) {
+            String name = prefix + file.getName();
+            if (file.isDirectory()) {
+                collect( file, name+"/", skip, entries );
+            } else if (!file.getCanonicalFile().equals( skip ) && !file.getName().endsWith( ".tmp" )) {
+                entries.add( new Entry( file, name ) );
+            }
+        }
+    }
+
+    /**
+     * Returns the position rounded up to the content alignment
+     *
+     * @param position  The position in the pack
+     *
+     * @return the position rounded up to the content alignment
+     */
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) & ~(long)(ALIGNMENT - 1);
+    }
+
+    /**
+     * Writes zeros until the stream reaches the given position
+     *
+     * @param out       The pack stream
+     * @param position  The position to reach
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    private static void pad(DataOutputStream out, long position) throws IOException {
+        while (out.size() < position) {
+            out.write( 0 );
+        }
+    }
+
+    /**
+     * Packs an asset folder from the command line.
+     *
+     * The arguments are the asset folder and the pack file to write.
+     *
+     * @param args  The command line arguments
+     *
+     * @throws IOException if the pack cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println( "Usage: AssetPack <asset folder> <pack file>" );
+            System.exit( 1 );
+        }
+        File output = new File( args[1] );
+        write( new File( args[0] ), output );
+        System.out.println( "Wrote "+new AssetPack( output ).size()+" files to "+output );
+    }
+}
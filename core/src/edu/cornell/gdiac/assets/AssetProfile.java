@@ -0,0 +1,312 @@
+/*
+ * AssetProfile.java
+ *
+ * When startup is slow, the loading screen only tells us that it is slow.  This
+ * class records where the time (and the memory) went, asset by asset, so that we
+ * can decide what to atlas, what to compress and what to load later.
+ *
+ * Every asset gets the time it was queued and the time it finished.  Loaders that
+ * know more (such as ParallelTextureLoader) also report how long the decode and the
+ * upload to the GPU took.  The directory adds the size of the file and, for
+ * textures, an estimate of the video memory.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Comparator;
+
+/**
+ * A record of how each asset of an {@link AssetDirectory} was loaded.
+ *
+ * All times are in milliseconds; the queue and finish times are measured from the
+ * creation of the profile.  A value of -1 means the loader did not report it.
+ *
+ * The methods of this class are synchronized, since loaders report from the
+ * loading threads.
+ */
+public class AssetProfile {
+    /** The timing of a single asset */
+    public static class Record {
+        /** The file name of the asset */
+        public final String fileName;
+        /** The type of the asset */
+        public final Class<?> type;
+        /** When the asset was queued */
+        public float queued = -1;
+        /** When the asset finished loading */
+        public float finished = -1;
+        /** How long the decode took (on whichever thread it ran) */
+        public float decode = -1;
+        /** How long the upload to the GPU took */
+        public float upload = -1;
+        /** The size of the asset file in bytes */
+        public long bytes;
+        /** The estimated video memory of the asset in bytes (0 if not a texture) */
+        public long textureBytes;
+
+        /**
+         * Creates an empty record for the given asset
+         *
+         * @param fileName  The file name of the asset
+         * @param type      The type of the asset
+         */
+        Record(String fileName, Class<?> type) {
+            this.fileName = fileName;
+            this.type = type;
+        }
+
+        /**
+         * Returns how long the asset took from being queued to being loaded
+         *
+         * @return how long the asset took from being queued to being loaded
+         */
+        public float getLatency() {
+            return queued < 0 || finished < 0 ? -1 : finished - queued;
+        }
+    }
+
+    /** The records by file name */
+    private final ObjectMap<String, Record> records = new ObjectMap<String, Record>();
+    /** The records in the order the assets were queued */
+    private final Array<Record> order = new Array<Record>();
+    /** The time this profile started */
+    private final long start = TimeUtils.nanoTime();
+
+    /**
+     * Returns the time since this profile started, in milliseconds
+     *
+     * @return the time since this profile started, in milliseconds
+     */
+    private float now() {
+        return toMillis( TimeUtils.nanoTime() - start );
+    }
+
+    /**
+     * Returns the given duration in milliseconds
+     *
+     * @param nanos The duration in nanoseconds
+     *
+     * @return the given duration in milliseconds
+     */
+    static float toMillis(long nanos) {
+        return nanos / 1000000.0f;
+    }
+
+    /**
+     * Returns the record for the given asset, creating it if necessary
+     *
+     * @param fileName  The file name of the asset
+     * @param type      The type of the asset
+     *
+     * @return the record for the given asset
+     */
+    private Record get(String fileName, Class<?> type) {
+        Record record = records.get( fileName );
+        if (record == null) {
+            record = new Record( fileName, type );
+            records.put( fileName, record );
+            order.add( record );
+        }
+        return record;
+    }
+
+    /**
+     * Records that the asset was queued
+     *
+     * Only the first time an asset is queued counts; later loads just add a
+     * reference to it.
+     *
+     * @param fileName  The file name of the asset
+     * @param type      The type of the asset
+     */
+    public synchronized void queued(String fileName, Class<?> type) {
+        Record record = get( fileName, type );
+        if (record.queued < 0 || record.finished >= 0) {
+            // A new load (possibly of an asset unloaded earlier)
+            record.queued = now();
+            record.finished = -1;
+        }
+    }
+
+    /**
+     * Records how long the asset took to decode
+     *
+     * @param fileName  The file name of the asset
+     * @param type      The type of the asset
+     * @param nanos     The decode time in nanoseconds
+     */
+    public synchronized void decoded(String fileName, Class<?> type, long nanos) {
+        get( fileName, type ).decode = toMillis( nanos );
+    }
+
+    /**
+     * Records how long the asset took to upload to the GPU
+     *
+     * @param fileName  The file name of the asset
+     * @param type      The type of the asset
+     * @param nanos     The upload time in nanoseconds
+     */
+    public synchronized void uploaded(String fileName, Class<?> type, long nanos) {
+        get( fileName, type ).upload = toMillis( nanos );
+    }
+
+    /**
+     * Records that the asset finished loading
+     *
+     * Many asset names are not files (texture regions, film strips, fonts and music
+     * queues are named after the file they come from), so the size is only recorded
+     * if the file exists.
+     *
+     * @param fileName  The file name of the asset
+     * @param type      The type of the asset
+     * @param asset     The loaded asset
+     * @param file      The resolved file of the asset (null if unknown)
+     */
+    public synchronized void finished(String fileName, Class<?> type, Object asset, FileHandle file) {
+        Record record = get( fileName, type );
+        record.finished = now();
+        if (file != null && file.exists() && !file.isDirectory()) {
+            record.bytes = file.length();
+        }
+        if (asset instanceof Texture) {
+            record.textureBytes = textureBytes( (Texture)asset );
+        }
+    }
+
+    /**
+     * Returns an estimate of the video memory used by the texture
+     *
+     * @param texture   The texture
+     *
+     * @return an estimate of the video memory used by the texture
+     */
+    static long textureBytes(Texture texture) {
+        int pixel;
+        Pixmap.Format format = texture.getTextureData().getFormat();
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                pixel = 1;
+                break;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                pixel = 2;
+                break;
+            case RGB888:
+                pixel = 3;
+                break;
+            default:
+                pixel = 4;
+                break;
+        }
+        long bytes = (long)texture.getWidth() * texture.getHeight() * pixel;
+        if (texture.getTextureData().useMipMaps()) {
+            bytes = bytes * 4 / 3;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns a copy of the records, in the order the assets were queued
+     *
+     * @return a copy of the records, in the order the assets were queued
+     */
+    public synchronized Array<Record> getRecords() {
+        return new Array<Record>( order );
+    }
+
+    /**
+     * Returns the records of the given number of slowest assets, slowest first
+     *
+     * Assets are compared by their decode and upload time where known, and by their
+     * latency otherwise.
+     *
+     * @param count The number of records to return
+     *
+     * @return the records of the given number of slowest assets
+     */
+    public synchronized Array<Record> getSlowest(int count) {
+        Array<Record> result = new Array<Record>( order );
+        result.sort( new Comparator<Record>() {
+            @Override
+            public int compare(Record a, Record b) {
+                return Float.compare( cost( b ), cost( a ) );
+            }
+        } );
+        result.truncate( Math.min( count, result.size ) );
+        return result;
+    }
+
+    /**
+     * Returns the time charged to the asset when ranking the slowest assets
+     *
+     * @param record    The asset record
+     *
+     * @return the time charged to the asset
+     */
+    private static float cost(Record record) {
+        if (record.decode >= 0 || record.upload >= 0) {
+            return Math.max( 0, record.decode ) + Math.max( 0, record.upload );
+        }
+        return record.getLatency();
+    }
+
+    /**
+     * Returns this profile as a JSON tree
+     *
+     * @return this profile as a JSON tree
+     */
+    public synchronized JsonValue toJson() {
+        long totalBytes = 0;
+        long totalTexture = 0;
+        float decode = 0;
+        float upload = 0;
+        JsonValue assets = new JsonValue( JsonValue.ValueType.array );
+        for (Record record : order) {
+            JsonValue entry = new JsonValue( JsonValue.ValueType.object );
+            entry.addChild( "file", new JsonValue( record.fileName ) );
+            entry.addChild( "type", new JsonValue( record.type.getSimpleName() ) );
+            entry.addChild( "queued", new JsonValue( record.queued ) );
+            entry.addChild( "finished", new JsonValue( record.finished ) );
+            entry.addChild( "latency", new JsonValue( record.getLatency() ) );
+            entry.addChild( "decode", new JsonValue( record.decode ) );
+            entry.addChild( "upload", new JsonValue( record.upload ) );
+            entry.addChild( "bytes", new JsonValue( record.bytes ) );
+            entry.addChild( "textureBytes", new JsonValue( record.textureBytes ) );
+            assets.addChild( entry );
+
+            totalBytes += record.bytes;
+            totalTexture += record.textureBytes;
+            decode += Math.max( 0, record.decode );
+            upload += Math.max( 0, record.upload );
+        }
+
+        JsonValue root = new JsonValue( JsonValue.ValueType.object );
+        root.addChild( "elapsed", new JsonValue( now() ) );
+        root.addChild( "count", new JsonValue( order.size ) );
+        root.addChild( "bytes", new JsonValue( totalBytes ) );
+        root.addChild( "textureBytes", new JsonValue( totalTexture ) );
+        root.addChild( "decode", new JsonValue( decode ) );
+        root.addChild( "upload", new JsonValue( upload ) );
+        root.addChild( "assets", assets );
+        return root;
+    }
+
+    /**
+     * Writes this profile to the given file as JSON
+     *
+     * @param file  The file to write
+     */
+    public void write(FileHandle file) {
+        file.writeString( toJson().prettyPrint( JsonWriter.OutputType.json, 0 ), false, "UTF-8" );
+    }
+}
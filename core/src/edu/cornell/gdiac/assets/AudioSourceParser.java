@@ -0,0 +1,82 @@
+/*
+ * AudioSourceParser.java
+ *
+ * This is an interface for parsing a JSON entry into an AudioSource asset. Sources
+ * are the raw decoders behind sounds and music, and are used when the game wants to
+ * read or mix the audio itself.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.audio.AudioSource;
+
+/**
+ * This class parses a JSON entry into a {@link AudioSource}.
+ *
+ * Audio sources do not have any properties other than the file name.
+ */
+public class AudioSourceParser implements AssetParser<AudioSource> {
+    /** The current source entry in the JSON directory */
+    private JsonValue root;
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<AudioSource> getType() {
+        return AudioSource.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "sources" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available audio source, loading it into the asset manager
+     *
+     * {@link AudioSource} objects have no additional loader properties.  They are
+     * specified key : filename.
+     *
+     * This method fails silently if there are no available assets to process.
+     *
+     * @param manager    The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        String file = root.asString();
+        keymap.put(root.name(),file);
+        manager.load( file, AudioSource.class, null );
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another AudioSourceParser
+     *
+     * @return true if o is another AudioSourceParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof AudioSourceParser;
+    }
+
+}
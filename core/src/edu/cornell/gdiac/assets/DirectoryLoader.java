@@ -19,9 +19,11 @@ import com.badlogic.gdx.assets.loaders.FileHandleResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 
 /**
  * This class is an {@link AssetLoader} to load {@link AssetDirectory.Index} assets.
@@ -40,7 +42,8 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
      * The definable parameters for a {@link AssetDirectory.Index}.
      */
     public static class DirectoryLoaderParameters extends AssetLoaderParameters<AssetDirectory.Index> {
-        // Since everything is defined in the file, nothing to do here
+        /** Whether to only record the assets of a directory with groups, not load them */
+        public boolean deferred;
     }
 
     /**
@@ -130,15 +133,83 @@ public class DirectoryLoader extends AsynchronousAssetLoader<AssetDirectory.Inde
         cachedData = new AssetDirectory.Index();
         cachedData.directory = reader.parse(file);
         System.out.flush();
-        for(AssetParser<?> parser : parsers) {
-            ObjectMap<String,String> keys = cachedData.keymap.get( parser.getType(), null );
-            if (keys == null) {
-                keys = new ObjectMap<String,String>();
-                cachedData.keymap.put(parser.getType(),keys);
+
+        JsonValue groups = cachedData.directory.get( "groups" );
+        AssetDirectory owner = manager instanceof AssetDirectory ? (AssetDirectory)manager : null;
+        if (owner != null) {
+            // Groups are loaded on request, so only record what the parsers ask for
+            cachedData.deferred = groups != null && params != null && params.deferred;
+            owner.beginRecording( cachedData );
+        }
+        try {
+            for(AssetParser<?> parser : parsers) {
+                ObjectMap<String,String> keys = cachedData.keymap.get( parser.getType(), null );
+                if (keys == null) {
+                    keys = new ObjectMap<String,String>();
+                    cachedData.keymap.put(parser.getType(),keys);
+                }
+                parser.reset( cachedData.directory );
+                while (parser.hasNext()) {
+                    parser.processNext( manager, keys );
+                }
+            }
+        } finally {
+            if (owner != null) {
+                owner.endRecording();
+            }
+        }
+
+        if (groups != null) {
+            parseGroups( groups );
+        }
+    }
+
+    /**
+     * Resolves the asset groups of the directory into file names.
+     *
+     * Each group is a list of directory keys.  A key ending in * stands for every
+     * key with that prefix, so "homeScreen:*" is every asset of the home screen.
+     * Any asset that is in no group is added to the "core" group, so that it is
+     * always loaded.
+     *
+     * @param groups    The "groups" entry of the directory
+     */
+    protected void parseGroups(JsonValue groups) {
+        ObjectSet<String> grouped = new ObjectSet<String>();
+        for (JsonValue group = groups.child(); group != null; group = group.next()) {
+            Array<String> files = new Array<String>();
+            for (String pattern : group.asStringArray()) {
+                boolean prefix = pattern.endsWith( "*" );
+                String match = prefix ? pattern.substring( 0, pattern.length()-1 ) : pattern;
+                boolean found = false;
+                for (ObjectMap<String,String> keys : cachedData.keymap.values()) {
+                    for (ObjectMap.Entry<String,String> entry : keys) {
+                        if (prefix ? entry.key.startsWith( match ) : entry.key.equals( match )) {
+                            if (!files.contains( entry.value, false )) {
+                                files.add( entry.value );
+                            }
+                            found = true;
+                        }
+                    }
+                }
+                if (!found) {
+                    throw new GdxRuntimeException( "Asset group '"+group.name()+"' has no entry for '"+pattern+"'" );
+                }
             }
-            parser.reset( cachedData.directory );
-            while (parser.hasNext()) {
-                parser.processNext( manager, keys );
+            grouped.addAll( files );
+            cachedData.groups.put( group.name(), files );
+        }
+
+        Array<String> core = cachedData.groups.get( AssetDirectory.CORE_GROUP );
+        if (core == null) {
+            core = new Array<String>();
+            cachedData.groups.put( AssetDirectory.CORE_GROUP, core );
+        }
+        for (ObjectMap<String,String> keys : cachedData.keymap.values()) {
+            for (String filename : keys.values()) {
+                if (grouped.add( filename )) {
+                    core.add( filename );
+                }
             }
         }
     }
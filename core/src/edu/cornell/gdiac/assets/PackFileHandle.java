@@ -0,0 +1,226 @@
+/*
+ * PackFileHandle.java
+ *
+ * A file handle for a file inside an asset pack.  Loaders only ever read their
+ * files, so this handle serves reads from the mapped pack, and leaves everything
+ * else (writing, listing) to the ordinary internal file of the same name.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only {@link FileHandle} for a file in an {@link AssetPack}.
+ *
+ * {@link #map} returns the file as a slice of the pack, without copying it.  Other
+ * reads copy out of the mapping instead of going to the disk.  A handle with no
+ * contents stands for a folder, so that {@link #child} and {@link #sibling} also
+ * find files in the pack.
+ */
+public class PackFileHandle extends FileHandle {
+    /** The pack holding this file */
+    private final AssetPack pack;
+    /** The contents of this file (null for a folder) */
+    private final ByteBuffer data;
+
+    /**
+     * Creates a handle for the given file (or folder) in the pack
+     *
+     * @param pack      The pack holding this file
+     * @param fileName  The file name, relative to the asset folder
+     * @param data      The contents of this file (null for a folder)
+     */
+    public PackFileHandle(AssetPack pack, String fileName, ByteBuffer data) {
+        super( fileName, FileType.Internal );
+        this.pack = pack;
+        this.data = data;
+    }
+
+    /**
+     * Returns the contents of this file as a slice of the pack.
+     *
+     * The buffer is direct and read-only in spirit: the pack is mapped read-only, so
+     * any write to it will fail.
+     *
+     * @param mode  The mapping mode (only READ_ONLY is supported)
+     *
+     * @return the contents of this file as a slice of the pack.
+     */
+    @Override
+    public ByteBuffer map(FileChannel.MapMode mode) {
+        if (data == null) {
+            throw new GdxRuntimeException( "Cannot map a directory: "+file );
+        } else if (mode != FileChannel.MapMode.READ_ONLY) {
+            throw new GdxRuntimeException( "Cannot map a packed file for writing: "+file );
+        }
+        return data.duplicate();
+    }
+
+    /**
+     * Returns a stream for reading this file.
+     *
+     * @return a stream for reading this file.
+     */
+    @Override
+    public InputStream read() {
+        if (data == null) {
+            throw new GdxRuntimeException( "Cannot open a stream to a directory: "+file );
+        }
+        return new BufferStream( data.duplicate() );
+    }
+
+    /**
+     * Returns the contents of this file as a new byte array.
+     *
+     * @return the contents of this file as a new byte array.
+     */
+    @Override
+    public byte[] readBytes() {
+        if (data == null) {
+            throw new GdxRuntimeException( "Cannot read a directory: "+file );
+        }
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get( bytes );
+        return bytes;
+    }
+
+    /**
+     * Returns the length in bytes of this file, or 0 if this is a directory
+     *
+     * @return the length in bytes of this file, or 0 if this is a directory
+     */
+    @Override
+    public long length() {
+        return data == null ? 0 : data.remaining();
+    }
+
+    /**
+     * Returns true if this file is in the pack (or is a folder that exists)
+     *
+     * @return true if this file is in the pack (or is a folder that exists)
+     */
+    @Override
+    public boolean exists() {
+        return data != null || Gdx.files.internal( path() ).exists();
+    }
+
+    /**
+     * Returns true if this handle stands for a folder
+     *
+     * @return true if this handle stands for a folder
+     */
+    @Override
+    public boolean isDirectory() {
+        return data == null;
+    }
+
+    /**
+     * Returns a handle to the child with the given name, looking in the pack first
+     *
+     * @param name  The name of the child
+     *
+     * @return a handle to the child with the given name
+     */
+    @Override
+    public FileHandle child(String name) {
+        String path = path();
+        return resolve( path.length() == 0 ? name : path + "/" + name );
+    }
+
+    /**
+     * Returns a handle to the sibling with the given name, looking in the pack first
+     *
+     * @param name  The name of the sibling
+     *
+     * @return a handle to the sibling with the given name
+     */
+    @Override
+    public FileHandle sibling(String name) {
+        String path = path();
+        if (path.length() == 0) {
+            throw new GdxRuntimeException( "Cannot get the sibling of the root." );
+        }
+        return parent().child( name );
+    }
+
+    /**
+     * Returns a handle to the folder holding this file
+     *
+     * @return a handle to the folder holding this file
+     */
+    @Override
+    public FileHandle parent() {
+        File parent = file.getParentFile();
+        return new PackFileHandle( pack, parent == null ? "" : parent.getPath(), null );
+    }
+
+    /**
+     * Returns a handle for the given file, from the pack if it is there
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return a handle for the given file
+     */
+    private FileHandle resolve(String fileName) {
+        ByteBuffer contents = pack.find( fileName );
+        if (contents != null) {
+            return new PackFileHandle( pack, fileName, contents );
+        }
+        FileHandle loose = Gdx.files.internal( fileName );
+        return loose.isDirectory() ? new PackFileHandle( pack, fileName, null ) : loose;
+    }
+
+    /**
+     * An input stream over a buffer of the pack
+     */
+    private static class BufferStream extends InputStream {
+        /** The bytes left to read */
+        private final ByteBuffer buffer;
+
+        /**
+         * Creates a stream over the given buffer
+         *
+         * @param buffer    The bytes to read
+         */
+        BufferStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            } else if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min( length, buffer.remaining() );
+            buffer.get( bytes, offset, count );
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int)Math.max( 0, Math.min( n, buffer.remaining() ) );
+            buffer.position( buffer.position() + count );
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
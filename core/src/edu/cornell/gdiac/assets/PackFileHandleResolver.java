@@ -0,0 +1,114 @@
+/*
+ * PackFileHandleResolver.java
+ *
+ * A file resolver that serves files from an asset pack, if there is one.  During
+ * development the assets are usually loose, and there is no pack (or an old one),
+ * so every file that is not in the pack falls back to another resolver.  So does
+ * every file that was edited after the pack was built, so that a stale pack never
+ * hides a change to a loose asset.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link FileHandleResolver} for the files in an {@link AssetPack}.
+ *
+ * The pack is mapped once, when the resolver is created.  Files in the pack are
+ * returned as {@link PackFileHandle} objects; all other files come from the
+ * fallback resolver.  A packed file is skipped if the fallback has a loose copy
+ * with a different size or modification time.  If the pack cannot be mapped (it is missing, or inside a jar)
+ * then every file comes from the fallback resolver.
+ */
+public class PackFileHandleResolver implements FileHandleResolver {
+    /** The mapped pack (null if there is none) */
+    private final AssetPack pack;
+    /** The resolver for files not in the pack */
+    private final FileHandleResolver fallback;
+
+    /**
+     * Creates a resolver for the given internal pack file
+     *
+     * Files that are not in the pack are resolved as internal files.
+     *
+     * @param packName  The internal name of the pack file
+     */
+    public PackFileHandleResolver(String packName) {
+        this( packName, new InternalFileHandleResolver() );
+    }
+
+    /**
+     * Creates a resolver for the given internal pack file
+     *
+     * @param packName  The internal name of the pack file
+     * @param fallback  The resolver for files not in the pack
+     */
+    public PackFileHandleResolver(String packName, FileHandleResolver fallback) {
+        this.fallback = fallback;
+
+        // Internal files inside a jar or an apk are not files, and cannot be mapped
+        File file = Gdx.files.internal( packName ).file();
+        AssetPack mapped = null;
+        if (file.isFile()) {
+            try {
+                mapped = new AssetPack( file );
+            } catch (IOException e) {
+                Gdx.app.error( "PackFileHandleResolver", "Could not map "+packName, e );
+            }
+        }
+        pack = mapped;
+    }
+
+    /**
+     * Returns true if there is a pack to serve files from
+     *
+     * @return true if there is a pack to serve files from
+     */
+    public boolean hasPack() {
+        return pack != null;
+    }
+
+    /**
+     * Returns a handle for the given file, from the pack if it is there
+     *
+     * @param fileName  The file name, relative to the asset folder
+     *
+     * @return a handle for the given file
+     */
+    @Override
+    public FileHandle resolve(String fileName) {
+        if (pack != null) {
+            ByteBuffer data = pack.find( fileName );
+            if (data != null && isCurrent( fileName, data.remaining() )) {
+                return new PackFileHandle( pack, fileName, data );
+            }
+        }
+        return fallback.resolve( fileName );
+    }
+
+    /**
+     * Returns true if the packed file matches its loose copy (if there is one)
+     *
+     * A shipped game has no loose copies on disk (they are inside the jar, if
+     * anywhere), so this is only ever a stat during development.
+     *
+     * @param fileName  The file name, relative to the asset folder
+     * @param length    The length of the packed file
+     *
+     * @return true if the packed file matches its loose copy
+     */
+    private boolean isCurrent(String fileName, long length) {
+        File loose = fallback.resolve( fileName ).file();
+        if (loose == null || !loose.isFile()) {
+            return true;
+        }
+        return loose.length() == length && loose.lastModified() == pack.lastModified( fileName );
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * ParallelTextureLoader.java
+ *
+ * The AssetManager runs the asynchronous part of every loader on a single thread, so
+ * the stock TextureLoader decodes one PNG at a time, and most of a cold start is
+ * spent waiting on that one thread.  But the asset directory knows every texture it
+ * is going to load long before the manager gets to it.
+ *
+ * This loader starts decoding textures on the WorkerPool as soon as they are queued,
+ * a bounded number ahead of the manager, so that the decoded images are (usually)
+ * waiting by the time their turn comes.  Only the upload to the GPU happens on the
+ * GL thread, exactly as with TextureLoader.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.*;
+import com.badlogic.gdx.assets.loaders.*;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.glutils.FileTextureData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import edu.cornell.gdiac.util.WorkerPool;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This class is an {@link AssetLoader} to load {@link Texture} assets, decoding them
+ * in parallel.
+ *
+ * It takes the same {@link TextureLoader.TextureParameter} values as TextureLoader.
+ * Textures announced with {@link #prefetch} are decoded ahead of time; any other
+ * texture is decoded when the manager asks for it.
+ */
+public class ParallelTextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter> {
+    /** The number of decoded images allowed to wait for the manager, per worker */
+    private static final int LOOKAHEAD = 2;
+
+    /** The asynchronously read TextureData */
+    private TextureData cachedData;
+    /** How long the most recent image took to decode, in nanoseconds */
+    private long decodeNanos;
+
+    /** The textures announced but not yet loaded, by file name */
+    private final ObjectMap<String, Decode> requests = new ObjectMap<String, Decode>();
+    /** The announced textures that have not been started, in order */
+    private final Array<Decode> waiting = new Array<Decode>();
+    /** The number of started decodes that have not been loaded */
+    private int inFlight;
+
+    /** A texture announced to this loader */
+    private static class Decode implements Callable<Pixmap> {
+        /** The file to decode */
+        final FileHandle file;
+        /** The pixel format to convert to (null to keep the file format) */
+        final Pixmap.Format format;
+        /** The pending image (null if not started) */
+        Future<Pixmap> result;
+        /** How long the decode took, in nanoseconds (set before the result) */
+        long nanos;
+
+        /**
+         * Creates a request to decode the given file
+         *
+         * @param file      The file to decode
+         * @param format    The pixel format to convert to
+         */
+        Decode(FileHandle file, Pixmap.Format format) {
+            this.file = file;
+            this.format = format;
+        }
+
+        /**
+         * Returns the decoded image of the file (on a worker thread)
+         *
+         * @return the decoded image of the file
+         */
+        @Override
+        public Pixmap call() {
+            long start = TimeUtils.nanoTime();
+            Pixmap pixmap = decode(file, format);
+            nanos = TimeUtils.nanoTime() - start;
+            return pixmap;
+        }
+    }
+
+    /**
+     * Creates a new ParallelTextureLoader with the given file resolver
+     *
+     * @param resolver    The file resolver
+     */
+    public ParallelTextureLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    /**
+     * Starts decoding the given texture ahead of the asset manager.
+     *
+     * At most a few images per worker are decoded ahead, so that memory use does not
+     * depend on the size of the directory.  The rest wait their turn.
+     *
+     * @param fileName  The name of the texture that was queued
+     * @param params    The parameters it will be loaded with
+     */
+    public synchronized void prefetch(String fileName, TextureLoader.TextureParameter params) {
+        if (requests.containsKey(fileName) || !isDecoded(fileName)) {
+            return;
+        }
+        Decode decode = new Decode(resolve(fileName), params == null ? null : params.format);
+        requests.put(fileName, decode);
+        waiting.add(decode);
+        pump();
+    }
+
+    /**
+     * Throws away every decode that has not been loaded.
+     *
+     * Call this when the manager is cleared, since those textures will never be
+     * asked for.
+     */
+    public synchronized void cancel() {
+        for (Decode decode : requests.values()) {
+            if (decode.result != null && !decode.result.cancel(false)) {
+                try {
+                    decode.result.get().dispose();
+                } catch (Exception e) {
+                    // The image was never made
+                }
+            }
+        }
+        requests.clear();
+        waiting.clear();
+        inFlight = 0;
+    }
+
+    /**
+     * Throws away the decode of the given texture, if it has not been loaded.
+     *
+     * Call this when a texture is unloaded before the manager gets to it.
+     *
+     * @param fileName  The name of the texture
+     */
+    public synchronized void discard(String fileName) {
+        Decode decode = requests.remove(fileName);
+        if (decode == null) {
+            return;
+        } else if (decode.result == null) {
+            waiting.removeValue(decode, true);
+            return;
+        }
+        if (!decode.result.cancel(false)) {
+            try {
+                decode.result.get().dispose();
+            } catch (Exception e) {
+                // The image was never made
+            }
+        }
+        inFlight--;
+        pump();
+    }
+
+    /**
+     * Starts as many waiting decodes as the lookahead allows
+     */
+    private void pump() {
+        int limit = LOOKAHEAD * WorkerPool.get().size();
+        while (inFlight < limit && waiting.size > 0) {
+            Decode decode = waiting.removeIndex(0);
+            decode.result = WorkerPool.get().submit(decode);
+            inFlight++;
+        }
+    }
+
+    /**
+     * Returns the decoded image of the texture, waiting for it if necessary
+     *
+     * @param fileName  The name of the texture
+     * @param file      The resolved file of the texture
+     * @param format    The pixel format to convert to
+     *
+     * @return the decoded image of the texture
+     */
+    private Pixmap take(String fileName, FileHandle file, Pixmap.Format format) {
+        Decode decode;
+        synchronized (this) {
+            decode = requests.remove(fileName);
+            if (decode != null && decode.result == null) {
+                waiting.removeValue(decode, true);
+                decode = null;
+            } else if (decode != null) {
+                inFlight--;
+            }
+            pump();
+        }
+
+        if (decode == null) {
+            long start = TimeUtils.nanoTime();
+            Pixmap pixmap = decode(file, format);
+            decodeNanos = TimeUtils.nanoTime() - start;
+            return pixmap;
+        }
+        try {
+            Pixmap pixmap = decode.result.get();
+            decodeNanos = decode.nanos;
+            return pixmap;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while decoding " + fileName, e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Couldn't decode " + fileName, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the profile of the given manager (null if it does not keep one)
+     *
+     * @param manager   The asset manager
+     *
+     * @return the profile of the given manager
+     */
+    private static AssetProfile profile(AssetManager manager) {
+        return manager instanceof AssetDirectory ? ((AssetDirectory)manager).getProfile() : null;
+    }
+
+    /**
+     * Returns true if the given texture file is decoded into a Pixmap
+     *
+     * Compressed GPU formats are left to {@link TextureData.Factory}.
+     *
+     * @param fileName  The name of the texture
+     *
+     * @return true if the given texture file is decoded into a Pixmap
+     */
+    private static boolean isDecoded(String fileName) {
+        String name = fileName.toLowerCase();
+        return !(name.endsWith(".cim") || name.endsWith(".etc1") || name.endsWith(".ktx") || name.endsWith(".zktx"));
+    }
+
+    /**
+     * Returns the decoded image of the file, in the given pixel format
+     *
+     * This method does not touch OpenGL, so it is safe on any thread.
+     *
+     * @param file      The file to decode
+     * @param format    The pixel format to convert to (null to keep the file format)
+     *
+     * @return the decoded image of the file
+     */
+    private static Pixmap decode(FileHandle file, Pixmap.Format format) {
+        Pixmap pixmap;
+        if (file instanceof PackFileHandle) {
+            // Decode straight out of the mapped pack, without copying the file
+            ByteBuffer encoded = file.map();
+            pixmap = new Pixmap(encoded, 0, encoded.remaining());
+        } else {
+            pixmap = new Pixmap(file);
+        }
+        if (format != null && pixmap.getFormat() != format) {
+            // Convert here rather than during the upload on the GL thread
+            Pixmap converted = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), format);
+            converted.setBlending(Pixmap.Blending.None);
+            converted.drawPixmap(pixmap, 0, 0);
+            pixmap.dispose();
+            pixmap = converted;
+        }
+        return pixmap;
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This is used to load non-OpenGL parts of the asset that do not require the context
+     * of the main thread.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        Pixmap.Format format = params == null ? null : params.format;
+        boolean mipmaps = params != null && params.genMipMaps;
+        long start = TimeUtils.nanoTime();
+        decodeNanos = 0;
+        if (params != null && params.textureData != null) {
+            cachedData = params.textureData;
+        } else if (isDecoded(fileName)) {
+            cachedData = new FileTextureData(file, take(fileName, file, format), format, mipmaps);
+            start = TimeUtils.nanoTime();
+        } else {
+            cachedData = TextureData.Factory.loadFromFile(file, format, mipmaps);
+        }
+        if (!cachedData.isPrepared()) {
+            cachedData.prepare();
+        }
+
+        AssetProfile profile = profile(manager);
+        if (profile != null) {
+            // A prefetched image reports its time on the worker, not the wait for it
+            profile.decoded(fileName, Texture.class, decodeNanos + TimeUtils.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * This is used to load OpenGL parts of the asset that require the context of the
+     * main thread.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        TextureData data = cachedData;
+        cachedData = null;
+
+        long start = TimeUtils.nanoTime();
+        Texture texture = params == null ? null : params.texture;
+        if (texture != null) {
+            texture.load(data);
+        } else {
+            texture = new Texture(data);
+        }
+        AssetProfile profile = profile(manager);
+        if (profile != null) {
+            profile.uploaded(fileName, Texture.class, TimeUtils.nanoTime() - start);
+        }
+        if (params != null) {
+            texture.setFilter(params.minFilter, params.magFilter);
+            texture.setWrap(params.wrapU, params.wrapV);
+        }
+        return texture;
+    }
+
+    /**
+     * Returns the other assets this asset requires to be loaded first.
+     *
+     * This method may be called on a thread other than the GL thread. It may return
+     * null if there are no dependencies.
+     *
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params parameters for loading the asset
+     *
+     * @return the other assets this asset requires to be loaded first.
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureLoader.TextureParameter params) {
+        return null;
+    }
+}
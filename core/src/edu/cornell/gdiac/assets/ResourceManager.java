@@ -16,7 +16,9 @@ package edu.cornell.gdiac.assets;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.ObjectMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides a singleton for managing heavyweight resources
@@ -38,14 +40,22 @@ import com.badlogic.gdx.utils.ObjectMap;
  * the manager becomes the resource owner of that resource, and will be responsible for 
  * disposing of it. All references to the object outside of the reference manager 
  * will be essentially weak references (in the C++ sense).
+ *
+ * Lookups are far more common than changes, and happen on every thread (the render
+ * loop, the asset loaders, the simulation).  So the tables are concurrent maps, and
+ * the lookup methods never lock.  Only the methods that add or remove a resource
+ * take a lock, to keep the two tables consistent with each other.  A lookup that
+ * races a removal sees the resource either before or after the removal.
  */
 public class ResourceManager {
 	/** The singleton instance of this resource manager */
-    private static ResourceManager instance = null;
+    private static volatile ResourceManager instance = null;
     /** Resource hashtables, categorized by class */
-    final ObjectMap<Class, ObjectMap<String, Disposable>> resources = new ObjectMap<Class, ObjectMap<String, Disposable>>();
+    final ConcurrentHashMap<Class, ConcurrentHashMap<String, Disposable>> resources = new ConcurrentHashMap<Class, ConcurrentHashMap<String, Disposable>>();
     /** The classes supported by this resource manager */
-    final ObjectMap<String, Class> resourceTypes = new ObjectMap<String, Class>();
+    final ConcurrentHashMap<String, Class> resourceTypes = new ConcurrentHashMap<String, Class>();
+    /** The lock held by methods that change the tables (lookups do not lock) */
+    private final Object writeLock = new Object();
 
     /**
      * Creates a new resource manager.
@@ -61,10 +71,17 @@ public class ResourceManager {
      * @return the singleton resource manager.
      */
     public static ResourceManager get() {
-        if (instance == null) {
-            instance = new ResourceManager();
+        ResourceManager result = instance;
+        if (result == null) {
+            synchronized (ResourceManager.class) {
+                result = instance;
+                if (result == null) {
+                    result = new ResourceManager();
+                    instance = result;
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
     /**
@@ -75,10 +92,14 @@ public class ResourceManager {
      * To prevent a resource from being disposed, it should be removed first.
      */
     public static void dispose() {
-        if (instance != null) {
-            instance.clear();
+        ResourceManager result;
+        synchronized (ResourceManager.class) {
+            result = instance;
             instance = null;
         }
+        if (result != null) {
+            result.clear();
+        }
     }
 
     /**
@@ -90,12 +111,12 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get (String key) {
+    public <T> T get (String key) {
         Class<T> type = resourceTypes.get(key);
         if (type == null) {
             throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
         }
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
+        Map<String, Disposable> rsrcByType = resources.get(type);
         if (rsrcByType == null) {
             throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
         }
@@ -116,8 +137,8 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get (String key, Class<T> type) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
+    public <T> T get (String key, Class<T> type) {
+        Map<String, Disposable> rsrcByType = resources.get(type);
         if (rsrcByType == null) {
             throw new GdxRuntimeException(String.format("Resource '%s' is not active.", key));
         }
@@ -136,12 +157,11 @@ public class ResourceManager {
      * @return the key for the given resource (null if resource is not present)
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> String getKey (T resource) {
-        for (Class rsrcType : resources.keys()) {
-            ObjectMap<String, Disposable> rsrcByType = resources.get(rsrcType);
-            for (String key : rsrcByType.keys()) {
-                T other = (T) rsrcByType.get( key );
-                if (other == resource || resource.equals(other)) return key;
+    public <T> String getKey (T resource) {
+        for (Map<String, Disposable> rsrcByType : resources.values()) {
+            for (Map.Entry<String, Disposable> entry : rsrcByType.entrySet()) {
+                T other = (T) entry.getValue();
+                if (other == resource || resource.equals(other)) return entry.getKey();
             }
         }
         return null;
@@ -150,7 +170,8 @@ public class ResourceManager {
     /**
      * Stores all resources of the given type in the array out
      *
-     * This method returns the array passed for method chaining.
+     * This method does not lock.  A resource added or removed while it runs may or
+     * may not be included.  This method returns the array passed for method chaining.
      *
      * @param type  The resource type
      * @param out   The storage array
@@ -158,11 +179,11 @@ public class ResourceManager {
      * @return the array passed for method chaining.
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> Array<T> getAll (Class<T> type, Array<T> out) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(type);
+    public <T> Array<T> getAll (Class<T> type, Array<T> out) {
+        Map<String, Disposable> rsrcByType = resources.get(type);
         if (rsrcByType != null) {
-            for (ObjectMap.Entry<String, Disposable> resource : rsrcByType.entries()) {
-                out.add((T) resource.value);
+            for (Disposable resource : rsrcByType.values()) {
+                out.add((T) resource);
             }
         }
         return out;
@@ -175,7 +196,7 @@ public class ResourceManager {
      *
      * @return true if the specified resource is in this manager.
      */
-    public synchronized boolean contains(String key) {
+    public boolean contains(String key) {
         if (key == null) return false;
         return resourceTypes.containsKey(key);
     }
@@ -188,9 +209,9 @@ public class ResourceManager {
      *
      * @return true if the specified resource is in this manager.
      */
-    public synchronized boolean contains(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) return false;
+    public boolean contains(String key, Class type) {
+        Map<String, Disposable> resourcesByType = resources.get(type);
+        if (resourcesByType == null || key == null) return false;
         return resourcesByType.get(key) != null;
     }
 
@@ -202,11 +223,10 @@ public class ResourceManager {
      * @return true if the specified resource is in this manager.
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> boolean contains(T resource) {
-        ObjectMap<String, Disposable> rsrcByType = resources.get(resource.getClass());
+    public <T> boolean contains(T resource) {
+        Map<String, Disposable> rsrcByType = resources.get(resource.getClass());
         if (rsrcByType == null) return false;
-        for (String key : rsrcByType.keys()) {
-            T other = (T) rsrcByType.get( key );
+        for (Disposable other : rsrcByType.values()) {
             if (other == resource || resource.equals(other)) return true;
         }
         return false;
@@ -222,23 +242,9 @@ public class ResourceManager {
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    @SuppressWarnings("unchecked")
-    public synchronized void dispose(String key) {
-        // get the asset and its type
-        Class type = resourceTypes.get(key);
-        if (type == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
+    public void dispose(String key) {
+        Disposable resource = remove(key);
         resource.dispose();
-        resourcesByType.remove(key);
     }
 
     /**
@@ -252,18 +258,9 @@ public class ResourceManager {
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    @SuppressWarnings("unchecked")
-    public synchronized void dispose(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
+    public void dispose(String key, Class type) {
+        Disposable resource = remove(key, type);
         resource.dispose();
-        resourcesByType.remove(key);
     }
 
     /**
@@ -276,9 +273,11 @@ public class ResourceManager {
      *
      * @throws GdxRuntimeException if no asset of type T has that key
      */
-    public synchronized <T> void dispose(T resource) {
-        String key = getKey(resource);
-        dispose(key);
+    public <T> void dispose(T resource) {
+        synchronized (writeLock) {
+            String key = getKey(resource);
+            dispose(key);
+        }
     }
 
     /**
@@ -288,14 +287,21 @@ public class ResourceManager {
      * them once this method is called.  This method should only be called near
      * the end of the application.
      */
-    public synchronized void clear() {
-        for (ObjectMap<String, Disposable>  resourcesByType : resources.values()) {
-            for(Disposable resource : resourcesByType.values()) {
-                resource.dispose();
+    public void clear() {
+        Array<Disposable> disposed = new Array<Disposable>();
+        synchronized (writeLock) {
+            for (Map<String, Disposable>  resourcesByType : resources.values()) {
+                for(Disposable resource : resourcesByType.values()) {
+                    disposed.add(resource);
+                }
             }
+            resources.clear();
+            resourceTypes.clear();
+        }
+        // Dispose outside the lock, so that lookups already see an empty manager
+        for(Disposable resource : disposed) {
+            resource.dispose();
         }
-        resources.clear();
-        resourceTypes.clear();
     }
     
 	/**
@@ -311,23 +317,15 @@ public class ResourceManager {
      * @throws GdxRuntimeException if no asset of type T has that key
      * @return the resource with the given key
      */
-    @SuppressWarnings("unchecked")
-    public synchronized <T> T remove(String key) {
-        // get the asset and its type
-        Class type = resourceTypes.get(key);
-        if (type == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
+    public <T> T remove(String key) {
+        synchronized (writeLock) {
+            // get the asset and its type
+            Class type = key == null ? null : resourceTypes.get(key);
+            if (type == null) {
+                throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
+            }
+            return remove(key, type);
         }
-        resourcesByType.remove(key);
-        return (T)resource;
     }
 
 	/**
@@ -345,17 +343,22 @@ public class ResourceManager {
      * @return the resource with the given key
      */
     @SuppressWarnings("unchecked")
-    public synchronized <T> T remove(String key, Class type) {
-        ObjectMap<String, Disposable> resourcesByType = resources.get(type);
-        if (resourcesByType == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
-        }
-        Disposable resource = (Disposable)resourcesByType.get(key);
-        if (resource == null) {
-            throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
+    public <T> T remove(String key, Class type) {
+        synchronized (writeLock) {
+            Map<String, Disposable> resourcesByType = resources.get(type);
+            if (resourcesByType == null) {
+                throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
+            }
+            Disposable resource = resourcesByType.remove(key);
+            if (resource == null) {
+                throw new GdxRuntimeException(String.format("Pipeline resource '%s' not active.", key));
+            }
+            // The key may have been added again with another type
+            if (resourceTypes.get(key) == type) {
+                resourceTypes.remove(key);
+            }
+            return (T)resource;
         }
-        resourcesByType.remove(key);
-        return (T)resource;
     }
     
 	/**
@@ -371,9 +374,11 @@ public class ResourceManager {
      * @throws GdxRuntimeException if no asset of type T has that key
      * @return the resource with the given key
      */
-    public synchronized <T> T remove(T resource) {
-        String key = getKey(resource);
-        return remove(key);
+    public <T> T remove(T resource) {
+        synchronized (writeLock) {
+            String key = getKey(resource);
+            return remove(key);
+        }
     }
 
     /** 
@@ -390,18 +395,19 @@ public class ResourceManager {
      * @param type  	The resource type
      * @param resource	The resource to add
      */
-    @SuppressWarnings("unchecked")
     public <T> void add(final String key, Class<T> type, T resource) {
-        // add the asset to the filename lookup
-        resourceTypes.put(key, type);
+        synchronized (writeLock) {
+            // add the asset to the type lookup first, so lookups by key never miss it
+            ConcurrentHashMap<String, Disposable> typeToRsrc = resources.get(type);
+            if (typeToRsrc == null) {
+                typeToRsrc = new ConcurrentHashMap<String, Disposable>();
+                resources.put(type, typeToRsrc);
+            }
+            typeToRsrc.put(key, (Disposable)resource);
 
-        // add the asset to the type lookup
-        ObjectMap<String, Disposable> typeToRsrc = resources.get(type);
-        if (typeToRsrc == null) {
-            typeToRsrc = new ObjectMap<String, Disposable>();
-            resources.put(type, typeToRsrc);
+            // add the asset to the filename lookup
+            resourceTypes.put(key, type);
         }
-        typeToRsrc.put(key, (Disposable)resource);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+/*
+ * StreamingFilmStripLoader.java
+ *
+ * This is a loader for streaming film strips.  The loader only decodes the first
+ * row of the sprite sheet; the rest is decoded by the strip as it plays.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AssetLoader;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.utils.Array;
+import edu.cornell.gdiac.util.StreamingFilmStrip;
+
+/**
+ * This class is an {@link AssetLoader} to load {@link StreamingFilmStrip} assets.
+ *
+ * The first row is decoded on the loading thread, so the strip can be played as
+ * soon as it is loaded.  Only the frame textures are made on the GL thread.
+ */
+public class StreamingFilmStripLoader extends AsynchronousAssetLoader<StreamingFilmStrip, StreamingFilmStripLoader.StreamingFilmStripParameters> {
+    /** The decoder of the strip being loaded */
+    private StreamingFilmStrip.Decoder cachedDecoder;
+    /** The first row of frames of the strip being loaded */
+    private Pixmap[] cachedRow;
+
+    /**
+     * The definable parameters for a {@link StreamingFilmStrip}.
+     */
+    static public class StreamingFilmStripParameters extends AssetLoaderParameters<StreamingFilmStrip> {
+        /** The number of rows in the sprite sheet */
+        public int rows = 1;
+        /** The number of columns in the sprite sheet */
+        public int cols = 1;
+        /** The number of frames in the sprite sheet (0 for rows*cols) */
+        public int size = 0;
+    }
+
+    /**
+     * Creates a new StreamingFilmStripLoader with the given file resolver
+     *
+     * @param resolver    The file resolver
+     */
+    public StreamingFilmStripLoader(FileHandleResolver resolver) {
+        super(resolver);
+    }
+
+    /**
+     * Loads thread-safe part of the asset and injects any dependencies into the AssetManager.
+     *
+     * This is used to load non-OpenGL parts of the asset that do not require the context
+     * of the main thread.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, StreamingFilmStripParameters params) {
+        int rows = params == null ? 1 : params.rows;
+        int cols = params == null ? 1 : params.cols;
+        int size = params == null || params.size <= 0 ? rows*cols : params.size;
+        cachedDecoder = new StreamingFilmStrip.Decoder(file, rows, cols, size);
+        cachedRow = cachedDecoder.decodeRow(0);
+    }
+
+    /**
+     * Loads the main thread part of the asset.
+     *
+     * This is used to load OpenGL parts of the asset that require the context of the
+     * main thread.
+     *
+     * @param manager   The asset manager
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params    The parameters to use for loading the asset
+     */
+    @Override
+    public StreamingFilmStrip loadSync(AssetManager manager, String fileName, FileHandle file, StreamingFilmStripParameters params) {
+        StreamingFilmStrip strip = new StreamingFilmStrip(cachedDecoder, cachedRow);
+        cachedDecoder = null;
+        cachedRow = null;
+        return strip;
+    }
+
+    /**
+     * Returns the other assets this asset requires to be loaded first.
+     *
+     * This method may be called on a thread other than the GL thread. It may return
+     * null if there are no dependencies.
+     *
+     * @param fileName  The name of the asset to load
+     * @param file      The resolved file to load
+     * @param params parameters for loading the asset
+     *
+     * @return the other assets this asset requires to be loaded first.
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, StreamingFilmStripParameters params) {
+        return null;
+    }
+}
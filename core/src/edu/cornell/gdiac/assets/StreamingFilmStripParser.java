@@ -0,0 +1,98 @@
+/*
+ * StreamingFilmStripParser.java
+ *
+ * This is an interface for parsing a JSON entry into a StreamingFilmStrip.  These are
+ * sprite sheets too large to keep on the GPU, such as full-screen animations, and are
+ * decoded a few frames at a time as they play.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import edu.cornell.gdiac.util.StreamingFilmStrip;
+
+/**
+ * This class parses a JSON entry into a {@link StreamingFilmStrip}.
+ *
+ * Streaming film strips are defined in a "filmstreams" section.  Each entry has the
+ * following values:
+ *
+ * * "file": The sprite sheet (a PNG)
+ * * "rows": The number of rows in the sprite sheet
+ * * "cols": The number of columns in the sprite sheet
+ * * "size": The number of frames in the sprite sheet
+ *
+ * The value size is optional.
+ */
+public class StreamingFilmStripParser implements AssetParser<StreamingFilmStrip> {
+    /** The current film strip entry in the JSON directory */
+    private JsonValue root;
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<StreamingFilmStrip> getType() {
+        return StreamingFilmStrip.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "filmstreams" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available film strip, loading it into the asset manager
+     *
+     * The parser converts JSON entries into {@link StreamingFilmStripLoader.StreamingFilmStripParameters}
+     * values of the same name.
+     *
+     * This method fails silently if there are no available assets to process.
+     *
+     * @param manager    The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        String file = root.getString( "file", null );
+        if (file == null) {
+            root = root.next();
+            return;
+        }
+        StreamingFilmStripLoader.StreamingFilmStripParameters params = new StreamingFilmStripLoader.StreamingFilmStripParameters();
+        params.rows = root.getInt( "rows", 1 );
+        params.cols = root.getInt( "cols", 1 );
+        params.size = root.getInt( "size", params.rows*params.cols );
+        keymap.put( root.name(), file );
+        manager.load( file, StreamingFilmStrip.class, params );
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another StreamingFilmStripParser
+     *
+     * @return true if o is another StreamingFilmStripParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof StreamingFilmStripParser;
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * TextureResidency.java
+ *
+ * Asset groups unload a screen's textures as soon as the screen is left, so going
+ * back to a screen (level select after every level, for instance) reads, decodes
+ * and uploads all of its art again.  But keeping everything resident is not an
+ * option either: the home screen film strips alone are hundreds of megabytes of
+ * RGBA8888.
+ *
+ * This class keeps the bookkeeping for the middle ground.  Textures released by
+ * every group are parked rather than unloaded, and stay on the GPU until the video
+ * memory used by textures goes over a budget.  Then the parked textures that were
+ * used least recently are evicted (unloaded for real).  The AssetDirectory does the
+ * actual loading and unloading; this class only decides what goes.
+ */
+package edu.cornell.gdiac.assets;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectLongMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.util.Comparator;
+
+/**
+ * The video memory budget of the textures in an {@link AssetDirectory}.
+ *
+ * A parked texture is held by the directory on behalf of no one, so that it is
+ * still loaded if a group acquires it again.  An evicted texture is one that was
+ * parked and then unloaded to stay within the budget; the directory loads it again
+ * if it is asked for by {@link AssetDirectory#getEntry}.
+ *
+ * The methods of this class are synchronized, since the directory is used from the
+ * loading threads as well as the GL thread.
+ */
+public class TextureResidency {
+    /** The estimated video memory of each loaded texture */
+    private final ObjectLongMap<String> footprint = new ObjectLongMap<String>();
+    /** When each texture was last used (ms) */
+    private final ObjectLongMap<String> lastUse = new ObjectLongMap<String>();
+    /** The textures held only on behalf of this class */
+    private final ObjectSet<String> parked = new ObjectSet<String>();
+    /** The textures unloaded to stay within the budget */
+    private final ObjectSet<String> evicted = new ObjectSet<String>();
+    /** The video memory used by all loaded textures */
+    private long resident;
+    /** The video memory allowed for textures */
+    private long budget;
+
+    /**
+     * Creates a residency manager with the given budget
+     *
+     * @param budget    The video memory allowed for textures, in bytes
+     */
+    public TextureResidency(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the video memory allowed for textures, in bytes
+     *
+     * @return the video memory allowed for textures, in bytes
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the video memory allowed for textures, in bytes
+     *
+     * A smaller budget takes effect the next time a group is released.  Textures
+     * held by a group are never evicted, so the budget can be exceeded if the current
+     * screen needs more.
+     *
+     * @param bytes The video memory allowed for textures, in bytes
+     */
+    public synchronized void setBudget(long bytes) {
+        budget = bytes;
+    }
+
+    /**
+     * Returns the estimated video memory used by all loaded textures, in bytes
+     *
+     * @return the estimated video memory used by all loaded textures
+     */
+    public synchronized long getResidentBytes() {
+        return resident;
+    }
+
+    /**
+     * Returns the estimated video memory used by parked textures, in bytes
+     *
+     * @return the estimated video memory used by parked textures
+     */
+    public synchronized long getParkedBytes() {
+        long total = 0;
+        for (String file : parked) {
+            total += footprint.get( file, 0 );
+        }
+        return total;
+    }
+
+    /**
+     * Records a newly loaded texture
+     *
+     * @param file  The texture file name
+     * @param bytes The estimated video memory of the texture
+     */
+    synchronized void track(String file, long bytes) {
+        resident += bytes - footprint.get( file, 0 );
+        footprint.put( file, bytes );
+        evicted.remove( file );
+        lastUse.put( file, TimeUtils.millis() );
+    }
+
+    /**
+     * Forgets a texture that was unloaded
+     *
+     * @param file  The texture file name
+     */
+    synchronized void untrack(String file) {
+        resident -= footprint.remove( file, 0 );
+        lastUse.remove( file, 0 );
+        parked.remove( file );
+    }
+
+    /**
+     * Records that a texture was used
+     *
+     * @param file  The texture file name
+     */
+    synchronized void touch(String file) {
+        if (footprint.containsKey( file )) {
+            lastUse.put( file, TimeUtils.millis() );
+        }
+    }
+
+    /**
+     * Records that the directory holds the texture on behalf of this class
+     *
+     * The texture counts as used now, since it was either just released by the
+     * screen drawing it or just asked for by the next one.
+     *
+     * @param file  The texture file name
+     */
+    synchronized void park(String file) {
+        parked.add( file );
+        evicted.remove( file );
+        lastUse.put( file, TimeUtils.millis() );
+    }
+
+    /**
+     * Takes back a parked texture, returning true if it was parked
+     *
+     * The caller becomes the holder of the reference that was parked.
+     *
+     * @param file  The texture file name
+     *
+     * @return true if the texture was parked
+     */
+    synchronized boolean unpark(String file) {
+        return parked.remove( file );
+    }
+
+    /**
+     * Returns true if the texture is parked
+     *
+     * @param file  The texture file name
+     *
+     * @return true if the texture is parked
+     */
+    synchronized boolean isParked(String file) {
+        return parked.contains( file );
+    }
+
+    /**
+     * Returns true if the texture was evicted and not loaded since
+     *
+     * @param file  The texture file name
+     *
+     * @return true if the texture was evicted
+     */
+    synchronized boolean isEvicted(String file) {
+        return evicted.contains( file );
+    }
+
+    /**
+     * Records that a parked texture was evicted
+     *
+     * @param file  The texture file name
+     */
+    synchronized void evicted(String file) {
+        evicted.add( file );
+    }
+
+    /**
+     * Returns the parked textures to evict to get within the budget, oldest first
+     *
+     * Textures still loading are never chosen, since they do not use memory yet.
+     *
+     * @return the parked textures to evict
+     */
+    synchronized Array<String> victims() {
+        Array<String> result = new Array<String>();
+        if (resident <= budget) {
+            return result;
+        }
+        Array<String> candidates = new Array<String>();
+        for (String file : parked) {
+            if (footprint.containsKey( file )) {
+                candidates.add( file );
+            }
+        }
+        candidates.sort( new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return Long.compare( lastUse.get( a, 0 ), lastUse.get( b, 0 ) );
+            }
+        } );
+        long total = resident;
+        for (String file : candidates) {
+            if (total <= budget) {
+                break;
+            }
+            total -= footprint.get( file, 0 );
+            result.add( file );
+        }
+        return result;
+    }
+
+    /**
+     * Takes back every parked texture, returning them
+     *
+     * @return the textures that were parked
+     */
+    synchronized Array<String> unparkAll() {
+        Array<String> result = new Array<String>();
+        for (String file : parked) {
+            result.add( file );
+        }
+        parked.clear();
+        return result;
+    }
+
+    /**
+     * Forgets every texture, for when the directory is cleared
+     */
+    synchronized void reset() {
+        footprint.clear();
+        lastUse.clear();
+        parked.clear();
+        evicted.clear();
+        resident = 0;
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * LayeredMusic.java
+ *
+ * Adaptive soundtracks are usually written as stems: a base track, and variations
+ * of it (night, danger) that fade in over the top.  Playing each stem as its own
+ * Music object keeps a decoder and a stream running per stem, even while a stem is
+ * silent, and the stems drift apart since nothing keeps them on the same clock.
+ *
+ * This class mixes the stems itself.  A single thread reads every audible stem from
+ * its AudioStream in lockstep, applies the gain ramps sample by sample, and writes
+ * one mixed buffer to an AudioDevice.  A silent stem is not decoded at all; when it
+ * fades back in, it seeks to the shared clock so that it is still in time.
+ */
+package edu.cornell.gdiac.audio;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.audio.AudioDevice;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.Arrays;
+
+/**
+ * A looping soundtrack made of stems that fade in and out independently.
+ *
+ * Add the stems with {@link #addLayer} before calling {@link #play}.  Every stem must
+ * have the same sample rate and number of channels.  Use {@link #setLayerTarget} to
+ * fade a stem; the fade happens on the mixing thread, so the game loop does not need
+ * to touch the volumes every frame.
+ *
+ * Unlike the rest of this package, the volume methods are safe to call on any thread.
+ * The playback methods should be called on the main application thread.
+ */
+public class LayeredMusic implements Disposable {
+    /** The number of audio frames mixed per block */
+    private static final int BLOCK_FRAMES = 1024;
+
+    /** A single stem of this soundtrack */
+    private static class Layer {
+        /** The name of this layer */
+        final String name;
+        /** The decoder for this layer */
+        final AudioStream stream;
+        /** The length of this layer in audio frames (0 if unknown) */
+        final long frames;
+        /** The page most recently decoded */
+        final float[] page;
+        /** The number of samples in the page */
+        int pageSize;
+        /** The next sample of the page to mix */
+        int pageCursor;
+        /** Whether the stream position matches the shared clock */
+        boolean synced;
+
+        /** The current gain */
+        float gain;
+        /** The gain to ramp towards */
+        float target;
+        /** The gain change per audio frame on the way to the target */
+        float step;
+
+        /**
+         * Creates a layer for the given source
+         *
+         * @param name      The name of this layer
+         * @param source    The audio source to decode
+         * @param volume    The initial volume
+         */
+        Layer(String name, AudioSource source, float volume) {
+            this.name = name;
+            this.stream = source.getStream();
+            long samples = stream.getSampleSize();
+            this.frames = samples > 0 ? samples / source.getChannels() : 0;
+            this.page = new float[BLOCK_FRAMES * source.getChannels()];
+            this.gain = volume;
+            this.target = volume;
+            this.synced = true;
+        }
+    }
+
+    /** The stems of this soundtrack */
+    private final Array<Layer> layers = new Array<Layer>();
+    /** The sample rate shared by every stem */
+    private int sampleRate;
+    /** The number of channels shared by every stem */
+    private int channels;
+    /** The volume of the whole mix */
+    private volatile float volume = 1;
+
+    /** The output device (null unless playing) */
+    private AudioDevice device;
+    /** The mixing thread (null unless playing) */
+    private Thread mixer;
+    /** Whether the mixing thread should keep running */
+    private volatile boolean playing;
+    /** The shared clock, in audio frames since the start of the soundtrack */
+    private long clock;
+    /** Whether every stream is at the beginning (nothing read since the last stop) */
+    private boolean rewound = true;
+
+    /**
+     * Creates a soundtrack with no layers
+     */
+    public LayeredMusic() {
+    }
+
+    /**
+     * Adds a stem to this soundtrack.
+     *
+     * The stem must have the same sample rate and channels as the other stems.  Its
+     * name is how {@link #setLayerTarget} refers to it.
+     *
+     * @param name      The name of the layer
+     * @param source    The audio source of the stem
+     * @param volume    The initial volume of the layer
+     */
+    public void addLayer(String name, AudioSource source, float volume) {
+        if (mixer != null) {
+            throw new GdxRuntimeException( "Cannot add layer '"+name+"' while the music is playing" );
+        } else if (layers.size == 0) {
+            sampleRate = source.getSampleRate();
+            channels = source.getChannels();
+        } else if (source.getSampleRate() != sampleRate || source.getChannels() != channels) {
+            throw new GdxRuntimeException( "Layer '"+name+"' does not match the format of the other layers" );
+        }
+        layers.add( new Layer( name, source, volume ) );
+    }
+
+    /**
+     * Returns the current volume of the given layer
+     *
+     * @param name  The name of the layer
+     *
+     * @return the current volume of the given layer
+     */
+    public synchronized float getLayerVolume(String name) {
+        return find( name ).gain;
+    }
+
+    /**
+     * Sets the volume of the given layer immediately
+     *
+     * @param name      The name of the layer
+     * @param volume    The volume of the layer
+     */
+    public synchronized void setLayerVolume(String name, float volume) {
+        Layer layer = find( name );
+        layer.gain = volume;
+        layer.target = volume;
+        layer.step = 0;
+    }
+
+    /**
+     * Fades the given layer to a volume over the given time.
+     *
+     * Setting the target the layer is already fading to does not restart the fade,
+     * so it is safe to call this every frame.
+     *
+     * @param name      The name of the layer
+     * @param volume    The volume to fade to
+     * @param seconds   The length of the fade from the current volume
+     */
+    public synchronized void setLayerTarget(String name, float volume, float seconds) {
+        Layer layer = find( name );
+        if (layer.target == volume) {
+            return;
+        }
+        layer.target = volume;
+        float frames = Math.max( 1, seconds * sampleRate );
+        layer.step = (volume - layer.gain) / frames;
+    }
+
+    /**
+     * Returns the volume of the whole mix
+     *
+     * @return the volume of the whole mix
+     */
+    public float getVolume() {
+        return volume;
+    }
+
+    /**
+     * Sets the volume of the whole mix
+     *
+     * @param value the volume of the whole mix
+     */
+    public void setVolume(float value) {
+        volume = value;
+    }
+
+    /**
+     * Returns true if this soundtrack is playing
+     *
+     * @return true if this soundtrack is playing
+     */
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Starts (or resumes) playing this soundtrack from the shared clock
+     */
+    public void play() {
+        if (mixer != null || layers.size == 0) {
+            return;
+        }
+        if (device == null) {
+            device = Gdx.audio.newAudioDevice( sampleRate, channels == 1 );
+        }
+        playing = true;
+        rewound = false;
+        mixer = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                mix();
+            }
+        }, "music-mixer" );
+        mixer.setDaemon( true );
+        mixer.start();
+    }
+
+    /**
+     * Pauses this soundtrack, keeping its position
+     */
+    public void pause() {
+        if (mixer == null) {
+            return;
+        }
+        playing = false;
+        try {
+            mixer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mixer = null;
+    }
+
+    /**
+     * Stops this soundtrack and rewinds it to the beginning.
+     *
+     * The output device is released until the next call to {@link #play}.  The
+     * streams are not touched if the soundtrack is already stopped, so it is safe
+     * to stop it again after its audio sources are unloaded.
+     */
+    public void stop() {
+        pause();
+        if (!rewound) {
+            clock = 0;
+            for (Layer layer : layers) {
+                layer.stream.reset();
+                layer.pageSize = 0;
+                layer.pageCursor = 0;
+                layer.synced = true;
+            }
+            rewound = true;
+        }
+        if (device != null) {
+            device.dispose();
+            device = null;
+        }
+    }
+
+    /**
+     * Stops this soundtrack and releases its output device.
+     *
+     * The audio sources belong to whoever loaded them, and are not disposed.
+     */
+    @Override
+    public void dispose() {
+        stop();
+        layers.clear();
+    }
+
+    /**
+     * Returns the layer of the given name
+     *
+     * @param name  The name of the layer
+     *
+     * @return the layer of the given name
+     */
+    private Layer find(String name) {
+        for (Layer layer : layers) {
+            if (layer.name.equals( name )) {
+                return layer;
+            }
+        }
+        throw new GdxRuntimeException( "No music layer '"+name+"'" );
+    }
+
+    /**
+     * Mixes and writes blocks of audio until the music is paused (mixing thread)
+     */
+    private void mix() {
+        int size = BLOCK_FRAMES * channels;
+        float[] block = new float[size];
+        float[] scratch = new float[size];
+        float[] gains = new float[layers.size];
+        float[] steps = new float[layers.size];
+        float[] targets = new float[layers.size];
+
+        while (playing) {
+            // Take the fades for this block
+            synchronized (this) {
+                for (int ii = 0; ii < layers.size; ii++) {
+                    Layer layer = layers.get( ii );
+                    gains[ii] = layer.gain;
+                    steps[ii] = layer.step;
+                    targets[ii] = layer.target;
+                }
+            }
+
+            Arrays.fill( block, 0 );
+            for (int ii = 0; ii < layers.size; ii++) {
+                Layer layer = layers.get( ii );
+                float gain = gains[ii];
+                if (gain == 0 && targets[ii] == 0) {
+                    // Silent all block: skip the decode, and catch up when it fades in
+                    layer.synced = false;
+                    continue;
+                }
+                if (!layer.synced) {
+                    seek( layer );
+                }
+                read( layer, scratch, size );
+
+                float step = steps[ii];
+                float target = targets[ii];
+                for (int jj = 0; jj < size; jj += channels) {
+                    for (int kk = 0; kk < channels; kk++) {
+                        block[jj+kk] += scratch[jj+kk] * gain;
+                    }
+                    if (gain != target) {
+                        gain += step;
+                        if ((step > 0 && gain > target) || (step < 0 && gain < target) || step == 0) {
+                            gain = target;
+                        }
+                    }
+                }
+                gains[ii] = gain;
+            }
+
+            float master = volume;
+            for (int jj = 0; jj < size; jj++) {
+                float sample = block[jj] * master;
+                block[jj] = sample > 1 ? 1 : (sample < -1 ? -1 : sample);
+            }
+
+            // Publish the fades (unless a new fade was set while mixing)
+            synchronized (this) {
+                for (int ii = 0; ii < layers.size; ii++) {
+                    Layer layer = layers.get( ii );
+                    if (layer.target == targets[ii] && layer.step == steps[ii]) {
+                        layer.gain = gains[ii];
+                        if (layer.gain == layer.target) {
+                            layer.step = 0;
+                        }
+                    }
+                }
+            }
+            clock += BLOCK_FRAMES;
+
+            // This blocks until the device has room, which paces the mixer
+            device.writeSamples( block, 0, size );
+        }
+    }
+
+    /**
+     * Reads the next block of the layer, looping at the end of the stream
+     *
+     * @param layer     The layer to read
+     * @param buffer    The buffer to read into
+     * @param size      The number of samples to read
+     */
+    private void read(Layer layer, float[] buffer, int size) {
+        int filled = 0;
+        boolean looped = false;
+        while (filled < size) {
+            if (layer.pageCursor >= layer.pageSize) {
+                layer.pageCursor = 0;
+                layer.pageSize = layer.stream.read( layer.page );
+                if (layer.pageSize <= 0) {
+                    layer.pageSize = 0;
+                    if (looped) {
+                        // An empty stream; pad with silence
+                        Arrays.fill( buffer, filled, size, 0 );
+                        return;
+                    }
+                    layer.stream.loop();
+                    looped = true;
+                    continue;
+                }
+            }
+            int count = Math.min( size - filled, layer.pageSize - layer.pageCursor );
+            System.arraycopy( layer.page, layer.pageCursor, buffer, filled, count );
+            layer.pageCursor += count;
+            filled += count;
+        }
+    }
+
+    /**
+     * Moves the layer stream to the shared clock
+     *
+     * @param layer The layer to move
+     */
+    private void seek(Layer layer) {
+        long frame = layer.frames > 0 ? clock % layer.frames : clock;
+        layer.pageCursor = 0;
+        layer.pageSize = Math.max( 0, layer.stream.seek( frame * channels, layer.page ) );
+        layer.synced = true;
+    }
+}
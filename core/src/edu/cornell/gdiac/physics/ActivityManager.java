@@ -0,0 +1,280 @@
+/*
+ * ActivityManager.java
+ *
+ * Box2D integrates and broadphases every active dynamic body every step, no matter
+ * how far it is from the player.  On the large maps that is mostly salmon patrolling
+ * and ice blocks sitting on the other side of the level, where nothing they do can
+ * collide with anything the player will ever see in time.
+ *
+ * This class takes those bodies out of the simulation.  A body is simulated if it is
+ * near Ursa or near the camera view, and is deactivated (removed from the broadphase)
+ * once it is comfortably outside both.  The wake and sleep distances differ so that a
+ * body on the boundary does not flip every frame.
+ *
+ * Deactivated salmon keep patrolling.  Their AI still picks a velocity every frame,
+ * and this class moves them along it kinematically (no collisions), which is all a
+ * patrol route needs.  Ice is frozen in place, and is only deactivated at rest.
+ * When a body wakes up it is exactly where it would be, with the velocity it had.
+ *
+ * Based on the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import edu.cornell.gdiac.physics.obstacle.Obstacle;
+
+/**
+ * Activates and deactivates distant dynamic bodies.
+ *
+ * Call {@link #update} before the AI runs each frame, and {@link #step} after the AI
+ * has chosen its velocities (but before the world steps).
+ */
+public class ActivityManager {
+	/** The default distance from Ursa within which bodies are simulated (physics units) */
+	public static final float DEFAULT_WAKE_RADIUS = 32f;
+	/** The default margin around the camera view within which bodies are simulated */
+	public static final float DEFAULT_VIEW_MARGIN = 8f;
+	/** How much farther than the wake distance a body must be to be deactivated */
+	private static final float SLEEP_FACTOR = 1.25f;
+	/** Frozen bodies must be slower than this (squared, physics units) to deactivate */
+	private static final float REST_SPEED2 = 0.01f;
+
+	/** The bodies managed by this class */
+	private final Array<Obstacle> bodies = new Array<>();
+	/** Whether each body keeps moving (kinematically) while it is inactive */
+	private final BooleanArray moving = new BooleanArray();
+	/** Whether each body is currently simulated */
+	private final BooleanArray simulated = new BooleanArray();
+	/** The number of bodies that are currently simulated */
+	private int simulatedCount;
+
+	/** The distance from Ursa within which bodies are simulated */
+	private float wakeRadius;
+	/** The margin around the camera view within which bodies are simulated */
+	private float viewMargin;
+	/** Whether deactivation is enabled at all */
+	private boolean enabled = true;
+
+	/**
+	 * Creates an empty manager with the default distances
+	 */
+	public ActivityManager() {
+		this(DEFAULT_WAKE_RADIUS, DEFAULT_VIEW_MARGIN);
+	}
+
+	/**
+	 * Creates an empty manager with the given distances
+	 *
+	 * The wake radius must be larger than the farthest an enemy can see, since
+	 * deactivated enemies do not look for Ursa.
+	 *
+	 * @param wakeRadius	The distance from Ursa within which bodies are simulated
+	 * @param viewMargin	The margin around the camera view within which bodies are simulated
+	 */
+	public ActivityManager(float wakeRadius, float viewMargin) {
+		this.wakeRadius = wakeRadius;
+		this.viewMargin = viewMargin;
+	}
+
+	/**
+	 * Adds a body to be managed.
+	 *
+	 * The body must already be in the world.
+	 *
+	 * @param obj		The body to manage
+	 * @param patrols	Whether the body keeps moving while it is deactivated
+	 */
+	public void add(Obstacle obj, boolean patrols) {
+		bodies.add(obj);
+		moving.add(patrols);
+		simulated.add(true);
+		simulatedCount++;
+	}
+
+	/**
+	 * Forgets every body (without changing whether they are active)
+	 */
+	public void clear() {
+		bodies.clear();
+		moving.clear();
+		simulated.clear();
+		simulatedCount = 0;
+	}
+
+	/**
+	 * Activates every managed body.
+	 *
+	 * Call this before moving bodies by hand, such as when the level restarts.
+	 */
+	public void wakeAll() {
+		for (int ii = 0; ii < bodies.size; ii++) {
+			if (!simulated.get(ii)) {
+				wake(ii);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if distant bodies are deactivated
+	 *
+	 * @return true if distant bodies are deactivated
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether distant bodies are deactivated
+	 *
+	 * Disabling the manager activates every body.
+	 *
+	 * @param value	whether distant bodies are deactivated
+	 */
+	public void setEnabled(boolean value) {
+		enabled = value;
+		if (!enabled) {
+			wakeAll();
+		}
+	}
+
+	/**
+	 * Returns the number of managed bodies
+	 *
+	 * @return the number of managed bodies
+	 */
+	public int size() {
+		return bodies.size;
+	}
+
+	/**
+	 * Returns the number of managed bodies that are currently simulated
+	 *
+	 * @return the number of managed bodies that are currently simulated
+	 */
+	public int getSimulatedCount() {
+		return simulatedCount;
+	}
+
+	/**
+	 * Activates the bodies that came into range and deactivates the ones that left.
+	 *
+	 * This must not be called during a world step.
+	 *
+	 * @param x			The x-coordinate of Ursa (physics units)
+	 * @param y			The y-coordinate of Ursa (physics units)
+	 * @param camera	The camera of the world pass
+	 * @param scale		The drawing scale (pixels per physics unit)
+	 */
+	public void update(float x, float y, OrthographicCamera camera, Vector2 scale) {
+		if (!enabled) {
+			return;
+		}
+
+		// The camera view in physics units
+		float cx = camera.position.x / scale.x;
+		float cy = camera.position.y / scale.y;
+		float hw = camera.viewportWidth * camera.zoom / (2 * scale.x);
+		float hh = camera.viewportHeight * camera.zoom / (2 * scale.y);
+
+		float wake2  = wakeRadius * wakeRadius;
+		float sleep2 = wake2 * SLEEP_FACTOR * SLEEP_FACTOR;
+		for (int ii = 0; ii < bodies.size; ii++) {
+			Obstacle obj = bodies.get(ii);
+			float bx = obj.getX();
+			float by = obj.getY();
+			float dx = bx - x;
+			float dy = by - y;
+			float d2 = dx * dx + dy * dy;
+			if (simulated.get(ii)) {
+				if (d2 > sleep2 && !nearView(bx, by, cx, cy, hw, hh, viewMargin * SLEEP_FACTOR) &&
+						(moving.get(ii) || atRest(obj))) {
+					sleep(ii);
+				}
+			} else if (d2 <= wake2 || nearView(bx, by, cx, cy, hw, hh, viewMargin)) {
+				wake(ii);
+			}
+		}
+	}
+
+	/**
+	 * Moves the deactivated patrolling bodies along their current velocity.
+	 *
+	 * Box2D does not integrate deactivated bodies, so this takes its place.  There
+	 * are no collisions, which is fine for a patrol route nobody can see.
+	 *
+	 * @param dt	The length of the physics step in seconds
+	 */
+	public void step(float dt) {
+		if (simulatedCount == bodies.size) {
+			return;
+		}
+		for (int ii = 0; ii < bodies.size; ii++) {
+			if (simulated.get(ii) || !moving.get(ii)) {
+				continue;
+			}
+			Obstacle obj = bodies.get(ii);
+			float vx = obj.getVX();
+			float vy = obj.getVY();
+			if (vx != 0 || vy != 0) {
+				obj.setPosition(obj.getX() + vx * dt, obj.getY() + vy * dt);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the point is within the margin of the camera view
+	 *
+	 * @param x			The x-coordinate of the point
+	 * @param y			The y-coordinate of the point
+	 * @param cx		The x-coordinate of the view center
+	 * @param cy		The y-coordinate of the view center
+	 * @param hw		Half the view width
+	 * @param hh		Half the view height
+	 * @param margin	The margin around the view
+	 *
+	 * @return true if the point is within the margin of the camera view
+	 */
+	private static boolean nearView(float x, float y, float cx, float cy, float hw, float hh, float margin) {
+		return Math.abs(x - cx) <= hw + margin && Math.abs(y - cy) <= hh + margin;
+	}
+
+	/**
+	 * Returns true if the body has (practically) stopped moving
+	 *
+	 * @param obj	The body to check
+	 *
+	 * @return true if the body has (practically) stopped moving
+	 */
+	private static boolean atRest(Obstacle obj) {
+		float vx = obj.getVX();
+		float vy = obj.getVY();
+		return vx * vx + vy * vy < REST_SPEED2;
+	}
+
+	/**
+	 * Takes the given body out of the simulation
+	 *
+	 * @param index	The index of the body
+	 */
+	private void sleep(int index) {
+		bodies.get(index).setActive(false);
+		simulated.set(index, false);
+		simulatedCount--;
+	}
+
+	/**
+	 * Puts the given body back into the simulation
+	 *
+	 * @param index	The index of the body
+	 */
+	private void wake(int index) {
+		Obstacle obj = bodies.get(index);
+		obj.setActive(true);
+		obj.setAwake(true);
+		simulated.set(index, true);
+		simulatedCount++;
+	}
+}
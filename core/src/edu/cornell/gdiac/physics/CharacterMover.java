@@ -0,0 +1,397 @@
+/*
+ * CharacterMover.java
+ *
+ * Ursa and the salmon only ever really collide with static scenery: wall tiles,
+ * trees, rocks, caves and houses.  Box2D handles that with a contact (and a
+ * manifold, and a solver island) for every character and every static fixture it
+ * touches, all behind JNI.  This class resolves those collisions in plain Java
+ * instead.  Every static triangle is reduced to its bounding box and filed in a
+ * uniform grid, and after each physics step the displacement of each character is
+ * swept against those boxes one axis at a time.  A blocked axis loses its velocity
+ * and the other axis keeps going, so characters slide along walls.
+ *
+ * Characters keep their Box2D bodies, since those bodies still push the ice, touch
+ * the goal sensor, and are the targets of the enemy raycasts.  While the mover is
+ * enabled, those bodies simply stop colliding with scenery.
+ *
+ * Based on the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Filter;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ShortArray;
+import edu.cornell.gdiac.physics.obstacle.Obstacle;
+import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
+
+/**
+ * Kinematic collision resolution for characters against static scenery.
+ *
+ * Add the scenery with {@link #addScenery} and the characters with
+ * {@link #addCharacter}.  Each frame, call {@link #beginStep} before the world
+ * steps and {@link #endStep} after it.  Neither allocates.
+ */
+public class CharacterMover {
+	/** The default width and height of a grid cell in physics units */
+	private static final float DEFAULT_CELL_SIZE = 4f;
+	/** The gap left between a character and the box that stopped it */
+	private static final float SKIN = 0.001f;
+
+	/** The width and height of a grid cell in physics units */
+	private final float cellSize;
+	/** The scenery boxes (minX, minY, maxX, maxY) */
+	private final FloatArray boxes = new FloatArray();
+	/** The last query that tested each box (to skip duplicates across cells) */
+	private final IntArray marks = new IntArray();
+	/** The box indices in each grid cell, keyed by packed cell coordinates */
+	private final IntMap<IntArray> cells = new IntMap<>();
+	/** The id of the query in progress */
+	private int query;
+
+	/** The characters moved by this class */
+	private final Array<Obstacle> characters = new Array<>();
+	/** Half the width and height of each character (interleaved) */
+	private final FloatArray extents = new FloatArray();
+	/** The collision mask each character had before the mover took over */
+	private final ShortArray masks = new ShortArray();
+	/** The position of each character before the step (interleaved) */
+	private final FloatArray starts = new FloatArray();
+
+	/** Whether the mover resolves character collisions */
+	private boolean enabled;
+
+	/**
+	 * Creates an empty (disabled) mover with the default cell size
+	 */
+	public CharacterMover() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Creates an empty (disabled) mover with the given cell size
+	 *
+	 * @param cellSize	The width and height of a grid cell in physics units
+	 */
+	public CharacterMover(float cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Returns true if the mover resolves character collisions
+	 *
+	 * @return true if the mover resolves character collisions
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether the mover resolves character collisions
+	 *
+	 * While it is enabled, the characters do not collide with scenery in Box2D.
+	 *
+	 * @param value	whether the mover resolves character collisions
+	 */
+	public void setEnabled(boolean value) {
+		if (enabled == value) {
+			return;
+		}
+		enabled = value;
+		for (int ii = 0; ii < characters.size; ii++) {
+			applyMask(ii);
+		}
+	}
+
+	/**
+	 * Forgets all scenery and characters.
+	 *
+	 * The characters are not given back their scenery collisions, so only call this
+	 * when the objects are being thrown away.
+	 */
+	public void clear() {
+		boxes.clear();
+		marks.clear();
+		cells.clear();
+		characters.clear();
+		extents.clear();
+		masks.clear();
+		starts.clear();
+	}
+
+	/**
+	 * Adds the triangles of a static obstacle as blocking boxes.
+	 *
+	 * Sensors and non-static obstacles are ignored.  The obstacle must not move.
+	 *
+	 * @param obj	The obstacle to add
+	 */
+	public void addScenery(PolygonObstacle obj) {
+		if (obj.isSensor() || obj.getBodyType() != BodyDef.BodyType.StaticBody) {
+			return;
+		}
+		float x = obj.getX();
+		float y = obj.getY();
+		float[] tris = obj.getPoints();
+		for (int ii = 0; ii + 5 < tris.length; ii += 6) {
+			float minX = Math.min(tris[ii], Math.min(tris[ii+2], tris[ii+4])) + x;
+			float minY = Math.min(tris[ii+1], Math.min(tris[ii+3], tris[ii+5])) + y;
+			float maxX = Math.max(tris[ii], Math.max(tris[ii+2], tris[ii+4])) + x;
+			float maxY = Math.max(tris[ii+1], Math.max(tris[ii+3], tris[ii+5])) + y;
+			addBox(minX, minY, maxX, maxY);
+		}
+	}
+
+	/**
+	 * Adds a character to be moved.
+	 *
+	 * The character is treated as an axis-aligned box centered on its position.
+	 *
+	 * @param obj		The character
+	 * @param width		The width of the character box
+	 * @param height	The height of the character box
+	 */
+	public void addCharacter(Obstacle obj, float width, float height) {
+		characters.add(obj);
+		extents.add(width / 2, height / 2);
+		masks.add(obj.getFilterData().maskBits);
+		starts.add(obj.getX(), obj.getY());
+		if (enabled) {
+			applyMask(characters.size - 1);
+		}
+	}
+
+	/**
+	 * Records where every character is before the world steps
+	 */
+	public void beginStep() {
+		if (!enabled) {
+			return;
+		}
+		float[] start = starts.items;
+		for (int ii = 0; ii < characters.size; ii++) {
+			Obstacle obj = characters.get(ii);
+			start[2*ii  ] = obj.getX();
+			start[2*ii+1] = obj.getY();
+		}
+	}
+
+	/**
+	 * Sweeps every character from where it was to where the world step put it.
+	 *
+	 * The x-axis is resolved first, then the y-axis from the resolved x.  If an axis
+	 * is blocked, the character stops just short of the box and loses its velocity
+	 * along that axis.
+	 */
+	public void endStep() {
+		if (!enabled) {
+			return;
+		}
+		float[] start = starts.items;
+		float[] extent = extents.items;
+		for (int ii = 0; ii < characters.size; ii++) {
+			Obstacle obj = characters.get(ii);
+			float x0 = start[2*ii];
+			float y0 = start[2*ii+1];
+			float x1 = obj.getX();
+			float y1 = obj.getY();
+			if (x0 == x1 && y0 == y1) {
+				continue;
+			}
+
+			float hw = extent[2*ii];
+			float hh = extent[2*ii+1];
+			float x = sweepX(x0, y0, x1 - x0, hw, hh);
+			float y = sweepY(x, y0, y1 - y0, hw, hh);
+			if (x != x1 || y != y1) {
+				obj.setPosition(x, y);
+				if (x != x1) {
+					obj.setVX(0);
+				}
+				if (y != y1) {
+					obj.setVY(0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns how far a box can move along the x-axis
+	 *
+	 * Boxes the character already overlaps are ignored, so a character can always
+	 * walk out of scenery it somehow ended up in.
+	 *
+	 * @param x		The x-coordinate of the character center
+	 * @param y		The y-coordinate of the character center
+	 * @param dx	The desired displacement
+	 * @param hw	Half the character width
+	 * @param hh	Half the character height
+	 *
+	 * @return the x-coordinate the character can reach
+	 */
+	private float sweepX(float x, float y, float dx, float hw, float hh) {
+		if (dx == 0) {
+			return x;
+		}
+		float target = x + dx;
+		float minX = Math.min(x, target) - hw;
+		float maxX = Math.max(x, target) + hw;
+		float minY = y - hh;
+		float maxY = y + hh;
+
+		query++;
+		float[] box = boxes.items;
+		int[] mark = marks.items;
+		int cx0 = cell(minX), cx1 = cell(maxX);
+		int cy0 = cell(minY), cy1 = cell(maxY);
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				IntArray bucket = cells.get(key(cx, cy));
+				if (bucket == null) {
+					continue;
+				}
+				for (int jj = 0; jj < bucket.size; jj++) {
+					int b = bucket.get(jj);
+					if (mark[b] == query) {
+						continue;
+					}
+					mark[b] = query;
+					float bMinX = box[4*b], bMinY = box[4*b+1];
+					float bMaxX = box[4*b+2], bMaxY = box[4*b+3];
+					if (bMinY >= maxY || bMaxY <= minY) {
+						continue;
+					}
+					if (dx > 0 && bMinX >= x + hw - SKIN) {
+						target = Math.min(target, bMinX - hw - SKIN);
+					} else if (dx < 0 && bMaxX <= x - hw + SKIN) {
+						target = Math.max(target, bMaxX + hw + SKIN);
+					}
+				}
+			}
+		}
+		// Never push the character backwards
+		return dx > 0 ? Math.max(target, x) : Math.min(target, x);
+	}
+
+	/**
+	 * Returns how far a box can move along the y-axis
+	 *
+	 * Boxes the character already overlaps are ignored, so a character can always
+	 * walk out of scenery it somehow ended up in.
+	 *
+	 * @param x		The x-coordinate of the character center
+	 * @param y		The y-coordinate of the character center
+	 * @param dy	The desired displacement
+	 * @param hw	Half the character width
+	 * @param hh	Half the character height
+	 *
+	 * @return the y-coordinate the character can reach
+	 */
+	private float sweepY(float x, float y, float dy, float hw, float hh) {
+		if (dy == 0) {
+			return y;
+		}
+		float target = y + dy;
+		float minX = x - hw;
+		float maxX = x + hw;
+		float minY = Math.min(y, target) - hh;
+		float maxY = Math.max(y, target) + hh;
+
+		query++;
+		float[] box = boxes.items;
+		int[] mark = marks.items;
+		int cx0 = cell(minX), cx1 = cell(maxX);
+		int cy0 = cell(minY), cy1 = cell(maxY);
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				IntArray bucket = cells.get(key(cx, cy));
+				if (bucket == null) {
+					continue;
+				}
+				for (int jj = 0; jj < bucket.size; jj++) {
+					int b = bucket.get(jj);
+					if (mark[b] == query) {
+						continue;
+					}
+					mark[b] = query;
+					float bMinX = box[4*b], bMinY = box[4*b+1];
+					float bMaxX = box[4*b+2], bMaxY = box[4*b+3];
+					if (bMinX >= maxX || bMaxX <= minX) {
+						continue;
+					}
+					if (dy > 0 && bMinY >= y + hh - SKIN) {
+						target = Math.min(target, bMinY - hh - SKIN);
+					} else if (dy < 0 && bMaxY <= y - hh + SKIN) {
+						target = Math.max(target, bMaxY + hh + SKIN);
+					}
+				}
+			}
+		}
+		// Never push the character backwards
+		return dy > 0 ? Math.max(target, y) : Math.min(target, y);
+	}
+
+	/**
+	 * Files a scenery box in every grid cell it touches
+	 *
+	 * @param minX	The left edge of the box
+	 * @param minY	The bottom edge of the box
+	 * @param maxX	The right edge of the box
+	 * @param maxY	The top edge of the box
+	 */
+	private void addBox(float minX, float minY, float maxX, float maxY) {
+		int index = boxes.size / 4;
+		boxes.add(minX, minY, maxX, maxY);
+		marks.add(0);
+		for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+			for (int cy = cell(minY); cy <= cell(maxY); cy++) {
+				int key = key(cx, cy);
+				IntArray bucket = cells.get(key);
+				if (bucket == null) {
+					bucket = new IntArray(4);
+					cells.put(key, bucket);
+				}
+				bucket.add(index);
+			}
+		}
+	}
+
+	/**
+	 * Removes scenery from (or restores it to) the collision mask of a character
+	 *
+	 * @param index	The index of the character
+	 */
+	private void applyMask(int index) {
+		Obstacle obj = characters.get(index);
+		Filter filter = obj.getFilterData();
+		short mask = masks.get(index);
+		filter.maskBits = enabled ? (short)(mask & ~CollisionCategory.SCENERY.bits) : mask;
+		obj.setFilterData(filter);
+	}
+
+	/**
+	 * Returns the grid cell containing the given coordinate
+	 *
+	 * @param value A coordinate in physics units
+	 *
+	 * @return the grid cell containing the given coordinate
+	 */
+	private int cell(float value) {
+		return (int)Math.floor(value / cellSize);
+	}
+
+	/**
+	 * Returns the map key for the given grid cell
+	 *
+	 * @param cx The cell column
+	 * @param cy The cell row
+	 *
+	 * @return the map key for the given grid cell
+	 */
+	private static int key(int cx, int cy) {
+		return (cx << 16) ^ (cy & 0xFFFF);
+	}
+}
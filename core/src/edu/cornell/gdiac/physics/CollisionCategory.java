@@ -0,0 +1,110 @@
+/*
+ * CollisionCategory.java
+ *
+ * Every obstacle in a level belongs to exactly one of these categories.  The
+ * category decides two things.  First, the Box2D filter: a pair of fixtures whose
+ * masks do not include each other never generates a contact at all, so pairs that
+ * the game does not care about (an enemy brushing past smol ursa) never reach the
+ * contact listener.  Second, the contact listener uses the category bits of the two
+ * bodies to decide what a contact means, instead of comparing object names.
+ *
+ * Based on the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Filter;
+import edu.cornell.gdiac.physics.obstacle.Obstacle;
+
+/**
+ * The collision categories of the obstacles in a level.
+ *
+ * Apply a category to an obstacle with {@link #apply(Obstacle)} before the obstacle
+ * is added to the world.
+ */
+public enum CollisionCategory {
+    /** Ursa */
+    PLAYER(0x0001),
+    /** Patrolling enemies */
+    ENEMY(0x0002),
+    /** Walls, trees, caves and other static objects */
+    SCENERY(0x0004),
+    /** Smol ursa (a sensor that ends the level) */
+    GOAL(0x0008),
+    /** Moveable ice blocks */
+    ICE(0x0010);
+
+    static {
+        PLAYER.collidesWith(ENEMY, SCENERY, GOAL, ICE);
+        ENEMY.collidesWith(PLAYER, ENEMY, SCENERY, ICE);
+        SCENERY.collidesWith(PLAYER, ENEMY, ICE);
+        GOAL.collidesWith(PLAYER);
+        ICE.collidesWith(PLAYER, ENEMY, SCENERY, ICE);
+    }
+
+    /** Contact pair: Ursa reached smol ursa */
+    public static final int PLAYER_GOAL = PLAYER.bits | GOAL.bits;
+    /** Contact pair: an enemy ran into an ice block */
+    public static final int ENEMY_ICE = ENEMY.bits | ICE.bits;
+
+    /** The category bit */
+    public final short bits;
+    /** The filter for this category (shared; obstacles copy it) */
+    private final Filter filter;
+
+    /**
+     * Creates a category with the given bit
+     *
+     * @param bits  The category bit
+     */
+    CollisionCategory(int bits) {
+        this.bits = (short)bits;
+        filter = new Filter();
+        filter.categoryBits = this.bits;
+        filter.maskBits = 0;
+    }
+
+    /**
+     * Adds the given categories to the mask of this category
+     *
+     * @param others    The categories this category should collide with
+     */
+    private void collidesWith(CollisionCategory... others) {
+        for (CollisionCategory other : others) {
+            filter.maskBits |= other.bits;
+        }
+    }
+
+    /**
+     * Returns the bits of the categories this category collides with
+     *
+     * @return the bits of the categories this category collides with
+     */
+    public short getMask() {
+        return filter.maskBits;
+    }
+
+    /**
+     * Assigns this category (and its mask) to the given obstacle
+     *
+     * @param obstacle  The obstacle to categorize
+     */
+    public void apply(Obstacle obstacle) {
+        obstacle.setFilterData(filter);
+    }
+
+    /**
+     * Returns the category bits of the obstacle attached to a body
+     *
+     * This reads the filter cached by the obstacle, so it does not go through JNI.
+     * It returns 0 if the body has no obstacle.
+     *
+     * @param body  The body to check
+     *
+     * @return the category bits of the obstacle attached to a body
+     */
+    public static int of(Body body) {
+        Object data = body.getUserData();
+        return data instanceof Obstacle ? ((Obstacle)data).getFilterData().categoryBits : 0;
+    }
+}
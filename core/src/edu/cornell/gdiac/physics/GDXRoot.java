@@ -16,6 +16,7 @@ package edu.cornell.gdiac.physics;
 import com.badlogic.gdx.*;
 import edu.cornell.gdiac.util.*;
 import edu.cornell.gdiac.assets.*;
+import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
 import java.awt.EventQueue;
 import java.awt.Frame;
 
@@ -29,11 +30,23 @@ import java.awt.Frame;
  * and you would draw it as a root class in an architecture specification.  
  */
 public class GDXRoot extends Game implements ScreenListener {
+	/** The save file, in the user's home directory */
+	private static final String SAVE_FILE = ".ursa/saveData.json";
+	/** The milliseconds per frame given to textures prefetched for the next screen */
+	private static final int PREFETCH_BUDGET = 4;
+	/** The system property naming the file to write the asset loading profile to */
+	private static final String PROFILE_PROPERTY = "ursa.profile";
+
 	/** AssetManager to load game assets (textures, sounds, etc.) */
 	AssetDirectory directory;
+	/** The asset groups held for the current screen (besides the core group) */
+	private String[] heldGroups = new String[0];
 	/** Drawing context to display graphics (VIEW CLASS) */
 	private GameCanvas canvas;
+	/** The progress saved by older versions (read once, to carry it over) */
 	private Preferences prefs;
+	/** The player progress (loaded and written on a background thread) */
+	private SaveData saveData;
 	private float levelsCompleted;
 	private float camX;
 	private float camY;
@@ -66,9 +79,16 @@ public class GDXRoot extends Game implements ScreenListener {
 	 */
 	public void create() {
 		prefs = Gdx.app.getPreferences("Completed Data");
+		saveData = new SaveData(Gdx.files.external(SAVE_FILE));
+		saveData.start();
 		levelsCompleted = 20;
 		canvas  = new GameCanvas();
-		loading = new LoadingMode("assets.json",canvas,1);
+		loading = new LoadingMode("assets.json",canvas,1,AssetDirectory.CORE_GROUP,"home");
+		// Run with -Dursa.profile=<file> to dump the asset loading profile as JSON
+		String profile = System.getProperty(PROFILE_PROPERTY);
+		if (profile != null && !profile.isEmpty()) {
+			loading.setProfileFile(Gdx.files.local(profile));
+		}
 
 		camX = canvas.getCameraX();
 		camY = canvas.getCameraY();
@@ -91,16 +111,30 @@ public class GDXRoot extends Game implements ScreenListener {
 		controllers[13] = new SceneModel("rigel_level_hard_1_Ver_Z.json");
 		controllers[14] = new SceneModel("yusuf_level_Ver_Z.json");
 
-
-		for(int i = 0; i < prefs.getFloat("completed");i++){
-			controllers[i].setWasCompleted(true);
-		}
-
 		current = 0;
 		loading.setScreenListener(this);
 		setScreen(loading);
 	}
 
+	/**
+	 * Marks the levels completed in the save data.
+	 *
+	 * The save data loads while the loading screen is up, so this does not wait.
+	 */
+	private void applySaveData() {
+		// Carry over the progress saved by older versions
+		int legacy = (int)prefs.getFloat("completed");
+		if (legacy > saveData.getLevelsCompleted()) {
+			saveData.setLevelsCompleted(legacy);
+		}
+		int completed = Math.min(saveData.getLevelsCompleted(), controllers.length);
+		for(int i = 0; i < completed; i++){
+			if (controllers[i] != null) {
+				controllers[i].setWasCompleted(true);
+			}
+		}
+	}
+
 	private void shutdownApplication() {
 		// Ensure all AWT components are disposed of
 		EventQueue.invokeLater(() -> {
@@ -156,15 +190,62 @@ public class GDXRoot extends Game implements ScreenListener {
 		}
 		canvas = null;
 
+		// Release the shared particle effects
+		ParticleService.get().dispose();
+
+		// Release the Box2D shapes shared by identical polygons
+		PolygonObstacle.clearShapeCache();
+
+		// Write out any progress not yet saved
+		if (saveData != null) {
+			saveData.dispose();
+		}
+
 		// Unload all of the resources
 		if (directory != null) {
 			directory.unloadAssets();
 			directory.dispose();
 			directory = null;
 		}
+
+		// Stop the loading threads (after the assets, which may cancel work on them)
+		WorkerPool.get().dispose();
 		super.dispose();
 	}
 
+	/**
+	 * Swaps the asset groups held for the current screen.
+	 *
+	 * The new groups are loaded before the old ones are released, so that the assets
+	 * both screens use are never unloaded in between.  This method blocks until the
+	 * new groups have finished loading.
+	 *
+	 * @param groups	The asset groups the next screen needs
+	 */
+	private void holdGroups(String... groups) {
+		for (String group : groups) {
+			directory.acquireGroup(group);
+		}
+		directory.finishLoading();
+		for (String group : heldGroups) {
+			directory.releaseGroup(group);
+		}
+		heldGroups = groups;
+	}
+
+	/**
+	 * Called when the Application should render itself.
+	 *
+	 * Textures prefetched for the next screen are loaded a little each frame, so
+	 * that they are (mostly) ready by the time that screen is shown.
+	 */
+	public void render() {
+		if (directory != null && !directory.isFinished()) {
+			directory.update(PREFETCH_BUDGET);
+		}
+		super.render();
+	}
+
 	/**
 	 * Called when the Application is resized.
 	 *
@@ -197,7 +278,10 @@ public class GDXRoot extends Game implements ScreenListener {
 				return;
 			}
 			directory = loading.getAssets();
+			heldGroups = new String[] { "home" };
+			applySaveData();
 			if(debug) {
+				holdGroups("levelSelect");
 				levelSelector = new LevelSelector(canvas,levelsCompleted, 0);
 				levelSelector.gatherAssets(directory);
 				levelSelector.setScreenListener(this);
@@ -223,6 +307,7 @@ public class GDXRoot extends Game implements ScreenListener {
 				shutdownApplication();
 				Gdx.app.exit();
 			} else if(exitCode == 30) {
+				holdGroups("levelSelect");
 				levelSelector = new LevelSelector(canvas,levelsCompleted, 0);
 				levelSelector.gatherAssets(directory);
 				levelSelector.setScreenListener(this);
@@ -234,6 +319,7 @@ public class GDXRoot extends Game implements ScreenListener {
 			}
 		} else if (screen == levelSelector) {
 			if(exitCode == 111) {
+				holdGroups("home");
 				homeScreen = new HomeScreen(canvas, false);
 				homeScreen.gatherAssets(directory);
 				homeScreen.setScreenListener(this);
@@ -251,6 +337,7 @@ public class GDXRoot extends Game implements ScreenListener {
 				}
 				current = i - 1;
 
+				holdGroups("level");
 				controllers[current].gatherAssets(directory);
 				controllers[current].setScreenListener(this);
 				controllers[current].setCanvas(canvas);
@@ -265,7 +352,8 @@ public class GDXRoot extends Game implements ScreenListener {
 			}
 		} else if(screen == retryMenu) {
 			if (exitCode == 1) {
-				// Go back into the level
+				// Go back into the level (its assets were held by the retry menu)
+				holdGroups("level");
 				controllers[current].setScreenListener(this);
 				controllers[current].setCanvas(canvas);
 				controllers[current].reset();
@@ -273,6 +361,7 @@ public class GDXRoot extends Game implements ScreenListener {
 				controllers[current].active = true;
 			} else if (exitCode == 2) {
 				// Go to the level selector
+				holdGroups("levelSelect");
 				levelSelector = new LevelSelector(canvas, levelsCompleted, current);
 				current = -1;
 				levelSelector.gatherAssets(directory);
@@ -283,6 +372,7 @@ public class GDXRoot extends Game implements ScreenListener {
 			else if(exitCode == 3){
 				current = Math.min(current + 1, 14);
 
+				holdGroups("level");
 				controllers[current].gatherAssets(directory);
 				controllers[current].setScreenListener(this);
 				controllers[current].setCanvas(canvas);
@@ -301,30 +391,43 @@ public class GDXRoot extends Game implements ScreenListener {
 			if(!controllers[current].wasCompleted()){
 				levelsCompleted += 1;
 				controllers[current].setWasCompleted(true);
-				prefs.putFloat("completed", prefs.getFloat("completed")+1);
-				prefs.flush();
+				saveData.setLevelsCompleted(saveData.getLevelsCompleted()+1);
+			}
+			// This only updates memory; the save data is written in the background
+			if (controllers[current] instanceof SceneModel) {
+				SceneModel level = (SceneModel)controllers[current];
+				saveData.recordCompletion(level.getLevelName(), level.getLevelTime(), level.getDetections());
 			}
 			// Create the retry menu where we've won
 			controllers[current].setWasCompleted(true);
+			holdGroups("level", "retry");
 			retryMenu = new RetryMenu(canvas,true);
 			retryMenu.gatherAssets(directory);
 			retryMenu.setScreenListener(this);
 			setScreen(retryMenu);
 			retryMenu.setActive(true);
+			directory.prefetchGroup("levelSelect");
 			controllers[0].setScreenListener(null);
 			canvas.setCam(camX,camY);
 			controllers[current].active = false;
 		} else if (exitCode == WorldController.LEVEL_FAILED) {
 			// Create the retry menu where we've lost
+			holdGroups("level", "retry");
 			retryMenu = new RetryMenu(canvas,false);
 			retryMenu.gatherAssets(directory);
 			retryMenu.setScreenListener(this);
 			retryMenu.setActive(true);
 			setScreen(retryMenu);
+			directory.prefetchGroup("levelSelect");
 			controllers[0].setScreenListener(null);
 			canvas.setCam(camX,camY);
 			controllers[current].active = false;
 		} else if (exitCode == WorldController.EXIT_QUIT) {
+			// The level tracks are unloaded with the level, so stop mixing them first
+			if (controllers[current] instanceof SceneModel) {
+				((SceneModel)controllers[current]).stopMusic();
+			}
+			holdGroups("levelSelect");
 			levelSelector = new LevelSelector(canvas,levelsCompleted, current);
 			canvas.setCam(camX,camY);
 			levelSelector.gatherAssets(directory);
@@ -91,6 +91,43 @@ public class GameCanvas {
 	/** Cache object to handle raw textures */
 	private TextureRegion holder;
 
+	// RENDER STATISTICS
+	/** The per-frame rendering counters (with history) */
+	private RenderStats stats;
+	/** The last texture submitted to the sprite batch (to detect switches) */
+	private Texture lastTexture;
+	/** The application frame id of the frame in progress (-1 if none) */
+	private long statsFrame;
+	/** Whether to draw the statistics overlay */
+	private boolean statsOverlay;
+	/** The font for the statistics overlay (created on demand) */
+	private BitmapFont statsFont;
+	/** Text buffer for the statistics overlay */
+	private StringBuilder statsText;
+
+	/** Cached layouts for drawText and drawTextCentered */
+	private TextCache textCache;
+	/** How often (in frames) to drop unused text layouts */
+	private static final int TEXT_PRUNE_PERIOD = 60;
+
+	// DYNAMIC RESOLUTION
+	/** The governor choosing the world resolution */
+	private ResolutionGovernor governor;
+	/** Whether the world is drawn at a governed resolution */
+	private boolean dynamicResolution;
+	/** The offscreen target for the world (allocated at backbuffer size) */
+	private FrameBuffer worldBuffer;
+	/** The part of the offscreen target used this frame */
+	private TextureRegion worldRegion;
+	/** Whether the world pass in progress is drawing to the offscreen target */
+	private boolean worldScaled;
+
+	// FROZEN WORLD
+	/** Whether the world is frozen (its last frame is reused instead of redrawn) */
+	private boolean worldFrozen;
+	/** Whether the offscreen target holds the frame of the frozen world */
+	private boolean worldCaptured;
+
 	/**
 	 * Creates a new GameCanvas determined by the application configuration.
 	 * 
@@ -114,6 +151,14 @@ public class GameCanvas {
 		local  = new Affine2();
 		global = new Matrix4();
 		vertex = new Vector2();
+
+		stats = new RenderStats();
+		statsText = new StringBuilder();
+		statsFrame = -1;
+
+		textCache = new TextCache();
+		governor = new ResolutionGovernor();
+		worldRegion = new TextureRegion();
 	}
 		
     /**
@@ -125,6 +170,15 @@ public class GameCanvas {
 			return;
 		}
 		spriteBatch.dispose();
+		textCache.clear();
+		if (statsFont != null) {
+			statsFont.dispose();
+			statsFont = null;
+		}
+		if (worldBuffer != null) {
+			worldBuffer.dispose();
+			worldBuffer = null;
+		}
     	spriteBatch = null;
     	local  = null;
     	global = null;
@@ -346,6 +400,8 @@ public class GameCanvas {
 			break;
 		}
 		blend = state;
+		checkFrame();
+		stats.record(RenderStats.Counter.BLEND_CHANGES, 1);
 	}
 	
 	/**
@@ -369,6 +425,7 @@ public class GameCanvas {
     	global.mulLeft(camera.combined);
 		spriteBatch.setProjectionMatrix(global);
 		
+		checkFrame();
 		setBlendState(BlendState.NO_PREMULT);
 		spriteBatch.begin();
     	active = DrawPass.STANDARD;
@@ -388,6 +445,7 @@ public class GameCanvas {
     	global.mulLeft(camera.combined);
 		spriteBatch.setProjectionMatrix(global);
 		
+		checkFrame();
     	spriteBatch.begin();
     	active = DrawPass.STANDARD;
     }
@@ -399,6 +457,7 @@ public class GameCanvas {
 	 */
     public void begin() {
 		spriteBatch.setProjectionMatrix(camera.combined);
+		checkFrame();
     	spriteBatch.begin();
     	active = DrawPass.STANDARD;
     }
@@ -408,6 +467,7 @@ public class GameCanvas {
 	 */
     public void end() {
     	spriteBatch.end();
+		stats.record(RenderStats.Counter.RENDER_CALLS, spriteBatch.renderCalls);
     	active = DrawPass.INACTIVE;
     }
 
@@ -434,6 +494,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(Color.WHITE);
+		track(image);
 		spriteBatch.draw(image, x,  y);
 	}
 	
@@ -462,6 +523,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(tint);
+		track(image);
 		spriteBatch.draw(image, x,  y, width, height);
 	}
 	
@@ -591,6 +653,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(Color.WHITE);
+		track(region);
 		spriteBatch.draw(region, x,  y);
 	}
 
@@ -619,6 +682,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, x,  y, width, height);
 	}
 	
@@ -649,6 +713,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, x-ox, y-oy, width, height);
 	}
 
@@ -691,6 +756,7 @@ public class GameCanvas {
 		// For now, it is better to set the affine transform directly.
 		computeTransform(ox,oy,x,y,angle,sx,sy);
 		spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
 	}
 
@@ -722,6 +788,7 @@ public class GameCanvas {
 		local.set(affine);
 		local.translate(-ox,-oy);				
 		spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, region.getRegionWidth(), region.getRegionHeight(), local);
 	}
 
@@ -754,6 +821,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(Color.WHITE);
+		track(region);
 		spriteBatch.draw(region, x,  y);
 	}
 	
@@ -788,6 +856,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, x,  y, width, height);
 	}
 	
@@ -824,6 +893,7 @@ public class GameCanvas {
 		
 		// Unlike Lab 1, we can shortcut without a master drawing method
     	spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, x-ox, y-oy, width, height);
 	}
 	
@@ -862,6 +932,7 @@ public class GameCanvas {
 		
 		TextureRegion bounds = region.getRegion();
 		spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, x, y, ox, oy, 
 						 bounds.getRegionWidth(), bounds.getRegionHeight(), 
 						 sx, sy, 180.0f*angle/(float)Math.PI);
@@ -900,6 +971,7 @@ public class GameCanvas {
 		computeVertices(local,region.getVertices());
 
 		spriteBatch.setColor(tint);
+		track(region);
 		spriteBatch.draw(region, 0, 0);
 		
 		// Invert and restore
@@ -932,8 +1004,11 @@ public class GameCanvas {
 			Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
 			return;
 		}
-		GlyphLayout layout = new GlyphLayout(font,text);
-		font.draw(spriteBatch, layout, x, y);
+		checkFrame();
+		TextCache.Entry entry = textCache.get(font, text, statsFrame);
+		track(font, entry.layout);
+		entry.cache.setPosition(x, y);
+		entry.cache.draw(spriteBatch);
     }
 
     /**
@@ -949,11 +1024,26 @@ public class GameCanvas {
 			return;
 		}
 		
-		GlyphLayout layout = new GlyphLayout(font,text);
-		float x = (getWidth()  - layout.width) / 2.0f;
-		float y = (getHeight() + layout.height) / 2.0f;
-		font.draw(spriteBatch, layout, x, y+offset);
+		checkFrame();
+		TextCache.Entry entry = textCache.get(font, text, statsFrame);
+		float x = (getWidth()  - entry.layout.width) / 2.0f;
+		float y = (getHeight() + entry.layout.height) / 2.0f;
+		track(font, entry.layout);
+		entry.cache.setPosition(x, y+offset);
+		entry.cache.draw(spriteBatch);
     }
+
+	/**
+	 * Returns the cache of text layouts used by drawText and drawTextCentered.
+	 *
+	 * Layouts are rebuilt automatically when the font color or scale changes.  If a
+	 * font is disposed, it should be removed with {@link TextCache#invalidate}.
+	 *
+	 * @return the cache of text layouts
+	 */
+	public TextCache getTextCache() {
+		return textCache;
+	}
     
 	/**
 	 * Start the debug drawing sequence.
@@ -1173,6 +1263,376 @@ public class GameCanvas {
     	debugRender.ellipse(x0-w, y0-h, 2*w, 2*h, 12);
     }
     
+	/**
+	 * Returns the rendering statistics for this canvas.
+	 *
+	 * The statistics are closed out the first time the canvas is used on a new
+	 * animation frame, so the values reported by {@link RenderStats#get} are always
+	 * for the last complete frame (including every begin-end pair in that frame).
+	 *
+	 * @return the rendering statistics for this canvas.
+	 */
+	public RenderStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Returns true if the statistics overlay is visible.
+	 *
+	 * @return true if the statistics overlay is visible.
+	 */
+	public boolean isStatsOverlay() {
+		return statsOverlay;
+	}
+
+	/**
+	 * Sets whether the statistics overlay is visible.
+	 *
+	 * The overlay is only drawn by {@link #drawStats()}.  This flag is simply a
+	 * convenient place for the game modes to share the setting.
+	 *
+	 * @param value whether the statistics overlay is visible.
+	 */
+	public void setStatsOverlay(boolean value) {
+		statsOverlay = value;
+	}
+
+	/**
+	 * Binds the given frame buffer as the rendering target.
+	 *
+	 * Any sprites in the batch are flushed to the old target first.  Use this
+	 * instead of calling {@link FrameBuffer#begin()} directly so that the bind
+	 * shows up in the rendering statistics.
+	 *
+	 * @param buffer the frame buffer to draw to
+	 */
+	public void beginFrameBuffer(FrameBuffer buffer) {
+		if (active == DrawPass.STANDARD) {
+			spriteBatch.flush();
+		}
+		checkFrame();
+		buffer.begin();
+		stats.record(RenderStats.Counter.FBO_BINDS, 1);
+	}
+
+	/**
+	 * Restores the default rendering target after {@link #beginFrameBuffer}.
+	 *
+	 * Any sprites in the batch are flushed to the frame buffer first.
+	 *
+	 * @param buffer the frame buffer to unbind
+	 */
+	public void endFrameBuffer(FrameBuffer buffer) {
+		if (active == DrawPass.STANDARD) {
+			spriteBatch.flush();
+		}
+		buffer.end();
+	}
+
+	/**
+	 * Returns true if the world is drawn at a governed resolution.
+	 *
+	 * @return true if the world is drawn at a governed resolution.
+	 */
+	public boolean isDynamicResolution() {
+		return dynamicResolution;
+	}
+
+	/**
+	 * Sets whether the world is drawn at a governed resolution.
+	 *
+	 * When this is on, {@link #beginWorld()} redirects drawing to an offscreen target
+	 * whose size is chosen by the {@link ResolutionGovernor}, and {@link #endWorld()}
+	 * stretches it to the screen.  Turning it off releases the offscreen target.
+	 *
+	 * @param value whether the world is drawn at a governed resolution.
+	 */
+	public void setDynamicResolution(boolean value) {
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot change resolution while drawing active", new IllegalStateException());
+			return;
+		}
+		dynamicResolution = value;
+		governor.reset();
+		worldCaptured = false;
+		if (!value && worldBuffer != null) {
+			worldBuffer.dispose();
+			worldBuffer = null;
+		}
+	}
+
+	/**
+	 * Returns true if the world is frozen.
+	 *
+	 * @return true if the world is frozen.
+	 */
+	public boolean isWorldFrozen() {
+		return worldFrozen;
+	}
+
+	/**
+	 * Sets whether the world is frozen.
+	 *
+	 * When the world is frozen (such as under a pause menu), the next world pass is
+	 * captured to the offscreen target.  After that, {@link #hasWorldFrame()} is true
+	 * and the game mode should call {@link #drawWorldFrame()} instead of drawing the
+	 * world again.  Unfreezing throws the frame away.
+	 *
+	 * @param value whether the world is frozen.
+	 */
+	public void setWorldFrozen(boolean value) {
+		if (worldFrozen == value) {
+			return;
+		}
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot freeze the world while drawing active", new IllegalStateException());
+			return;
+		}
+		worldFrozen = value;
+		worldCaptured = false;
+		if (!value && !dynamicResolution && worldBuffer != null) {
+			worldBuffer.dispose();
+			worldBuffer = null;
+		}
+	}
+
+	/**
+	 * Returns true if the frame of the frozen world can be redrawn.
+	 *
+	 * @return true if the frame of the frozen world can be redrawn.
+	 */
+	public boolean hasWorldFrame() {
+		return worldFrozen && worldCaptured;
+	}
+
+	/**
+	 * Draws the frame of the frozen world in place of a world pass.
+	 *
+	 * This replaces the calls to {@link #beginWorld()} and {@link #endWorld()}, and
+	 * leaves the canvas in the same begin() state, so the UI can be drawn on top.
+	 */
+	public void drawWorldFrame() {
+		if (!hasWorldFrame()) {
+			Gdx.app.error("GameCanvas", "There is no frozen world to draw", new IllegalStateException());
+			return;
+		}
+		begin();
+		drawWorldRegion();
+	}
+
+	/**
+	 * Returns the governor choosing the world resolution
+	 *
+	 * @return the governor choosing the world resolution
+	 */
+	public ResolutionGovernor getResolutionGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Start drawing the world layers of a frame.
+	 *
+	 * This is begin() with the camera transform.  If dynamic resolution is on, the
+	 * sprites are drawn to an offscreen target at the governed scale instead of the
+	 * screen.  A frozen world is drawn to the offscreen target as well (at full scale
+	 * if the resolution is not governed), so that it can be kept.  Everything up to
+	 * {@link #endWorld()} is part of the world pass.
+	 */
+	public void beginWorld() {
+		worldScaled = false;
+		if (dynamicResolution || worldFrozen) {
+			if (dynamicResolution) {
+				governor.update(Gdx.graphics.getDeltaTime());
+			}
+
+			int width  = Gdx.graphics.getBackBufferWidth();
+			int height = Gdx.graphics.getBackBufferHeight();
+			if (worldBuffer == null || worldBuffer.getWidth() != width || worldBuffer.getHeight() != height) {
+				if (worldBuffer != null) {
+					worldBuffer.dispose();
+				}
+				worldBuffer = new FrameBuffer(Pixmap.Format.RGB888, width, height, false);
+				worldBuffer.getColorBufferTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+			}
+
+			// Only use the bottom left corner, so that scale changes never reallocate
+			float scale = dynamicResolution ? governor.getScale() : 1.0f;
+			int scaledWidth  = Math.max(1, Math.round(width*scale));
+			int scaledHeight = Math.max(1, Math.round(height*scale));
+			beginFrameBuffer(worldBuffer);
+			Gdx.gl.glViewport(0, 0, scaledWidth, scaledHeight);
+			clear();
+			worldRegion.setRegion(worldBuffer.getColorBufferTexture(), 0, 0, scaledWidth, scaledHeight);
+			worldRegion.flip(false, true);
+			worldScaled = true;
+		}
+		begin();
+	}
+
+	/**
+	 * Finish drawing the world layers of a frame.
+	 *
+	 * If the world was drawn offscreen, it is stretched over the screen.  Either way,
+	 * the canvas is left in a begin() state with the camera transform, so that the
+	 * UI can be drawn on top at native resolution.
+	 */
+	public void endWorld() {
+		if (!worldScaled) {
+			return;
+		}
+		end();
+		endFrameBuffer(worldBuffer);
+		worldScaled = false;
+		worldCaptured = worldFrozen;
+
+		begin();
+		drawWorldRegion();
+	}
+
+	/**
+	 * Stretches the offscreen world over the screen.
+	 */
+	private void drawWorldRegion() {
+		BlendState previous = blend;
+		setBlendState(BlendState.OPAQUE);
+		draw(worldRegion, Color.WHITE, 0, 0, camera.position.x-getWidth()/2.0f, camera.position.y-getHeight()/2.0f, getWidth(), getHeight());
+		if (previous != null) {
+			setBlendState(previous);
+		}
+	}
+
+	/**
+	 * Draws the statistics overlay in the top left corner of the screen.
+	 *
+	 * This method does nothing if the overlay is not visible.  It must be called
+	 * outside of a begin-end pair, and it is drawn in screen coordinates regardless
+	 * of the camera.  The overlay itself is not counted in the statistics.
+	 */
+	public void drawStats() {
+		if (!statsOverlay) {
+			return;
+		}
+		if (active != DrawPass.INACTIVE) {
+			Gdx.app.error("GameCanvas", "Cannot draw overlay while drawing active", new IllegalStateException());
+			return;
+		}
+		if (statsFont == null) {
+			statsFont = new BitmapFont();
+		}
+
+		statsText.setLength(0);
+		appendStat("draw calls ", RenderStats.Counter.RENDER_CALLS);
+		appendStat("tex switch ", RenderStats.Counter.TEXTURE_SWITCHES);
+		appendStat("sprites    ", RenderStats.Counter.SPRITES);
+		appendStat("vertices   ", RenderStats.Counter.VERTICES);
+		appendStat("blends     ", RenderStats.Counter.BLEND_CHANGES);
+		appendStat("fbo binds  ", RenderStats.Counter.FBO_BINDS);
+		statsText.append("max batch  ").append(spriteBatch.maxSpritesInBatch).append('\n');
+		statsText.append("fps        ").append(Gdx.graphics.getFramesPerSecond());
+		if (dynamicResolution) {
+			statsText.append('\n').append("res scale  ").append(Math.round(governor.getScale()*100)).append('%');
+		}
+
+		global.setToOrtho2D(0, 0, getWidth(), getHeight());
+		spriteBatch.setProjectionMatrix(global);
+		spriteBatch.begin();
+		statsFont.setColor(Color.YELLOW);
+		statsFont.draw(spriteBatch, statsText, 8, getHeight()-8);
+		spriteBatch.end();
+	}
+
+	/**
+	 * Appends a line of the statistics overlay for the given counter.
+	 *
+	 * The line shows the last frame, the average and the peak over the history.
+	 *
+	 * @param label		The counter label
+	 * @param counter	The counter to display
+	 */
+	private void appendStat(String label, RenderStats.Counter counter) {
+		statsText.append(label).append(stats.get(counter));
+		statsText.append("  avg ").append(Math.round(stats.getAverage(counter)));
+		statsText.append("  max ").append(stats.getPeak(counter)).append('\n');
+	}
+
+	/**
+	 * Closes out the statistics if this is the first use on a new animation frame.
+	 */
+	private void checkFrame() {
+		long frame = Gdx.graphics.getFrameId();
+		if (frame != statsFrame) {
+			if (statsFrame >= 0) {
+				stats.endFrame();
+			}
+			statsFrame = frame;
+			lastTexture = null;
+			if (frame % TEXT_PRUNE_PERIOD == 0) {
+				textCache.prune(frame);
+			}
+		}
+	}
+
+	/**
+	 * Records a submission with the given texture and number of vertices.
+	 *
+	 * @param texture	The texture submitted
+	 * @param vertices	The number of vertices submitted
+	 */
+	private void track(Texture texture, int vertices) {
+		if (texture != lastTexture) {
+			if (lastTexture != null) {
+				stats.record(RenderStats.Counter.TEXTURE_SWITCHES, 1);
+			}
+			lastTexture = texture;
+		}
+		stats.recordSprite(vertices);
+	}
+
+	/**
+	 * Records the submission of a texture quad.
+	 *
+	 * @param image	The texture submitted
+	 */
+	private void track(Texture image) {
+		track(image, 4);
+	}
+
+	/**
+	 * Records the submission of a texture region quad.
+	 *
+	 * @param region	The texture region submitted
+	 */
+	private void track(TextureRegion region) {
+		track(region.getTexture(), 4);
+	}
+
+	/**
+	 * Records the submission of a textured polygon.
+	 *
+	 * @param region	The polygon region submitted
+	 */
+	private void track(PolygonRegion region) {
+		track(region.getRegion().getTexture(), region.getVertices().length/2);
+	}
+
+	/**
+	 * Records the submission of a block of text (one quad per glyph).
+	 *
+	 * @param font		The font used
+	 * @param layout	The text layout
+	 */
+	private void track(BitmapFont font, GlyphLayout layout) {
+		int glyphs = 0;
+		for(int ii = 0; ii < layout.runs.size; ii++) {
+			glyphs += layout.runs.get(ii).glyphs.size;
+		}
+		Texture texture = font.getRegion().getTexture();
+		track(texture, 4*glyphs);
+		if (glyphs > 1) {
+			stats.record(RenderStats.Counter.SPRITES, glyphs-1);
+		}
+	}
+
 	/**
 	 * Compute the affine transform (and store it in local) for this image.
 	 * 
@@ -12,16 +12,16 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import edu.cornell.gdiac.assets.AssetDirectory;
-import edu.cornell.gdiac.util.FilmStrip;
+import edu.cornell.gdiac.util.StreamingFilmStrip;
 import edu.cornell.gdiac.util.ScreenListener;
 
 public class HomeScreen implements Screen, InputProcessor, ControllerListener {
     private TextureRegion homeScreenTexture;
-    private FilmStrip homeScreenV1Film;
-    private FilmStrip homeScreenV2Film;
+    private StreamingFilmStrip homeScreenV1Film;
+    private StreamingFilmStrip homeScreenV2Film;
     private TextureRegion logoTexture;
-    private FilmStrip logoV1Film;
-    private FilmStrip logoV2Film;
+    private StreamingFilmStrip logoV1Film;
+    private StreamingFilmStrip logoV2Film;
     private TextureRegion homeScreen;
     private TextureRegion startButton;
     private TextureRegion startButtonClicked;
@@ -74,19 +74,16 @@ public class HomeScreen implements Screen, InputProcessor, ControllerListener {
     public void gatherAssets(AssetDirectory directory) {
         homeMusic = directory.getEntry("soundtracks:home_track", Music.class);
 
-        TextureRegion homeScreenV1Animation = new TextureRegion(directory.getEntry("homeScreen:animationV1", Texture.class));
-        homeScreenV1Film = new FilmStrip(homeScreenV1Animation.getTexture(), 2, 8);
+        // These sheets are too large to keep on the GPU, so they are decoded as they play
+        homeScreenV1Film = directory.getEntry("homeScreen:animationV1", StreamingFilmStrip.class);
         homeScreenV1Film.setFrame(0);
-        TextureRegion homeScreenV2Animation = new TextureRegion(directory.getEntry("homeScreen:animationV2", Texture.class));
-        homeScreenV2Film = new FilmStrip(homeScreenV2Animation.getTexture(), 3, 8);
+        homeScreenV2Film = directory.getEntry("homeScreen:animationV2", StreamingFilmStrip.class);
         homeScreenV2Film.setFrame(0);
         homeScreenTexture = homeScreenV1Film;
 
-        TextureRegion logoV1Animation = new TextureRegion(directory.getEntry("homeScreen:logoAnimationV1", Texture.class));
-        logoV1Film = new FilmStrip(logoV1Animation.getTexture(), 2, 8);
+        logoV1Film = directory.getEntry("homeScreen:logoAnimationV1", StreamingFilmStrip.class);
         logoV1Film.setFrame(0);
-        TextureRegion logoV2Animation = new TextureRegion(directory.getEntry("homeScreen:logoAnimationV1", Texture.class));
-        logoV2Film = new FilmStrip(logoV2Animation.getTexture(), 2, 8);
+        logoV2Film = directory.getEntry("homeScreen:logoAnimationV2", StreamingFilmStrip.class);
         logoV2Film.setFrame(0);
         logoTexture = logoV1Film;
 
@@ -102,6 +99,12 @@ public class HomeScreen implements Screen, InputProcessor, ControllerListener {
 
     private void update(float delta){
         currentFrame++;
+
+        // Upload the frames decoded since the last update
+        homeScreenV1Film.update();
+        homeScreenV2Film.update();
+        logoV1Film.update();
+        logoV2Film.update();
         
         if(inAboutScreen) {
             if(Gdx.input.isKeyPressed(Keys.ESCAPE) || Gdx.input.isKeyPressed(Keys.Q)) {
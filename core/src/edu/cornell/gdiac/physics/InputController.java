@@ -66,6 +66,15 @@ public class InputController {
 	/** Whether the debug toggle was pressed. */
 	private boolean debugPressed;
 	private boolean debugPrevious;
+	/** Whether the render statistics toggle was pressed. */
+	private boolean statsPressed;
+	private boolean statsPrevious;
+	/** Whether the dynamic resolution toggle was pressed. */
+	private boolean resolutionPressed;
+	private boolean resolutionPrevious;
+	/** Whether the character mover toggle was pressed. */
+	private boolean moverPressed;
+	private boolean moverPrevious;
 	/** Whether the exit button was pressed. */
 	private boolean exitPressed;
 	private boolean exitPrevious;
@@ -204,6 +213,33 @@ public class InputController {
 		return debugPressed && !debugPrevious;
 	}
 	
+	/**
+	 * Returns true if the player wants to toggle the render statistics overlay.
+	 *
+	 * @return true if the player wants to toggle the render statistics overlay.
+	 */
+	public boolean didStats() {
+		return statsPressed && !statsPrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to toggle dynamic resolution scaling.
+	 *
+	 * @return true if the player wants to toggle dynamic resolution scaling.
+	 */
+	public boolean didResolution() {
+		return resolutionPressed && !resolutionPrevious;
+	}
+
+	/**
+	 * Returns true if the player wants to toggle the character mover.
+	 *
+	 * @return true if the player wants to toggle the character mover.
+	 */
+	public boolean didMover() {
+		return moverPressed && !moverPrevious;
+	}
+
 	/**
 	 * Returns true if the exit button was pressed.
 	 *
@@ -248,6 +284,9 @@ public class InputController {
 		secondPrevious = secondPressed;
 		resetPrevious  = resetPressed;
 		debugPrevious  = debugPressed;
+		statsPrevious  = statsPressed;
+		resolutionPrevious = resolutionPressed;
+		moverPrevious = moverPressed;
 		exitPrevious = exitPressed;
 		prevPrevious = prevPressed;
 		interactPrevious = interactPressed;
@@ -313,6 +352,9 @@ public class InputController {
 		// Give priority to gamepad results
 		resetPressed = (secondary && resetPressed) || (Gdx.input.isKeyPressed(Input.Keys.R));
 		debugPressed = (secondary && debugPressed) || (Gdx.input.isKeyPressed(Keys.GRAVE));
+		statsPressed = Gdx.input.isKeyPressed(Keys.F3);
+		resolutionPressed = Gdx.input.isKeyPressed(Keys.F4);
+		moverPressed = Gdx.input.isKeyPressed(Keys.F5);
 		primePressed = (secondary && primePressed) || (Gdx.input.isKeyPressed(Input.Keys.UP));
 		secondPressed = (secondary && secondPressed) || (Gdx.input.isKeyPressed(Input.Keys.SPACE));
 		prevPressed = (secondary && prevPressed) || (Gdx.input.isKeyPressed(Input.Keys.P)) || (Gdx.input.isKeyPressed(Input.Keys.ESCAPE));
@@ -0,0 +1,608 @@
+/*
+ * LevelData.java
+ *
+ * A Tiled level is a large JSON file, most of which the game never looks at (tile
+ * layer metadata, object widths, rotations, ids, visibility flags).  Keeping the whole
+ * JsonValue tree of every level alive for the lifetime of the game costs a node (and
+ * usually a String) for each of those values.
+ *
+ * This class reads a level with the event callbacks of JsonReader instead, so no tree
+ * is ever built.  Only the records the game uses are kept, in flat arrays: the tile
+ * ids of the tile layer, its properties, the tilesets, and the position, gid, name,
+ * type and properties of every object in the object layers.  The source text is
+ * dropped as soon as the file is read.
+ *
+ * Layers are identified by their position in the file, exactly like the old
+ * jsonData.get("layers").get(i) lookups.
+ *
+ * Based on the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The parts of a Tiled level that the game uses.
+ *
+ * Instances are immutable once read, so they may be shared across threads.
+ */
+public class LevelData {
+    /** The width of the tile layer (in tiles) */
+    private int width;
+    /** The height of the tile layer (in tiles) */
+    private int height;
+    /** The tile ids of the tile layer, top row first */
+    private int[] tiles;
+    /** The custom properties of the tile layer */
+    private final ObjectMap<String, String> properties = new ObjectMap<>();
+    /** The first gid of each tileset */
+    private int[] firstGids;
+    /** The source file of each tileset */
+    private String[] sources;
+    /** The object layers, by position in the file (null for other layers) */
+    private ObjectGroup[] layers;
+
+    /**
+     * Reads the level in the given file.
+     *
+     * @param file  The Tiled JSON file
+     */
+    public LevelData(FileHandle file) {
+        new LevelReader().parse(file);
+    }
+
+    /**
+     * Returns the width of the tile layer (in tiles)
+     *
+     * @return the width of the tile layer (in tiles)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the tile layer (in tiles)
+     *
+     * @return the height of the tile layer (in tiles)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the tile ids of the tile layer, top row first
+     *
+     * This array is not a copy, and must not be modified.
+     *
+     * @return the tile ids of the tile layer, top row first
+     */
+    public int[] getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the custom property of the tile layer with the given name
+     *
+     * @param name  The property name
+     *
+     * @return the property value (or null if it is not set)
+     */
+    public String getProperty(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * Returns the number of tilesets
+     *
+     * @return the number of tilesets
+     */
+    public int getTilesetCount() {
+        return firstGids.length;
+    }
+
+    /**
+     * Returns the first gid of the given tileset
+     *
+     * @param index The tileset index
+     *
+     * @return the first gid of the given tileset
+     */
+    public int getFirstGid(int index) {
+        return firstGids[index];
+    }
+
+    /**
+     * Returns the source file of the given tileset
+     *
+     * @param index The tileset index
+     *
+     * @return the source file of the given tileset
+     */
+    public String getTilesetSource(int index) {
+        return sources[index];
+    }
+
+    /**
+     * Returns the object layer at the given position in the file
+     *
+     * @param index The layer position
+     *
+     * @return the object layer (or null if there is no such object layer)
+     */
+    public ObjectGroup getObjects(int index) {
+        return index < layers.length ? layers[index] : null;
+    }
+
+    /**
+     * The objects of a single object layer.
+     *
+     * Each attribute is stored in its own array, indexed by object.
+     */
+    public static class ObjectGroup {
+        /** The x-coordinate of each object (Tiled pixels) */
+        private final float[] x;
+        /** The y-coordinate of each object (Tiled pixels, down from the top) */
+        private final float[] y;
+        /** The gid of each object */
+        private final int[] gid;
+        /** The name of each object */
+        private final String[] name;
+        /** The type (class) of each object */
+        private final String[] type;
+        /** Where the properties of each object start (one extra entry at the end) */
+        private final int[] propStart;
+        /** The names of the properties of all objects */
+        private final String[] propNames;
+        /** The values of the properties of all objects */
+        private final String[] propValues;
+
+        /**
+         * Creates a layer from the values collected by the reader
+         */
+        private ObjectGroup(FloatArray x, FloatArray y, IntArray gid, Array<String> name,
+                            Array<String> type, IntArray propStart,
+                            Array<String> propNames, Array<String> propValues) {
+            this.x = x.toArray();
+            this.y = y.toArray();
+            this.gid = gid.toArray();
+            this.name = name.toArray(String.class);
+            this.type = type.toArray(String.class);
+            this.propStart = propStart.toArray();
+            this.propNames = propNames.toArray(String.class);
+            this.propValues = propValues.toArray(String.class);
+        }
+
+        /**
+         * Returns the number of objects in this layer
+         *
+         * @return the number of objects in this layer
+         */
+        public int size() {
+            return x.length;
+        }
+
+        /**
+         * Returns the x-coordinate of the given object (Tiled pixels)
+         *
+         * @param index The object index
+         *
+         * @return the x-coordinate of the given object
+         */
+        public float getX(int index) {
+            return x[index];
+        }
+
+        /**
+         * Returns the y-coordinate of the given object (Tiled pixels, down from the top)
+         *
+         * @param index The object index
+         *
+         * @return the y-coordinate of the given object
+         */
+        public float getY(int index) {
+            return y[index];
+        }
+
+        /**
+         * Returns the gid of the given object
+         *
+         * @param index The object index
+         *
+         * @return the gid of the given object
+         */
+        public int getGid(int index) {
+            return gid[index];
+        }
+
+        /**
+         * Returns the name of the given object
+         *
+         * @param index The object index
+         *
+         * @return the name of the given object
+         */
+        public String getName(int index) {
+            return name[index];
+        }
+
+        /**
+         * Returns the type (class) of the given object
+         *
+         * @param index The object index
+         *
+         * @return the type (class) of the given object
+         */
+        public String getType(int index) {
+            return type[index];
+        }
+
+        /**
+         * Returns the custom property of the given object
+         *
+         * @param index The object index
+         * @param key   The property name
+         *
+         * @return the property value (or null if it is not set)
+         */
+        public String getProperty(int index, String key) {
+            for (int ii = propStart[index]; ii < propStart[index + 1]; ii++) {
+                if (propNames[ii].equals(key)) {
+                    return propValues[ii];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the custom property of the given object as an int
+         *
+         * @param index The object index
+         * @param key   The property name
+         * @param value The value to use if the property is not set
+         *
+         * @return the property value
+         */
+        public int getInt(int index, String key, int value) {
+            String s = getProperty(index, key);
+            return s == null ? value : (int) Double.parseDouble(s);
+        }
+
+        /**
+         * Returns the custom property of the given object as a float
+         *
+         * @param index The object index
+         * @param key   The property name
+         * @param value The value to use if the property is not set
+         *
+         * @return the property value
+         */
+        public float getFloat(int index, String key, float value) {
+            String s = getProperty(index, key);
+            return s == null ? value : Float.parseFloat(s);
+        }
+
+        /**
+         * Returns the custom property of the given object as a boolean
+         *
+         * @param index The object index
+         * @param key   The property name
+         * @param value The value to use if the property is not set
+         *
+         * @return the property value
+         */
+        public boolean getBoolean(int index, String key, boolean value) {
+            String s = getProperty(index, key);
+            return s == null ? value : Boolean.parseBoolean(s);
+        }
+    }
+
+    /**
+     * Collects the level records from the JSON parse events.
+     *
+     * The reader keeps a stack of what each open object or array is, and ignores
+     * everything inside a container it does not care about.
+     */
+    private class LevelReader extends JsonReader {
+        /** A container we do not care about */
+        private static final int SKIP = 0;
+        /** The root of the file */
+        private static final int ROOT = 1;
+        /** The array of layers */
+        private static final int LAYERS = 2;
+        /** A single layer */
+        private static final int LAYER = 3;
+        /** The tile ids of a tile layer */
+        private static final int DATA = 4;
+        /** The properties of a layer */
+        private static final int LAYER_PROPS = 5;
+        /** A single property of a layer */
+        private static final int LAYER_PROP = 6;
+        /** The objects of an object layer */
+        private static final int OBJECTS = 7;
+        /** A single object */
+        private static final int OBJECT = 8;
+        /** The properties of an object */
+        private static final int OBJECT_PROPS = 9;
+        /** A single property of an object */
+        private static final int OBJECT_PROP = 10;
+        /** The array of tilesets */
+        private static final int TILESETS = 11;
+        /** A single tileset */
+        private static final int TILESET = 12;
+
+        /** What each open container is */
+        private final IntArray stack = new IntArray();
+
+        /** The tilesets read so far */
+        private final IntArray gids = new IntArray();
+        private final Array<String> files = new Array<>();
+        /** The layers read so far */
+        private final Array<ObjectGroup> groups = new Array<>();
+
+        /** The current layer */
+        private String layerType;
+        private int layerWidth;
+        private int layerHeight;
+        private final IntArray layerData = new IntArray();
+        private final ObjectMap<String, String> layerProps = new ObjectMap<>();
+        private boolean hasObjects;
+
+        /** The objects of the current layer */
+        private final FloatArray x = new FloatArray();
+        private final FloatArray y = new FloatArray();
+        private final IntArray gid = new IntArray();
+        private final Array<String> name = new Array<>();
+        private final Array<String> type = new Array<>();
+        private final IntArray propStart = new IntArray();
+        private final Array<String> propNames = new Array<>();
+        private final Array<String> propValues = new Array<>();
+
+        /** The current tileset */
+        private int firstGid;
+        private String source;
+
+        /** The current property */
+        private String propName;
+        private String propValue;
+
+        @Override
+        protected void startObject(String name) {
+            push(name);
+        }
+
+        @Override
+        protected void startArray(String name) {
+            push(name);
+        }
+
+        /**
+         * Opens a container, working out what it is from its parent and its name
+         *
+         * @param key   The name of the container (null inside an array)
+         */
+        private void push(String key) {
+            int state = SKIP;
+            if (stack.isEmpty()) {
+                state = ROOT;
+            } else {
+                switch (stack.peek()) {
+                    case ROOT:
+                        if ("layers".equals(key)) {
+                            state = LAYERS;
+                        } else if ("tilesets".equals(key)) {
+                            state = TILESETS;
+                        }
+                        break;
+                    case LAYERS:
+                        state = LAYER;
+                        layerType = null;
+                        layerWidth = 0;
+                        layerHeight = 0;
+                        layerData.clear();
+                        layerProps.clear();
+                        hasObjects = false;
+                        break;
+                    case LAYER:
+                        if ("data".equals(key)) {
+                            state = DATA;
+                        } else if ("properties".equals(key)) {
+                            state = LAYER_PROPS;
+                        } else if ("objects".equals(key)) {
+                            state = OBJECTS;
+                            hasObjects = true;
+                            x.clear();
+                            y.clear();
+                            gid.clear();
+                            name.clear();
+                            type.clear();
+                            propStart.clear();
+                            propNames.clear();
+                            propValues.clear();
+                        }
+                        break;
+                    case LAYER_PROPS:
+                        state = LAYER_PROP;
+                        propName = null;
+                        propValue = null;
+                        break;
+                    case OBJECTS:
+                        state = OBJECT;
+                        x.add(0);
+                        y.add(0);
+                        gid.add(0);
+                        name.add(null);
+                        type.add(null);
+                        propStart.add(propNames.size);
+                        break;
+                    case OBJECT:
+                        if ("properties".equals(key)) {
+                            state = OBJECT_PROPS;
+                        }
+                        break;
+                    case OBJECT_PROPS:
+                        state = OBJECT_PROP;
+                        propName = null;
+                        propValue = null;
+                        break;
+                    case TILESETS:
+                        state = TILESET;
+                        firstGid = 0;
+                        source = null;
+                        break;
+                }
+            }
+            stack.add(state);
+        }
+
+        @Override
+        protected void pop() {
+            switch (stack.pop()) {
+                case LAYER:
+                    if (hasObjects || "objectgroup".equals(layerType)) {
+                        propStart.add(propNames.size);
+                        groups.add(new ObjectGroup(x, y, gid, name, type, propStart, propNames, propValues));
+                    } else {
+                        // Only the first tile layer is used
+                        if (tiles == null && layerData.size > 0) {
+                            width = layerWidth;
+                            height = layerHeight;
+                            tiles = layerData.toArray();
+                            properties.putAll(layerProps);
+                        }
+                        groups.add(null);
+                    }
+                    break;
+                case LAYER_PROP:
+                    if (propName != null) {
+                        layerProps.put(propName, propValue);
+                    }
+                    break;
+                case OBJECT_PROP:
+                    if (propName != null) {
+                        propNames.add(propName);
+                        propValues.add(propValue);
+                    }
+                    break;
+                case TILESET:
+                    gids.add(firstGid);
+                    files.add(source);
+                    break;
+                case ROOT:
+                    firstGids = gids.toArray();
+                    sources = files.toArray(String.class);
+                    layers = groups.toArray(ObjectGroup.class);
+                    if (tiles == null) {
+                        tiles = new int[0];
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        protected void string(String key, String value) {
+            switch (stack.peek()) {
+                case LAYER:
+                    if ("type".equals(key)) {
+                        layerType = value;
+                    }
+                    break;
+                case OBJECT:
+                    if ("name".equals(key)) {
+                        name.set(name.size - 1, value);
+                    } else if ("type".equals(key)) {
+                        type.set(type.size - 1, value);
+                    }
+                    break;
+                case TILESET:
+                    if ("source".equals(key)) {
+                        source = value;
+                    }
+                    break;
+                case LAYER_PROP:
+                case OBJECT_PROP:
+                    property(key, value);
+                    break;
+            }
+        }
+
+        @Override
+        protected void number(String key, double value, String stringValue) {
+            number(key, value, (long) value, stringValue);
+        }
+
+        @Override
+        protected void number(String key, long value, String stringValue) {
+            number(key, value, value, stringValue);
+        }
+
+        /**
+         * Handles a number, keeping whichever form the current record needs
+         *
+         * @param key           The name of the value (null inside an array)
+         * @param value         The value as a double
+         * @param longValue     The value as a long
+         * @param stringValue   The value as written in the file
+         */
+        private void number(String key, double value, long longValue, String stringValue) {
+            switch (stack.peek()) {
+                case DATA:
+                    layerData.add((int) longValue);
+                    break;
+                case LAYER:
+                    if ("width".equals(key)) {
+                        layerWidth = (int) longValue;
+                    } else if ("height".equals(key)) {
+                        layerHeight = (int) longValue;
+                    }
+                    break;
+                case OBJECT:
+                    if ("x".equals(key)) {
+                        x.set(x.size - 1, (float) value);
+                    } else if ("y".equals(key)) {
+                        y.set(y.size - 1, (float) value);
+                    } else if ("gid".equals(key)) {
+                        gid.set(gid.size - 1, (int) longValue);
+                    }
+                    break;
+                case TILESET:
+                    if ("firstgid".equals(key)) {
+                        firstGid = (int) longValue;
+                    }
+                    break;
+                case LAYER_PROP:
+                case OBJECT_PROP:
+                    property(key, stringValue);
+                    break;
+            }
+        }
+
+        @Override
+        protected void bool(String key, boolean value) {
+            switch (stack.peek()) {
+                case LAYER_PROP:
+                case OBJECT_PROP:
+                    property(key, Boolean.toString(value));
+                    break;
+            }
+        }
+
+        /**
+         * Records a field of the current property
+         *
+         * @param key   The field name
+         * @param value The field value
+         */
+        private void property(String key, String value) {
+            if ("name".equals(key)) {
+                propName = value;
+            } else if ("value".equals(key)) {
+                propValue = value;
+            }
+        }
+    }
+}
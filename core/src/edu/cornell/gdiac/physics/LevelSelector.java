@@ -11,12 +11,13 @@ import com.badlogic.gdx.controllers.ControllerListener;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import edu.cornell.gdiac.assets.AssetDirectory;
 import edu.cornell.gdiac.util.FilmStrip;
+import edu.cornell.gdiac.util.ParticleService;
 import edu.cornell.gdiac.util.ScreenListener;
 import java.util.Arrays;
 
@@ -44,7 +45,8 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
     private final float ursaMoveDist = 4.5f;
     /** The number of levels */
     private final int numButtons = 15;
-    private ParticleEffect effect;
+    /** The snow effect (a pooled instance owned by the ParticleService) */
+    private PooledEffect effect;
     private float levelsCompleted;
     private FilmStrip[] buttonsFilms = new FilmStrip[numButtons];
     private TextureRegion background;
@@ -88,11 +90,6 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
         Arrays.fill(buttonsUnlocked, true);
         buttonsUnlocked[0] = true;
 
-        effect = new ParticleEffect();
-        effect.load(Gdx.files.internal("particle.p"),Gdx.files.internal(""));
-        effect.getEmitters().first().setPosition(canvas.getWidth()/2f,canvas.getHeight());
-        effect.start();
-
         // I know this is bad but it works lol.
         buttonPositions = new Vector2[] {
                 new Vector2(298.8f, 210.9f),
@@ -210,7 +207,9 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
     private void update(float delta){
         time += 1;
         // Update the snow
-        effect.update(delta);
+        if(effect != null) {
+            ParticleService.get().update(effect, delta);
+        }
 
         // Move the camera if we won't see outside the background
         if(ursaPos.x > canvas.getWidth() / 2f && ursaPos.x < background.getRegionWidth() * scale - canvas.getWidth() / 2f) {
@@ -387,11 +386,9 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
         canvas.draw(ursaShadow, Color.WHITE, ursaShadow.getRegionWidth() / 2f, 0, ursaPos.x, ursaPos.y - ursaScale * ursaWalkFilm.getRegionHeight() /2f, 0, ursaScale, ursaScale);
         canvas.draw(ursaTexture, Color.WHITE, ursaWalkFilm.getRegionWidth() / 2f, ursaWalkFilm.getRegionHeight() / 2f,ursaPos.x,ursaPos.y,0,direction * ursaScale,ursaScale);
 
-        effect.update(1/60f);
-        if(effect.isComplete()){
-            effect.reset();
+        if(effect != null) {
+            effect.draw(canvas.getSpriteBatch());
         }
-        effect.draw(canvas.getSpriteBatch());
 
         canvas.end();
     }
@@ -493,6 +490,10 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
     public void show() {
         levelSelectMusic.setLooping(true);
         levelSelectMusic.play();
+        if(effect == null) {
+            effect = ParticleService.get().obtain("particle.p", true);
+            effect.setPosition(canvas.getWidth()/2f,canvas.getHeight());
+        }
         active = true;
     }
 
@@ -559,12 +560,16 @@ public class LevelSelector implements Screen, InputProcessor, ControllerListener
     @Override
     public void hide() {
         levelSelectMusic.stop();
+        ParticleService.get().free(effect);
+        effect = null;
     }
 
     @Override
     public void dispose() {
         active = false;
         canvas = null;
+        ParticleService.get().free(effect);
+        effect = null;
     }
 
     @Override
@@ -0,0 +1,184 @@
+/*
+ * LevelSnapshot.java
+ *
+ * Populating a level parses every JSON layer, triangulates every polygon obstacle,
+ * and builds every shadow.  None of that changes when the player retries, so a
+ * retry should not pay for it again.  Instead, a snapshot of the level is taken
+ * right after it is first populated, and restarting the level puts every object
+ * back the way the snapshot found it.  The bodies never leave the World.
+ *
+ * Static bodies cannot move, so only their textures are recorded.
+ *
+ * Based on the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import edu.cornell.gdiac.physics.objects.Cave;
+import edu.cornell.gdiac.physics.objects.Tree;
+import edu.cornell.gdiac.physics.obstacle.Obstacle;
+import edu.cornell.gdiac.physics.obstacle.SimpleObstacle;
+import edu.cornell.gdiac.physics.pathing.AIController;
+import edu.cornell.gdiac.physics.shadows.ShadowController;
+import edu.cornell.gdiac.physics.units.Enemy;
+import edu.cornell.gdiac.util.PooledList;
+
+import java.util.List;
+
+/**
+ * The initial state of a populated level.
+ *
+ * Take the snapshot once the level is populated, and call {@link #restore} to
+ * restart the level.  The snapshot keeps references to the objects of the level,
+ * so it must be thrown away if the level is ever populated again.
+ */
+public class LevelSnapshot {
+    /** The number of floats recorded for each moving body */
+    private static final int STRIDE = 7;
+
+    /** Every obstacle in the level */
+    private final Obstacle[] obstacles;
+    /** The texture of each obstacle (null if it is not a simple obstacle) */
+    private final TextureRegion[] textures;
+    /** The obstacles that are not static */
+    private final Obstacle[] moving;
+    /** The x, y, angle, vx, vy, angular velocity and damping of each moving body */
+    private final float[] bodies;
+    /** The enemies in the level */
+    private final Enemy[] enemies;
+    /** The look angle of each enemy in degrees */
+    private final float[] lookAngles;
+    /** The AI controllers of the enemies */
+    private final AIController[] controls;
+    /** The trees that can be shaken */
+    private final Tree[] trees;
+    /** The caves that can be interacted with */
+    private final Cave[] caves;
+    /** The direction of every shadow in degrees */
+    private final float[] shadows;
+
+    /**
+     * Takes a snapshot of a freshly populated level
+     *
+     * @param objects   The obstacles in the level (all of them must be in the world)
+     * @param controls  The AI controllers of the enemies
+     * @param trees     The trees that can be shaken
+     * @param caves     The caves that can be interacted with
+     * @param shadowController  The shadows of the level
+     */
+    public LevelSnapshot(PooledList<Obstacle> objects, List<AIController> controls,
+                         PooledList<Tree> trees, PooledList<Cave> caves,
+                         ShadowController shadowController) {
+        obstacles = new Obstacle[objects.size()];
+        textures = new TextureRegion[obstacles.length];
+        int count = 0;
+        int enemyCount = 0;
+        int ii = 0;
+        for (Obstacle obj : objects) {
+            obstacles[ii] = obj;
+            if (obj instanceof SimpleObstacle) {
+                textures[ii] = ((SimpleObstacle)obj).getTexture();
+            }
+            if (obj.getBodyType() != BodyDef.BodyType.StaticBody) {
+                count++;
+            }
+            if (obj instanceof Enemy) {
+                enemyCount++;
+            }
+            ii++;
+        }
+
+        moving = new Obstacle[count];
+        bodies = new float[count * STRIDE];
+        enemies = new Enemy[enemyCount];
+        lookAngles = new float[enemyCount];
+        count = 0;
+        enemyCount = 0;
+        for (Obstacle obj : obstacles) {
+            if (obj.getBodyType() != BodyDef.BodyType.StaticBody) {
+                int base = count * STRIDE;
+                bodies[base  ] = obj.getX();
+                bodies[base+1] = obj.getY();
+                bodies[base+2] = obj.getAngle();
+                bodies[base+3] = obj.getVX();
+                bodies[base+4] = obj.getVY();
+                bodies[base+5] = obj.getAngularVelocity();
+                bodies[base+6] = obj.getLinearDamping();
+                moving[count++] = obj;
+            }
+            if (obj instanceof Enemy) {
+                enemies[enemyCount] = (Enemy)obj;
+                lookAngles[enemyCount++] = ((Enemy)obj).getLookAngle();
+            }
+        }
+
+        this.controls = controls.toArray(new AIController[0]);
+        this.trees = new Tree[trees.size()];
+        ii = 0;
+        for (Tree tree : trees) {
+            this.trees[ii++] = tree;
+        }
+        this.caves = new Cave[caves.size()];
+        ii = 0;
+        for (Cave cave : caves) {
+            this.caves[ii++] = cave;
+        }
+        shadows = shadowController.getDirections();
+    }
+
+    /**
+     * Puts the level back the way it was when the snapshot was taken.
+     *
+     * The lists of interactable trees and caves are refilled.  Animation cursors
+     * are not part of the snapshot, so the caller should restart them.
+     *
+     * @param trees     The list of trees that can be shaken
+     * @param caves     The list of caves that can be interacted with
+     * @param shadowController  The shadows of the level
+     */
+    public void restore(PooledList<Tree> trees, PooledList<Cave> caves,
+                        ShadowController shadowController) {
+        for (int ii = 0; ii < moving.length; ii++) {
+            Obstacle obj = moving[ii];
+            int base = ii * STRIDE;
+            obj.setPosition(bodies[base], bodies[base+1]);
+            obj.setAngle(bodies[base+2]);
+            obj.setVX(bodies[base+3]);
+            obj.setVY(bodies[base+4]);
+            obj.setAngularVelocity(bodies[base+5]);
+            obj.setLinearDamping(bodies[base+6]);
+            obj.setAwake(true);
+        }
+        for (int ii = 0; ii < obstacles.length; ii++) {
+            TextureRegion texture = textures[ii];
+            if (texture == null) {
+                continue;
+            }
+            // Polygon obstacles rebuild their region in setTexture, so only swap if needed
+            SimpleObstacle obj = (SimpleObstacle)obstacles[ii];
+            if (obj.getTexture() != texture) {
+                obj.setTexture(texture);
+            }
+        }
+
+        for (int ii = 0; ii < enemies.length; ii++) {
+            enemies[ii].restart(lookAngles[ii]);
+        }
+        for (AIController control : controls) {
+            control.restart();
+        }
+
+        trees.clear();
+        for (Tree tree : this.trees) {
+            tree.resetShake();
+            trees.add(tree);
+        }
+        caves.clear();
+        for (Cave cave : this.caves) {
+            cave.resetInteraction();
+            caves.add(cave);
+        }
+        shadowController.restart(shadows);
+    }
+}
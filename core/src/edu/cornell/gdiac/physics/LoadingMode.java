@@ -24,12 +24,15 @@ package edu.cornell.gdiac.physics;
 
 import com.badlogic.gdx.*;
 import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.*;
 import com.badlogic.gdx.controllers.Controller;
 import com.badlogic.gdx.controllers.ControllerListener;
 import com.badlogic.gdx.controllers.ControllerMapping;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonValue;
 
 import edu.cornell.gdiac.assets.*;
 import edu.cornell.gdiac.util.*;
@@ -79,6 +82,18 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 
 	/** Default budget for asset loader (do nothing but load 60 fps) */
 	private static int DEFAULT_BUDGET = 15;
+	/** The asset pack built by the packAssets task (the loose files are used if missing) */
+	private static final String ASSET_PACK = "assets.pack";
+	/** The number of slowest assets named in the loading summary */
+	private static final int PROFILE_SLOWEST = 5;
+	/** The smallest budget the loader adapts down to */
+	private static final int MIN_BUDGET = 1;
+	/** The largest budget the loader adapts up to */
+	private static final int MAX_BUDGET = 14;
+	/** The frame time the adaptive budget tries to hold (seconds) */
+	private static final float TARGET_FRAME = 1/60.0f;
+	/** How far over the target a frame may run before the budget is cut */
+	private static final float FRAME_SLACK = 1.25f;
 	/** Standard window size (for scaling) */
 	private static int STANDARD_WIDTH  = 800;
 	/** Standard window height (for scaling) */
@@ -113,6 +128,10 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	private int   pressState;
 	/** The amount of time to devote to loading assets (as opposed to on screen hints, etc.) */
 	private int   budget;
+	/** Whether the budget adapts to the measured frame time */
+	private boolean adaptive = true;
+	/** The file to write the asset profile to when loading is done (null for none) */
+	private FileHandle profileFile;
 
 	/** Whether or not this player mode is still active */
 	private boolean active;
@@ -146,6 +165,51 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	public void setBudget(int millis) {
 		budget = millis;
 	}
+
+	/**
+	 * Returns true if the budget adapts to the measured frame time.
+	 *
+	 * Texture decoding happens on worker threads, so the budget is mostly spent
+	 * uploading textures on the GL thread.  An adaptive budget grows while the
+	 * loading screen holds 60 fps and is halved when a frame runs long.  The value
+	 * given to the constructor (or {@link #setBudget}) is the starting point.
+	 *
+	 * @return true if the budget adapts to the measured frame time
+	 */
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * Sets whether the budget adapts to the measured frame time.
+	 *
+	 * @param value whether the budget adapts to the measured frame time
+	 */
+	public void setAdaptive(boolean value) {
+		adaptive = value;
+	}
+
+	/**
+	 * Returns the file the asset profile is written to when loading is done.
+	 *
+	 * The profile records when each asset was queued and loaded, how long its decode
+	 * and GPU upload took, and how much file and texture memory it uses.  A summary is
+	 * always logged; the full profile is only written as JSON if this file is set.
+	 *
+	 * @return the file the asset profile is written to (null for none)
+	 */
+	public FileHandle getProfileFile() {
+		return profileFile;
+	}
+
+	/**
+	 * Sets the file the asset profile is written to when loading is done.
+	 *
+	 * @param file	the file the asset profile is written to (null for none)
+	 */
+	public void setProfileFile(FileHandle file) {
+		profileFile = file;
+	}
 	
 	/**
 	 * Returns true if all assets are loaded and the player is ready to go.
@@ -187,11 +251,15 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 	 * frame is ~16 milliseconds. So if the budget is 10, you have 6 milliseconds to 
 	 * do something else.  This is how game companies animate their loading screens.
 	 *
+	 * If any asset groups are given, only those groups are loaded, and the rest of
+	 * the directory is left for the screens that need it.
+	 *
 	 * @param file  	The asset directory to load in the background
 	 * @param canvas 	The game canvas to draw to
 	 * @param millis The loading budget in milliseconds
+	 * @param groups	The asset groups to load (empty for every asset)
 	 */
-	public LoadingMode(String file, GameCanvas canvas, int millis) {
+	public LoadingMode(String file, GameCanvas canvas, int millis, String... groups) {
 		time = 0;
 		this.canvas  = canvas;
 		budget = millis;
@@ -239,8 +307,9 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 		}
 
 		// Start loading the real assets
-		assets = new AssetDirectory( file );
-		assets.loadAssets();
+		// Serve the assets from the asset pack, if one has been built
+		assets = new AssetDirectory( file, new PackFileHandleResolver( ASSET_PACK ) );
+		assets.loadAssets( groups );
 		active = true;
 	}
 	
@@ -270,14 +339,56 @@ public class LoadingMode implements Screen, InputProcessor, ControllerListener {
 			ursaLoadingFilm.setFrame(ursaLoadingFilm.getFrame() + 1);
 		}
 		if (!doneLoading) {
+			if (adaptive) {
+				adaptBudget(delta);
+			}
 			assets.update(budget);
 			this.progress = assets.getProgress();
 			if (progress >= 1.0f) {
 				doneLoading = true;
+				reportProfile();
+			}
+		}
+	}
+
+	/**
+	 * Logs a summary of the asset profile, and writes it out if requested.
+	 */
+	private void reportProfile() {
+		AssetProfile profile = assets.getProfile();
+		JsonValue totals = profile.toJson();
+		Gdx.app.log("LoadingMode", String.format("Loaded %d assets in %.0f ms (%.1f MB read, %.1f MB of textures)",
+				totals.getInt("count"), totals.getFloat("elapsed"),
+				totals.getLong("bytes")/1048576.0f, totals.getLong("textureBytes")/1048576.0f));
+		for (AssetProfile.Record record : profile.getSlowest(PROFILE_SLOWEST)) {
+			Gdx.app.log("LoadingMode", String.format("  %s: decode %.1f ms, upload %.1f ms, latency %.1f ms",
+					record.fileName, record.decode, record.upload, record.getLatency()));
+		}
+		if (profileFile != null) {
+			try {
+				profile.write(profileFile);
+			} catch (GdxRuntimeException e) {
+				Gdx.app.error("LoadingMode", "Could not write the asset profile to "+profileFile.path(), e);
 			}
 		}
 	}
 
+	/**
+	 * Adjusts the loading budget to the length of the last frame.
+	 *
+	 * The budget grows a millisecond at a time while frames are on time, and is
+	 * halved as soon as one runs long, so the loading animation stays smooth.
+	 *
+	 * @param delta Number of seconds since last animation frame
+	 */
+	private void adaptBudget(float delta) {
+		if (delta > TARGET_FRAME*FRAME_SLACK) {
+			budget = Math.max(MIN_BUDGET, budget/2);
+		} else {
+			budget = Math.min(MAX_BUDGET, budget+1);
+		}
+	}
+
 	/**
 	 * Draw the status of this player mode.
 	 *
@@ -0,0 +1,245 @@
+/*
+ * RenderStats.java
+ *
+ * GameCanvas hides the sprite batch from the rest of the game, so nobody else can
+ * see how expensive a frame is on the GPU side.  This class is the bookkeeping for
+ * that.  The canvas bumps the counters as it submits geometry, and closes out the
+ * frame the first time it is used on a new animation frame.
+ *
+ * Each closed frame is copied into a ring buffer so that we can look at a rolling
+ * history (averages and peaks) instead of a single noisy number.  This is what we
+ * use to find out which layers of a level are blowing the batch.
+ *
+ * Based on the GameCanvas from the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+/**
+ * Per-frame rendering counters with a rolling history.
+ *
+ * The counters for the frame in progress are accumulated with the record methods.
+ * Calling {@link #endFrame()} moves them into the history and zeroes them.  All of
+ * the getters that do not take a frame offset report the last COMPLETED frame, since
+ * the frame in progress is not meaningful until it is done.
+ */
+public class RenderStats {
+	/** The default number of frames to keep in the history */
+	public static final int DEFAULT_HISTORY = 120;
+
+	/** Enumeration of the tracked counters */
+	public enum Counter {
+		/** Number of GL draw calls issued by the sprite batch */
+		RENDER_CALLS,
+		/** Number of times the bound texture changed between submissions */
+		TEXTURE_SWITCHES,
+		/** Number of sprites (quads and polygons) submitted */
+		SPRITES,
+		/** Number of polygon vertices submitted */
+		VERTICES,
+		/** Number of times the blend function actually changed */
+		BLEND_CHANGES,
+		/** Number of frame buffer binds */
+		FBO_BINDS
+	}
+
+	/** The number of counters (cached to avoid Counter.values() allocations) */
+	private static final int COUNTERS = Counter.values().length;
+
+	/** The counters for the frame in progress */
+	private final int[] current;
+	/** The ring buffer of completed frames (frame-major) */
+	private final int[] history;
+	/** The capacity of the history in frames */
+	private final int capacity;
+	/** The slot in the ring buffer for the next completed frame */
+	private int head;
+	/** The number of completed frames in the ring buffer */
+	private int size;
+	/** The total number of frames completed since the last reset */
+	private long frames;
+
+	/**
+	 * Creates a new set of counters with the default history length
+	 */
+	public RenderStats() {
+		this(DEFAULT_HISTORY);
+	}
+
+	/**
+	 * Creates a new set of counters with the given history length
+	 *
+	 * @param capacity	The number of completed frames to remember
+	 */
+	public RenderStats(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		current = new int[COUNTERS];
+		history = new int[this.capacity*COUNTERS];
+		reset();
+	}
+
+	/**
+	 * Clears the frame in progress and the entire history
+	 */
+	public void reset() {
+		for(int ii = 0; ii < COUNTERS; ii++) {
+			current[ii] = 0;
+		}
+		head = 0;
+		size = 0;
+		frames = 0;
+	}
+
+	/**
+	 * Adds the given amount to a counter in the frame in progress
+	 *
+	 * @param counter	The counter to increment
+	 * @param amount	The amount to add
+	 */
+	public void record(Counter counter, int amount) {
+		current[counter.ordinal()] += amount;
+	}
+
+	/**
+	 * Records a single sprite submission with the given number of vertices
+	 *
+	 * @param vertices	The number of vertices in the sprite
+	 */
+	public void recordSprite(int vertices) {
+		current[Counter.SPRITES.ordinal()]++;
+		current[Counter.VERTICES.ordinal()] += vertices;
+	}
+
+	/**
+	 * Closes out the frame in progress, moving it into the history.
+	 */
+	public void endFrame() {
+		int offset = head*COUNTERS;
+		for(int ii = 0; ii < COUNTERS; ii++) {
+			history[offset+ii] = current[ii];
+			current[ii] = 0;
+		}
+		head = (head+1) % capacity;
+		size = Math.min(size+1, capacity);
+		frames++;
+	}
+
+	/**
+	 * Returns the number of completed frames currently in the history
+	 *
+	 * @return the number of completed frames currently in the history
+	 */
+	public int getHistorySize() {
+		return size;
+	}
+
+	/**
+	 * Returns the maximum number of frames remembered by the history
+	 *
+	 * @return the maximum number of frames remembered by the history
+	 */
+	public int getHistoryCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of frames completed since the last reset
+	 *
+	 * @return the number of frames completed since the last reset
+	 */
+	public long getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * Returns the value of the counter for the frame in progress
+	 *
+	 * @param counter	The counter to query
+	 *
+	 * @return the value of the counter for the frame in progress
+	 */
+	public int getCurrent(Counter counter) {
+		return current[counter.ordinal()];
+	}
+
+	/**
+	 * Returns the value of the counter for the last completed frame
+	 *
+	 * @param counter	The counter to query
+	 *
+	 * @return the value of the counter for the last completed frame
+	 */
+	public int get(Counter counter) {
+		return get(counter,0);
+	}
+
+	/**
+	 * Returns the value of the counter for a completed frame
+	 *
+	 * The age is 0 for the last completed frame, 1 for the frame before that,
+	 * and so on.  Frames that have fallen out of the history report 0.
+	 *
+	 * @param counter	The counter to query
+	 * @param age		How many frames back to look
+	 *
+	 * @return the value of the counter for a completed frame
+	 */
+	public int get(Counter counter, int age) {
+		if (age < 0 || age >= size) {
+			return 0;
+		}
+		int slot = (head-1-age+capacity) % capacity;
+		return history[slot*COUNTERS+counter.ordinal()];
+	}
+
+	/**
+	 * Returns the average value of the counter over the history
+	 *
+	 * @param counter	The counter to query
+	 *
+	 * @return the average value of the counter over the history
+	 */
+	public float getAverage(Counter counter) {
+		if (size == 0) {
+			return 0;
+		}
+		long total = 0;
+		for(int ii = 0; ii < size; ii++) {
+			total += get(counter,ii);
+		}
+		return total/(float)size;
+	}
+
+	/**
+	 * Returns the peak value of the counter over the history
+	 *
+	 * @param counter	The counter to query
+	 *
+	 * @return the peak value of the counter over the history
+	 */
+	public int getPeak(Counter counter) {
+		int peak = 0;
+		for(int ii = 0; ii < size; ii++) {
+			peak = Math.max(peak,get(counter,ii));
+		}
+		return peak;
+	}
+
+	/**
+	 * Copies the history of a counter into the given array, oldest first
+	 *
+	 * This is intended for plotting.  At most out.length values are copied,
+	 * taking the most recent frames if the array is too short.
+	 *
+	 * @param counter	The counter to query
+	 * @param out		The array to store the history
+	 *
+	 * @return the number of values copied
+	 */
+	public int getHistory(Counter counter, int[] out) {
+		int amount = Math.min(size, out.length);
+		for(int ii = 0; ii < amount; ii++) {
+			out[ii] = get(counter,amount-1-ii);
+		}
+		return amount;
+	}
+}
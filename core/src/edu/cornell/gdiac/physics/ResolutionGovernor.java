@@ -0,0 +1,225 @@
+/*
+ * ResolutionGovernor.java
+ *
+ * On weaker laptops the full-screen layers of a level (ocean, snow, tinting) cost
+ * more fill rate than the GPU can give us in a frame.  Dynamic resolution trades
+ * sharpness for frame rate: the world is drawn into a smaller offscreen target and
+ * stretched to the screen, while the UI is still drawn at native resolution.
+ *
+ * This class only decides HOW small that target should be.  It watches a smoothed
+ * frame time and steps the scale down quickly when we are over budget, and back up
+ * slowly when we are comfortably within it.  GameCanvas owns the actual target.
+ *
+ * Based on the GameCanvas from the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+/**
+ * Frame time governor for dynamic resolution scaling.
+ *
+ * The scale is a fraction of the backbuffer size, quantized to a fixed step so that
+ * the offscreen viewport does not change every frame.  Going down is cheap to undo,
+ * so the governor reacts to it quickly.  Going up is what causes oscillation, so the
+ * governor waits longer before trying, and waits longer still every time an increase
+ * had to be undone.
+ */
+public class ResolutionGovernor {
+	/** The default smallest scale (half the backbuffer in each dimension) */
+	public static final float DEFAULT_MIN_SCALE = 0.5f;
+	/** The default largest scale (the full backbuffer) */
+	public static final float DEFAULT_MAX_SCALE = 1.0f;
+	/** The default change in scale per adjustment */
+	public static final float DEFAULT_STEP = 0.1f;
+	/** The default frame budget in seconds */
+	public static final float DEFAULT_BUDGET = 1/60.0f;
+
+	/** The weight of the newest frame in the smoothed frame time */
+	private static final float SMOOTHING = 0.1f;
+	/** Frames slower than this are hitches (loading, GC) and are clamped */
+	private static final float MAX_FRAME_TIME = 0.25f;
+	/** The smoothed frame time (relative to the budget) that forces a decrease */
+	private static final float OVER_BUDGET = 1.15f;
+	/** The smoothed frame time (relative to the budget) that allows an increase */
+	private static final float UNDER_BUDGET = 1.03f;
+	/** Seconds to wait after any change before deciding again */
+	private static final float SETTLE_TIME = 0.5f;
+	/** Seconds within budget before we try a larger scale */
+	private static final float GROW_TIME = 2.0f;
+	/** The longest we will back off before trying a larger scale again */
+	private static final float MAX_GROW_TIME = 16.0f;
+
+	/** The smallest allowed scale */
+	private float minScale;
+	/** The largest allowed scale */
+	private float maxScale;
+	/** The change in scale per adjustment */
+	private float step;
+	/** The frame budget in seconds */
+	private float budget;
+
+	/** The current scale */
+	private float scale;
+	/** The smoothed frame time (negative if there are no samples) */
+	private float average;
+	/** Seconds left before the governor may decide again */
+	private float settle;
+	/** Seconds the frame time has been within budget */
+	private float healthy;
+	/** Seconds within budget required before an increase */
+	private float growTime;
+	/** Whether the last adjustment was an increase */
+	private boolean grew;
+
+	/**
+	 * Creates a governor with the default range and budget
+	 */
+	public ResolutionGovernor() {
+		this(DEFAULT_MIN_SCALE, DEFAULT_MAX_SCALE, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Creates a governor with the given range and budget
+	 *
+	 * @param minScale	The smallest allowed scale
+	 * @param maxScale	The largest allowed scale
+	 * @param budget	The frame budget in seconds
+	 */
+	public ResolutionGovernor(float minScale, float maxScale, float budget) {
+		if (minScale <= 0 || maxScale < minScale || maxScale > 1) {
+			throw new IllegalArgumentException("Scale range must satisfy 0 < min <= max <= 1");
+		}
+		this.minScale = minScale;
+		this.maxScale = maxScale;
+		this.budget = budget;
+		step = DEFAULT_STEP;
+		reset();
+	}
+
+	/**
+	 * Returns the governor to full scale and forgets the frame history.
+	 */
+	public void reset() {
+		scale = maxScale;
+		average = -1;
+		settle = SETTLE_TIME;
+		healthy = 0;
+		growTime = GROW_TIME;
+		grew = false;
+	}
+
+	/**
+	 * Records the time of the last frame and adjusts the scale if necessary.
+	 *
+	 * @param dt	The number of seconds in the last frame
+	 *
+	 * @return true if the scale changed
+	 */
+	public boolean update(float dt) {
+		dt = Math.min(dt, MAX_FRAME_TIME);
+		average = (average < 0 ? dt : average+SMOOTHING*(dt-average));
+
+		if (settle > 0) {
+			settle -= dt;
+			return false;
+		}
+
+		float load = average/budget;
+		if (load > OVER_BUDGET && scale > minScale) {
+			// An increase we just made did not hold up, so wait longer next time
+			if (grew) {
+				growTime = Math.min(growTime*2, MAX_GROW_TIME);
+			}
+			return adjust(-step);
+		}
+
+		if (load < UNDER_BUDGET) {
+			healthy += dt;
+			if (healthy >= growTime && scale < maxScale) {
+				return adjust(step);
+			}
+		} else {
+			healthy = 0;
+		}
+
+		// A larger scale has held for a full grow period, so forget the back off
+		if (grew && healthy >= growTime) {
+			growTime = GROW_TIME;
+			grew = false;
+		}
+		return false;
+	}
+
+	/**
+	 * Changes the scale by the given amount, clamped to the allowed range.
+	 *
+	 * @param amount	The amount to change the scale
+	 *
+	 * @return true if the scale changed
+	 */
+	private boolean adjust(float amount) {
+		float next = Math.max(minScale, Math.min(maxScale, scale+amount));
+		// Snap to the step so that round-off does not accumulate
+		next = Math.round(next/step)*step;
+		next = Math.max(minScale, Math.min(maxScale, next));
+		boolean changed = next != scale;
+		grew = amount > 0;
+		scale = next;
+		settle = SETTLE_TIME;
+		healthy = 0;
+		return changed;
+	}
+
+	/**
+	 * Returns the current scale as a fraction of the backbuffer
+	 *
+	 * @return the current scale as a fraction of the backbuffer
+	 */
+	public float getScale() {
+		return scale;
+	}
+
+	/**
+	 * Returns the smoothed frame time in seconds
+	 *
+	 * @return the smoothed frame time in seconds
+	 */
+	public float getAverageFrameTime() {
+		return Math.max(average, 0);
+	}
+
+	/**
+	 * Returns the frame budget in seconds
+	 *
+	 * @return the frame budget in seconds
+	 */
+	public float getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the frame budget in seconds
+	 *
+	 * @param value	the frame budget in seconds
+	 */
+	public void setBudget(float value) {
+		budget = value;
+	}
+
+	/**
+	 * Returns the smallest allowed scale
+	 *
+	 * @return the smallest allowed scale
+	 */
+	public float getMinScale() {
+		return minScale;
+	}
+
+	/**
+	 * Returns the largest allowed scale
+	 *
+	 * @return the largest allowed scale
+	 */
+	public float getMaxScale() {
+		return maxScale;
+	}
+}
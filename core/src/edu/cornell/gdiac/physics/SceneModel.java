@@ -3,27 +3,27 @@ package edu.cornell.gdiac.physics;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Input.Keys;
-import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.Contact;
 import com.badlogic.gdx.physics.box2d.ContactImpulse;
 import com.badlogic.gdx.physics.box2d.ContactListener;
-import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.Json;
-import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.ObjectSet;
 import edu.cornell.gdiac.assets.AssetDirectory;
+import edu.cornell.gdiac.audio.AudioSource;
+import edu.cornell.gdiac.audio.LayeredMusic;
+import edu.cornell.gdiac.physics.LevelData.ObjectGroup;
 import edu.cornell.gdiac.physics.objects.CustomGameObject;
 import edu.cornell.gdiac.physics.pathing.EnemyMarker;
 import edu.cornell.gdiac.physics.units.Enemy;
@@ -40,10 +40,16 @@ import edu.cornell.gdiac.physics.units.UrsaModel;
 import edu.cornell.gdiac.physics.shadows.ShadowController;
 import edu.cornell.gdiac.physics.shadows.ShadowModel;
 import edu.cornell.gdiac.physics.objects.Tree;
+import edu.cornell.gdiac.util.AnimationClip;
+import edu.cornell.gdiac.util.AnimationClip.PlayMode;
+import edu.cornell.gdiac.util.AnimationCursor;
 import edu.cornell.gdiac.util.FilmStrip;
+import edu.cornell.gdiac.util.ParticleService;
 import edu.cornell.gdiac.util.PooledList;
+import edu.cornell.gdiac.util.WorkerPool;
 import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.concurrent.Callable;
 
 /**
  * This class contains references to all game objects and stores logic for update loops, where it animates and moves objects.
@@ -130,20 +136,29 @@ public class SceneModel extends WorldController implements ContactListener {
     /* =========== Animation Variables =========== */
     /** Current frame number (used to slow down animations) */
     private int currentFrame = 0;
-    /** The frame at which Ursa began idling */
-    private int ursaBeganWalkingFrame = 0;
-    /** The frame at which Ursa began idling */
-    private int ursaBeganIdlingFrame = 0;
-    /** Player's current state: true corresponds to walking, false for idling */
-    private boolean ursaCurrentState = false;
-    /** Current index of the salmon walking animation */
-    private int salmonWalkAnimIndex = 0;
-    /** Current index of the salmon idling animation */
-    private int salmonIdleAnimIndex = 0;
-    /** Current index of the salmon detection animation */
-    private int salmonDetectedIndex = 0;
-    /** The frame at which the tree began shaking */
-    private int beganShakingTreeFrame = 0;
+    /** The shared animation clock step: every cursor advances by this much per update */
+    private static final float ANIMATION_STEP = 1 / 60f;
+
+    /* =========== Animation Clips =========== */
+    /** Clips are shared by every object; each object has its own AnimationCursor */
+    private AnimationClip playerWalkClip;
+    private AnimationClip playerIdleClip;
+    private AnimationClip playerCaughtClip;
+    private AnimationClip playerDanceClip;
+    private AnimationClip playerRescueClip;
+    private AnimationClip salmonWalkClip;
+    private AnimationClip salmonIdleClip;
+    private AnimationClip salmonConfusedClip;
+    private AnimationClip salmonStunnedClip;
+    private AnimationClip salmonDetectedClip;
+    private AnimationClip salmonDiveClip;
+    private AnimationClip treeShakeClip;
+    private AnimationClip cavePortalClip;
+    private AnimationClip caveZZZLoopClip;
+    private AnimationClip smolUrsaIdleClip;
+    private AnimationClip smolUrsaRescueClip;
+    /** The animation playback state of smol ursa (the goal) */
+    private final AnimationCursor smolUrsaAnimation = new AnimationCursor();
     /**
      * A default listing of cave rotations if none are provided.
      * Stores the starting rotation of shadows and subsequent rotations when caves are interacted
@@ -180,8 +195,12 @@ public class SceneModel extends WorldController implements ContactListener {
     /* =========== Tiled Parsing Variables =========== */
     /** Maximum Y Coordinate (Screen) */
     private final float maxY;
-    /** JSON containing all the information for the level */
-    private final JsonValue jsonData;
+    /** The records of the level that the game uses (the JSON itself is not kept) */
+    private final LevelData level;
+    /** The file name of the level (its name in the save data) */
+    private final String levelName;
+    /** The time spent playing this attempt at the level, in seconds (excluding pauses) */
+    private float levelTime;
     /** Constants used for initialization (width, height, scaling, etc) */
     private JsonValue constants;
     /** The index of the first tile in the tile sprite sheet */
@@ -204,7 +223,10 @@ public class SceneModel extends WorldController implements ContactListener {
     private int polarTrunk1Index;
     /** The index of trunk 2 in terms of all textures in json*/
     private int polarTrunk2Index;
-    private ParticleEffect effect;
+    /** The snow effect (a pooled instance owned by the ParticleService) */
+    private PooledEffect effect;
+    /** The particle effect definition for the snow */
+    private static final String SNOW_EFFECT = "particle.p";
     /** The index of rock 2 in terms of all textures in json*/
     private int polarRock2Index;
     /** Scaling between textures and drawing (256x256 -> 192x192)
@@ -249,6 +271,12 @@ public class SceneModel extends WorldController implements ContactListener {
     private final PooledList<Cave> interactableCaves = new PooledList<>();
     /** List of references to dynamic objects (ursa + enemies) */
     private final PooledList<Obstacle> dynamicObjects = new PooledList<>();
+    /** The state of the level right after it was first populated (for fast restarts) */
+    private LevelSnapshot snapshot;
+    /** Takes distant enemies and ice out of the physics simulation */
+    private final ActivityManager activity = new ActivityManager();
+    /** Resolves character collisions with scenery without Box2D (off by default) */
+    private final CharacterMover mover = new CharacterMover();
 
 
     /* =========== Day/Night Screen Tinting =========== */
@@ -309,9 +337,14 @@ public class SceneModel extends WorldController implements ContactListener {
 
 
     /* =========== Soundtrack Assets =========== */
-    private Music levelMusic;
-    private Music levelMusicNight;
-    private Music levelMusicTense;
+    /** The level soundtrack: the base track, with the night and tense stems over it */
+    private LayeredMusic levelMusic;
+    /** The layer of the soundtrack that plays at night */
+    private static final String MUSIC_NIGHT = "night";
+    /** The layer of the soundtrack that plays while an enemy is alerted */
+    private static final String MUSIC_TENSE = "tense";
+    /** How long a layer of the soundtrack takes to fade in or out (seconds) */
+    private static final float MUSIC_FADE = 1.5f;
 
 
     /**
@@ -324,14 +357,9 @@ public class SceneModel extends WorldController implements ContactListener {
     /** Controller for all dynamic shadows */
     private ShadowController shadowController = new ShadowController();
     private final Comparator<Decoration> decorationComparator = (o1, o2) -> Float.compare(o2.getIndex(), o1.getIndex());
-    /** Mark set to handle more sophisticated collision callbacks */
-    protected ObjectSet<Fixture> sensorFixtures;
-
-    private FrameBuffer fb = new FrameBuffer(Pixmap.Format.RGBA8888, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight(), false);
 
     private boolean hasWon = false;
     private float newTimer;
-    private boolean reverse;
 
 
 
@@ -346,12 +374,11 @@ public class SceneModel extends WorldController implements ContactListener {
         setComplete(false);
         setFailure(false);
         world.setContactListener(this);
-        sensorFixtures = new ObjectSet<>();
-        JsonReader json = new JsonReader();
-        jsonData = json.parse(Gdx.files.internal(levelJson));
+        level = new LevelData(Gdx.files.internal(levelJson));
+        levelName = levelJson;
         paused = false;
-        numTilesY = jsonData.get("layers").get(0).get("height").asFloat();
-        numTilesX = jsonData.get("layers").get(0).get("width").asFloat();
+        numTilesY = level.getHeight();
+        numTilesX = level.getWidth();
         timer = 30;
         float tileSideLength = 256;
         maxY = numTilesY * tileSideLength;
@@ -369,8 +396,6 @@ public class SceneModel extends WorldController implements ContactListener {
         colors[4] = new Color(1f,1f,1f,0f);
         intervals[4] = 1.0f;
         blackTextureAlpha = -0.2f;
-        effect = new ParticleEffect();
-        effect.load(Gdx.files.internal("particle.p"),Gdx.files.internal(""));
     }
     /**
      * Gather the assets for this controller.
@@ -380,6 +405,8 @@ public class SceneModel extends WorldController implements ContactListener {
      * @param directory	Reference to global asset manager.
      */
     public void gatherAssets(AssetDirectory directory) {
+        // The snapshot refers to textures and clips from the last gather
+        snapshot = null;
         whiteTexture = new TextureRegion(directory.getEntry("polar:white", Texture.class));
         blackTexture = new TextureRegion(directory.getEntry("polar:black", Texture.class));
         groundTexture = new TextureRegion(directory.getEntry("polar:ground", Texture.class));
@@ -416,9 +443,14 @@ public class SceneModel extends WorldController implements ContactListener {
         polarZZZTexture = new TextureRegion(directory.getEntry("polar:ZZZ",Texture.class));
         polarIceTexture = new TextureRegion(directory.getEntry("polar:ice",Texture.class));
 
-        levelMusic = directory.getEntry("soundtracks:level_track", Music.class);
-        levelMusicNight = directory.getEntry("soundtracks:level_track_night", Music.class);
-        levelMusicTense = directory.getEntry("soundtracks:level_track_tense", Music.class);
+        // The sources are reloaded with the level, so rebuild the mix around them
+        if (levelMusic != null) {
+            levelMusic.dispose();
+        }
+        levelMusic = new LayeredMusic();
+        levelMusic.addLayer("base", directory.getEntry("soundtracks:level_track", AudioSource.class), 1);
+        levelMusic.addLayer(MUSIC_NIGHT, directory.getEntry("soundtracks:level_track_night", AudioSource.class), 0);
+        levelMusic.addLayer(MUSIC_TENSE, directory.getEntry("soundtracks:level_track_tense", AudioSource.class), 0);
 
         gatherAnimations(directory);
         gatherTiles(directory);
@@ -492,6 +524,27 @@ public class SceneModel extends WorldController implements ContactListener {
             sunAnimations[i] = new FilmStrip(sunAnimation.getTexture(), 5, 16);
             sunAnimations[i].setFrame(0);
         }
+
+        // Most animations advance every other update
+        float twoSteps = 2 * ANIMATION_STEP;
+        playerWalkClip = new AnimationClip(playerWalkFilm, 1, 23, twoSteps, PlayMode.LOOP);
+        playerIdleClip = new AnimationClip(playerIdleFilm, 1, 45, twoSteps, PlayMode.LOOP);
+        playerCaughtClip = new AnimationClip(playerCaughtFilm, 0, 9, twoSteps, PlayMode.ONCE);
+        playerDanceClip = new AnimationClip(playerCaughtFilm, 1, 7, 3 * ANIMATION_STEP, PlayMode.PING_PONG);
+        playerRescueClip = new AnimationClip(playerRescueFilm, 0, 50, twoSteps, PlayMode.ONCE);
+
+        salmonWalkClip = new AnimationClip(salmonUprightWalkFilm, 0, 23, twoSteps, PlayMode.LOOP);
+        salmonIdleClip = new AnimationClip(salmonIdleFilm, 0, 45, ANIMATION_STEP, PlayMode.LOOP);
+        salmonConfusedClip = new AnimationClip(salmonConfusedFilm, 0, 24, ANIMATION_STEP, PlayMode.ONCE);
+        salmonStunnedClip = new AnimationClip(salmonConfusedFilm, 0, 29, ANIMATION_STEP, PlayMode.LOOP);
+        salmonDetectedClip = new AnimationClip(salmonDetectedFilm, 0, 29, twoSteps, PlayMode.LOOP);
+        salmonDiveClip = new AnimationClip(salmonDiveFilm, 0, ENEMY_DIVE_FRAMES, ANIMATION_STEP, PlayMode.ONCE);
+
+        treeShakeClip = new AnimationClip(treeShakeFilm, 0, 15, twoSteps, PlayMode.ONCE);
+        cavePortalClip = new AnimationClip(cavePortalFilm, 0, 14, twoSteps, PlayMode.LOOP);
+        caveZZZLoopClip = new AnimationClip(caveZZZLoopFilm, 0, 30, twoSteps, PlayMode.LOOP);
+        smolUrsaIdleClip = new AnimationClip(smolUrsaIdleFilm, 0, 46, twoSteps, PlayMode.LOOP);
+        smolUrsaRescueClip = new AnimationClip(smolUrsaRescueFilm, 0, 73, twoSteps, PlayMode.ONCE);
     }
 
     /**
@@ -565,32 +618,15 @@ public class SceneModel extends WorldController implements ContactListener {
     public void reset() {
         Vector2 gravity = new Vector2(0,0 );
         blackTextureAlpha = -2f;
-        for(Obstacle obj : objects) {
-            obj.deactivatePhysics(world);
-        }
-        effect.reset();
+        // Return the old snow to the pool and start a fresh one
+        ParticleService.get().free(effect);
+        effect = ParticleService.get().obtain(SNOW_EFFECT, true);
+        effect.setPosition(canvas.getWidth() / 2f, canvas.getHeight());
         startWin = false;
         startLose = false;
-        // Dispose and clear and references to objects
-        objects.clear();
         addQueue.clear();
-        dynamicObjects.clear();
-        groundDecorations.clear();
-        interactableCaves.clear();
-        interactableTrees.clear();
-        shadowController.reset();
-        oceanDecorations.clear();
-        world.dispose();
-        reverse = false;
-        // Rewind all film strips to the beginning
-        cavePortalFilm.setFrame(0);
+        // Objects keep their own animation cursors; only the shared strips need rewinding
         caveZZZFilm.setFrame(0);
-        playerWalkFilm.setFrame(0);
-        playerIdleFilm.setFrame(0);
-        playerRescueFilm.setFrame(0);
-        treeShakeFilm.setFrame(0);
-        smolUrsaIdleFilm.setFrame(0);
-        smolUrsaRescueFilm.setFrame(0);
 
         colorNextPointer = 1;
         currentFrame = 0;
@@ -600,6 +636,7 @@ public class SceneModel extends WorldController implements ContactListener {
         interactedCave = null;
         player_dive_anim = 0;
         hasWon = false;
+        levelTime = 0;
         barYOffset = 0;
         caughtBarXOffset = 0;
         ursaCaughtXOffset = 0;
@@ -609,21 +646,91 @@ public class SceneModel extends WorldController implements ContactListener {
             sunAnimations[i].setFrame(0);
         }
 
-        controls.clear();
-
-        world = new World(gravity,false);
-        world.setContactListener(this);
         setComplete(false);
         setFailure(false);
-        levelMusicNight.stop();
         levelMusic.stop();
-        levelMusicTense.stop();
-        levelMusicNight.setLooping(true);
-        levelMusicTense.setLooping(true);
-        levelMusicNight.setVolume(0);
-        levelMusicTense.setVolume(0);
+        levelMusic.setLayerVolume(MUSIC_NIGHT, 0);
+        levelMusic.setLayerVolume(MUSIC_TENSE, 0);
         paused = false;
+
+        // Retrying the same level just puts everything back where it started
+        if (snapshot != null) {
+            restartLevel();
+            return;
+        }
+
+        for(Obstacle obj : objects) {
+            obj.deactivatePhysics(world);
+        }
+        // Dispose and clear and references to objects
+        activity.clear();
+        mover.clear();
+        objects.clear();
+        dynamicObjects.clear();
+        groundDecorations.clear();
+        interactableCaves.clear();
+        interactableTrees.clear();
+        shadowController.reset();
+        oceanDecorations.clear();
+        controls.clear();
+        world.dispose();
+
+        world = new World(gravity,false);
+        world.setContactListener(this);
         populateLevel();
+        buildMover();
+        snapshot = new LevelSnapshot(objects, controls, interactableTrees, interactableCaves, shadowController);
+    }
+
+    /**
+     * Gives the character mover the scenery and the characters of the level
+     */
+    private void buildMover() {
+        for (Obstacle obj : objects) {
+            if (obj instanceof PolygonObstacle) {
+                mover.addScenery((PolygonObstacle) obj);
+            }
+        }
+        mover.addCharacter(ursa, ursa.getWidth(), ursa.getHeight());
+        for (int i = 0; enemies != null && i < enemies.length; i++) {
+            if (enemies[i] != null) {
+                mover.addCharacter(enemies[i], enemies[i].getWidth(), enemies[i].getHeight());
+            }
+        }
+    }
+
+    /**
+     * Restarts the level from the snapshot taken when it was populated.
+     *
+     * Nothing is parsed or rebuilt.  The bodies stay in the world and are moved back
+     * to where they started, and every animation starts over.
+     */
+    private void restartLevel() {
+        activity.wakeAll();
+        snapshot.restore(interactableTrees, interactableCaves, shadowController);
+
+        ursa.setMovement(0, 0);
+        ursa.setIsFacingRight(true);
+        ursa.setInShadow(false);
+        ursa.resumeDrawing();
+        ursa.getAnimation().play(playerIdleClip);
+        ursa.getAnimation().restart();
+        for (int i = 0; enemies != null && i < enemies.length; i++) {
+            if (enemies[i] != null) {
+                enemies[i].getAnimation().play(salmonWalkClip);
+                enemies[i].getAnimation().restart();
+            }
+        }
+        for (Cave cave : interactableCaves) {
+            cave.getPortalAnimation().play(cavePortalClip);
+            cave.getPortalAnimation().restart();
+            cave.getZZZAnimation().play(caveZZZLoopClip);
+            cave.getZZZAnimation().restart();
+            cave.setPortalTexture(cave.getPortalAnimation().getRegion());
+            cave.setZZZTexture(cave.getZZZAnimation().getRegion());
+        }
+        smolUrsaAnimation.play(smolUrsaIdleClip);
+        smolUrsaAnimation.restart();
     }
 
 
@@ -637,15 +744,145 @@ public class SceneModel extends WorldController implements ContactListener {
 
         findTileIndices();
         renderShadows();
+        // Ursa comes first, since the house needs her height
         renderUrsa();
-        renderWalls();
+
+        // Build the scenery on the worker threads.  These tasks only read the level
+        // data; they do not touch the world, OpenGL, or any list of this controller.
+        final int[] tileData = level.getTiles();
+        tiles = new int[(int) numTilesX][(int) numTilesY];
+        Array<Callable<LayerBuild>> tasks = new Array<>();
+        int bands = Math.min(WorkerPool.get().size(), (int) numTilesY);
+        for (int b = 0; b < bands; b++) {
+            // Bands run from the top row down, the order the walls were always added in
+            final int rowHi = (int) numTilesY - 1 - b * (int) numTilesY / bands;
+            final int rowLo = (int) numTilesY - (b + 1) * (int) numTilesY / bands;
+            tasks.add(() -> buildWalls(tileData, rowLo, rowHi));
+        }
+        final ObjectGroup treeLayer = level.getObjects(3);
+        final ObjectGroup caveLayer = level.getObjects(2);
+        final ObjectGroup objectLayer = level.getObjects(4);
+        final ObjectGroup iceLayer = level.getObjects(5);
+        final ObjectGroup decorationLayer = level.getObjects(1);
+        tasks.add(() -> buildTrees(treeLayer));
+        tasks.add(() -> buildCaves(caveLayer));
+        tasks.add(() -> buildGameObjects(objectLayer));
+        tasks.add(() -> buildIce(iceLayer));
+        tasks.add(() -> buildDecorations(decorationLayer));
+        Array<LayerBuild> built = WorkerPool.get().invokeAll(tasks);
+
+        // Create the bodies on this thread, in the same order as always
+        for (int b = 0; b < bands; b++) {
+            commit(built.get(b));
+        }
         renderEnemies();
-        renderTrees();
-        renderCaves();
+        commit(built.get(bands));
+        commit(built.get(bands + 1));
         renderSmolUrsa();
-        renderGameObjects();
-        renderIce();
-        renderDecorations();
+        commit(built.get(bands + 2));
+        commit(built.get(bands + 3));
+        commit(built.get(bands + 4));
+        // Since decoration positions never change, we only need to sort once
+        decorations.sort(decorationComparator);
+    }
+
+    /**
+     * The objects built for one layer (or part of one) on a worker thread.
+     *
+     * Nothing in here is in the world or in any list of the controller yet.  That
+     * happens in commit(), on the GL thread.
+     */
+    private static class LayerBuild {
+        /** The obstacles, in the order they should be added */
+        final Array<PolygonObstacle> obstacles = new Array<>();
+        /** The shadow of each obstacle (null if it has none) */
+        final Array<ShadowModel> shadows = new Array<>();
+        /** The decorations, in the order they should be added */
+        final Array<Decoration> decorations = new Array<>();
+        /** The list each decoration belongs in (one of the DECORATION constants) */
+        final IntArray decorationKinds = new IntArray();
+
+        /**
+         * Adds an obstacle and its shadow (which may be null)
+         *
+         * @param obj       The obstacle
+         * @param shadow    The shadow of the obstacle
+         */
+        void add(PolygonObstacle obj, ShadowModel shadow) {
+            obstacles.add(obj);
+            shadows.add(shadow);
+        }
+
+        /**
+         * Adds a decoration
+         *
+         * @param decoration    The decoration
+         * @param kind          The list the decoration belongs in
+         */
+        void add(Decoration decoration, int kind) {
+            decorations.add(decoration);
+            decorationKinds.add(kind);
+        }
+    }
+
+    /** A decoration drawn with the other objects */
+    private static final int DECORATION_REGULAR = 0;
+    /** A decoration drawn on the ground */
+    private static final int DECORATION_GROUND = 1;
+    /** A decoration drawn in the ocean */
+    private static final int DECORATION_OCEAN = 2;
+
+    /**
+     * Adds the objects built on a worker thread to the world and the controller lists.
+     *
+     * @param build The objects to add
+     */
+    private void commit(LayerBuild build) {
+        for (int i = 0; i < build.obstacles.size; i++) {
+            PolygonObstacle obj = build.obstacles.get(i);
+            addObject(obj);
+
+            ShadowModel shadow = build.shadows.get(i);
+            if (shadow != null) {
+                shadowController.addShadow(shadow);
+                shadow.rotateDirection(shadowStartingRotation - 90);
+            }
+
+            if (obj instanceof Moveable) {
+                activity.add(obj, false);
+                continue;
+            } else if (obj instanceof Tree) {
+                if (((Tree) obj).canShake()) {
+                    interactableTrees.add((Tree) obj);
+                }
+            } else if (obj instanceof Cave) {
+                // The clips share film strips, so the cursors are started here
+                Cave cave = (Cave) obj;
+                cave.getPortalAnimation().play(cavePortalClip);
+                cave.getZZZAnimation().play(caveZZZLoopClip);
+                cave.setPortalTexture(cave.getPortalAnimation().getRegion());
+                cave.setZZZTexture(cave.getZZZAnimation().getRegion());
+                interactableCaves.add(cave);
+            }
+
+            // ===================
+            genericObstacles.add(new GenericObstacle(obj.getX(), obj.getY(),
+                    obj.getWidth(), obj.getHeight()));
+            // ===================
+        }
+
+        for (int i = 0; i < build.decorations.size; i++) {
+            switch (build.decorationKinds.get(i)) {
+                case DECORATION_GROUND:
+                    groundDecorations.add(build.decorations.get(i));
+                    break;
+                case DECORATION_OCEAN:
+                    oceanDecorations.add(build.decorations.get(i));
+                    break;
+                default:
+                    decorations.add(build.decorations.get(i));
+            }
+        }
     }
 
 
@@ -662,10 +899,15 @@ public class SceneModel extends WorldController implements ContactListener {
     public boolean preUpdate(float dt) {
 
 
-            effect.update(dt);
+            if (effect != null) {
+                ParticleService.get().update(effect, dt);
+            }
             if (!super.preUpdate(dt)) {
                 return false;
             }
+            if (InputController.getInstance().didMover()) {
+                mover.setEnabled(!mover.isEnabled());
+            }
 
             if (!isFailure() && ursa.getY() < -1) {
                 setFailure(true);
@@ -677,90 +919,87 @@ public class SceneModel extends WorldController implements ContactListener {
         }
 
 
+    /**
+     * Advances the cursor by the shared animation step and shows its frame on the object.
+     *
+     * The texture is only reassigned when the region actually changes, since polygon
+     * obstacles rebuild their polygon region in setTexture.
+     *
+     * @param obj       The object to animate
+     * @param cursor    The animation playback state of the object
+     */
+    private void animate(SimpleObstacle obj, AnimationCursor cursor) {
+        cursor.update(ANIMATION_STEP);
+        showFrame(obj, cursor);
+    }
+
+    /**
+     * Shows the current frame of the cursor on the object without advancing it.
+     *
+     * @param obj       The object to animate
+     * @param cursor    The animation playback state of the object
+     */
+    private void showFrame(SimpleObstacle obj, AnimationCursor cursor) {
+        TextureRegion region = cursor.getRegion();
+        if (region != null && obj.getTexture() != region) {
+            obj.setTexture(region);
+        }
+    }
+
+    /**
+     * Animates the enemies.
+     * Each enemy has its own cursor, so enemies in the same state are not in lockstep.
+     */
     private void animateEnemies(){
         for (AIController i : controls) {
             if (i != null) {
+                Enemy enemy = i.getEnemy();
+                AnimationCursor cursor = enemy.getAnimation();
                 if (i.isWon()) {
-                    salmonDiveFilm.setFrame(player_dive_anim);
-                    i.getEnemy().setTexture(salmonDiveFilm);
+                    // The dive is driven by the shared dive counter, not by time
+                    cursor.play(salmonDiveClip);
+                    cursor.setFrame(player_dive_anim);
+                    showFrame(enemy, cursor);
                     player_dive_anim = Math.min(player_dive_anim + 1, ENEMY_DIVE_FRAMES);
                     player_caught = true;
                 } else if (i.isSurprised()) {
-
-                    salmonDetectedFilm.setFrame(salmonDetectedIndex);
-                    i.getEnemy().setTexture(salmonDetectedFilm);
-                    if (currentFrame % 2 == 0) {
-                        salmonDetectedIndex = (salmonDetectedIndex + 1) % 30;
-                    }
+                    cursor.play(salmonDetectedClip);
+                    animate(enemy, cursor);
                 } else if (i.isConfused() || i.isStunned() || i.earlyLooking()) {
-                    salmonConfusedFilm.setFrame(i.get_confused_anim_index());
-                    i.getEnemy().setTexture(salmonConfusedFilm);
-                    i.inc_anim_index();
-                } else if (i.getEnemy().getVX() == 0 && i.getEnemy().getVY() == 0) {
-                    salmonIdleFilm.setFrame(i.get_idle_anim_index());
-                    i.getEnemy().setTexture(salmonIdleFilm);
-//                    if (currentFrame % 2 == 0) {
-//                        salmonIdleAnimIndex = (salmonIdleAnimIndex + 1) % 46;
-//                    }
-                    i.inc_idle_anim_index();
+                    cursor.play(i.isStunned() ? salmonStunnedClip : salmonConfusedClip);
+                    animate(enemy, cursor);
+                } else if (enemy.getVX() == 0 && enemy.getVY() == 0) {
+                    cursor.play(salmonIdleClip);
+                    animate(enemy, cursor);
                 } else {
-                    i.reset_anim_index();
-                    salmonDetectedIndex = 0;
-                    i.reset_dive_anim_index();
-                    i.reset_idle_anim_index();
-                    salmonUprightWalkFilm.setFrame(salmonWalkAnimIndex);
-                    i.getEnemy().setTexture(salmonUprightWalkFilm);
+                    cursor.play(salmonWalkClip);
+                    animate(enemy, cursor);
                 }
             }
         }
-
-        if (currentFrame % 2 == 0) {
-            salmonWalkAnimIndex = (salmonWalkAnimIndex + 1) % 24;
-        }
     }
 
     /**
      * Animates the player.
      * If the player is moving, uses the walking animation and if not walking, plays idling animation
-     * Uses ursaBeganWalkingFrame and ursaBeganIdlingFrame to reset animation speeds
+     * Switching clips restarts the cursor, so each state starts from its first frame
      * If time is skipping, we should also animating Ursa as walking since she's only drawn when walking to cave
      */
     private void animatePlayerModel(){
-        // If the player is moving
+        AnimationCursor cursor = ursa.getAnimation();
         if (player_caught && player_dive_anim - DIVE_ANIM_DIFF >= 0) {
-
-            playerCaughtFilm.setFrame(Math.min(9, player_dive_anim - DIVE_ANIM_DIFF));
-            ursa.setTexture(playerCaughtFilm);
+            // The fall is driven by the enemy dive, not by time
+            cursor.play(playerCaughtClip);
+            cursor.setFrame(player_dive_anim - DIVE_ANIM_DIFF);
+            showFrame(ursa, cursor);
         } else if(ursa.getXMovement() != 0 || ursa.getYMovement() != 0 || isTimeSkipping){
-            // If the player was idling, now changing states
-            if(!ursaCurrentState) {
-                ursaCurrentState = true;
-                ursaBeganWalkingFrame = currentFrame;
-                playerIdleFilm.setFrame(0);
-            }
-
-            if((currentFrame - ursaBeganWalkingFrame) % 2 == 0) {
-                if(playerWalkFilm.getFrame() == 23) {
-                    playerWalkFilm.setFrame(0);
-                }
-                playerWalkFilm.setFrame(playerWalkFilm.getFrame() + 1);
-            }
-            ursa.setTexture(playerWalkFilm);
-        // If the player is not moving
+            // If the player is moving
+            cursor.play(playerWalkClip);
+            animate(ursa, cursor);
         } else {
-            // If the player changed states
-            if(ursaCurrentState) {
-                ursaCurrentState = false;
-                ursaBeganIdlingFrame = currentFrame;
-                playerWalkFilm.setFrame(0);
-            }
-            if((currentFrame - ursaBeganIdlingFrame) % 2 == 0) {
-                if(playerIdleFilm.getFrame() == 45){
-                    playerIdleFilm.setFrame(0);
-                }
-                playerIdleFilm.setFrame(playerIdleFilm.getFrame() + 1);
-            }
-            ursa.setTexture(playerIdleFilm);
+            // If the player is not moving
+            cursor.play(doGriddy ? playerDanceClip : playerIdleClip);
+            animate(ursa, cursor);
         }
     }
 
@@ -773,16 +1012,13 @@ public class SceneModel extends WorldController implements ContactListener {
             return;
         }
 
-        if((currentFrame - beganShakingTreeFrame) % 2 == 0) {
-            if(treeShakeFilm.getFrame() == 15){
-                treeShakeFilm.setFrame(0);
-                shakingTree.setTexture(treeTextures[1]);
-                shakingTree = null;
-                return;
-            }
-            treeShakeFilm.setFrame(treeShakeFilm.getFrame() + 1);
+        AnimationCursor cursor = shakingTree.getAnimation();
+        if (cursor.isFinished()) {
+            shakingTree.setTexture(treeTextures[1]);
+            shakingTree = null;
+            return;
         }
-        shakingTree.setTexture(treeShakeFilm);
+        animate(shakingTree, cursor);
     }
 
     /**
@@ -790,20 +1026,11 @@ public class SceneModel extends WorldController implements ContactListener {
      * Once they become non-interactable, they should not animate.
      */
     private void animateCaves() {
-        if(currentFrame % 2 == 0) {
-            cavePortalFilm.setFrame(cavePortalFilm.getFrame() + 1);
-            if(cavePortalFilm.getFrame() == 15){
-                cavePortalFilm.setFrame(0);
-            }
-            caveZZZLoopFilm.setFrame(caveZZZLoopFilm.getFrame() + 1);
-            if(caveZZZLoopFilm.getFrame() == 31){
-                caveZZZLoopFilm.setFrame(0);
-            }
-        }
-
         for(Cave cave: interactableCaves) {
-            cave.setZZZTexture(caveZZZLoopFilm);
-            cave.setPortalTexture(cavePortalFilm);
+            cave.getPortalAnimation().update(ANIMATION_STEP);
+            cave.getZZZAnimation().update(ANIMATION_STEP);
+            cave.setPortalTexture(cave.getPortalAnimation().getRegion());
+            cave.setZZZTexture(cave.getZZZAnimation().getRegion());
         }
     }
 
@@ -811,13 +1038,8 @@ public class SceneModel extends WorldController implements ContactListener {
      * Animates smol ursa to idle.
      */
     private void animateSmolUrsa() {
-        if(currentFrame % 2 == 0) {
-            smolUrsaIdleFilm.setFrame(smolUrsaIdleFilm.getFrame() + 1);
-            if(smolUrsaIdleFilm.getFrame() == 47){
-                smolUrsaIdleFilm.setFrame(0);
-            }
-        }
-        goal.setTexture(smolUrsaIdleFilm);
+        smolUrsaAnimation.play(smolUrsaIdleClip);
+        animate(goal, smolUrsaAnimation);
     }
 
 
@@ -871,24 +1093,21 @@ public class SceneModel extends WorldController implements ContactListener {
             return;
         }
 
+        if (!hasWon && !startLose) {
+            levelTime += dt;
+        }
+
         // If we've won, perform the rescue animations
         if (hasWon) {
             ursa.setVX(0);
             ursa.setVY(0);
             // Animate Ursa's rescue and then
-            if (playerRescueFilm.getFrame() < 50) {
-                if (currentFrame % 2 == 0) {
-                    playerRescueFilm.setFrame(playerRescueFilm.getFrame() + 1);
-                }
-                ursa.setTexture(playerRescueFilm);
-                ursaBeganIdlingFrame = currentFrame;
-            }
+            ursa.getAnimation().play(playerRescueClip);
+            animate(ursa, ursa.getAnimation());
 
-            if (smolUrsaRescueFilm.getFrame() < 73) {
-                if (currentFrame % 2 == 0) {
-                    smolUrsaRescueFilm.setFrame(smolUrsaRescueFilm.getFrame() + 1);
-                }
-                goal.setTexture(smolUrsaRescueFilm);
+            smolUrsaAnimation.play(smolUrsaRescueClip);
+            if (!smolUrsaAnimation.isFinished()) {
+                animate(goal, smolUrsaAnimation);
                 return;
             } else {
                 setComplete(true);
@@ -902,10 +1121,10 @@ public class SceneModel extends WorldController implements ContactListener {
         if (timeRatio > 0.5) {
             colorNextPointer = 1;
             if (!isComplete()) {
-                levelMusicNight.setVolume(Math.max(0, levelMusicNight.getVolume() + 0.01f));
+                levelMusic.setLayerTarget(MUSIC_NIGHT, 1, MUSIC_FADE);
             }
         } else {
-            levelMusicNight.setVolume(Math.max(0, levelMusicNight.getVolume() - 0.01f));
+            levelMusic.setLayerTarget(MUSIC_NIGHT, 0, MUSIC_FADE);
             // Update colorNextPointer to next interval
             if (timeRatio > intervals[colorNextPointer]) {
                 colorNextPointer++;
@@ -916,15 +1135,12 @@ public class SceneModel extends WorldController implements ContactListener {
 
         // Center the camera around Ursa
         canvas.moveCam(ursa.getPosition().x, ursa.getPosition().y);
-        effect.getEmitters().first().setPosition(canvas.getWidth() / 2, canvas.getHeight());
-        effect.start();
+        // Only simulate the bodies near Ursa or the camera
+        activity.update(ursa.getX(), ursa.getY(), canvas.getCamera(), scale);
 
         // Play the music if it is not
         if (!levelMusic.isPlaying()) {
-            levelMusicNight.play();
-            levelMusicTense.play();
             levelMusic.play();
-            levelMusic.setLooping(true);
         }
 
         // Always animate the cave portals even if time is fast forwarding
@@ -994,11 +1210,16 @@ public class SceneModel extends WorldController implements ContactListener {
         animateTree();
         animateSmolUrsa();
 
+        // Ask the shadow index (not Box2D) whether Ursa is standing in a shadow
+        ursa.setInShadow(shadowController.isInShadow(ursa.getX(), ursa.getY(),
+                ursa.getShadowProbeWidth(), ursa.getShadowProbeHeight()));
+
         boolean alerted = false;
         for (AIController c : controls) {
             c.getAction();
             Enemy thisEnemy = c.getEnemy();
-            thisEnemy.setAlerted(thisEnemy.isPlayerInLineOfSight(world, ursa));
+            // Deactivated enemies are too far away to see Ursa
+            thisEnemy.setAlerted(thisEnemy.isActive() && thisEnemy.isPlayerInLineOfSight(world, ursa));
             if (!alerted && thisEnemy.isAlerted()) {
                 alerted = true;
             }
@@ -1014,22 +1235,23 @@ public class SceneModel extends WorldController implements ContactListener {
 
         }
 
+        // Deactivated enemies patrol without Box2D
+        activity.step(WORLD_STEP);
+
         for (Enemy enemy : enemies) {
             if (enemy != null) {
-
-                if (enemy.isPlayerInLineOfSight(world, ursa)) {
+                boolean awake = enemy.isActive();
+                if (awake && enemy.isPlayerInLineOfSight(world, ursa)) {
                     enemy.getPlayerPos(ursa.getPosition());
                 }
                 enemy.setInShadow(ursa.isInShadow());
-                enemy.createSightCone(world);
+                if (awake) {
+                    enemy.createSightCone(world);
+                }
             }
         }
 
-        if (alerted) {
-            levelMusicTense.setVolume(Math.min(levelMusicTense.getVolume() + 0.01f, 1f));
-        } else {
-            levelMusicTense.setVolume(Math.max(levelMusicTense.getVolume() - 0.01f, 0f));
-        }
+        levelMusic.setLayerTarget(MUSIC_TENSE, alerted ? 1 : 0, MUSIC_FADE);
 
         canvas.clear();
 
@@ -1040,40 +1262,89 @@ public class SceneModel extends WorldController implements ContactListener {
             ursa.setVX(0);
             ursa.setVY(0);
         }
+    }
 
-        if(doGriddy){
-
-            ursa.setTexture(playerCaughtFilm);
-            if(playerCaughtFilm.getFrame() <1 ){
-
-                reverse = false;
-                playerCaughtFilm.setFrame(1);
-            }
-            if(playerCaughtFilm.getFrame() > 7){
-                playerCaughtFilm.setFrame(7);
-                reverse = true;
-            }
+    /**
+     * Steps the world, letting the character mover resolve scenery collisions.
+     *
+     * @param dt	Number of seconds since last animation frame
+     */
+    @Override
+    public void postUpdate(float dt) {
+        // Nothing moves while paused, so there is nothing to simulate
+        if (paused) {
+            return;
+        }
+        mover.beginStep();
+        super.postUpdate(dt);
+        mover.endStep();
+    }
 
-            if(playerCaughtFilm.getFrame() >=1 && playerCaughtFilm.getFrame()<=7 && !reverse && timer % 3 == 0){
+    /**
+     * Stops the level music and its mixing thread.
+     *
+     * Call this before releasing the asset group of the level, since the mixing
+     * thread reads the level tracks until it is stopped.
+     */
+    public void stopMusic() {
+        if (levelMusic != null) {
+            levelMusic.stop();
+        }
+    }
 
-                playerCaughtFilm.setFrame(playerCaughtFilm.getFrame()+1);
-            }
-            if(playerCaughtFilm.getFrame() >=1 && playerCaughtFilm.getFrame()<=7 && reverse && timer % 3 == 0){
+    @Override
+    public void hide() {
+        super.hide();
+        // Release the frozen frame of the pause menu
+        if (canvas != null) {
+            canvas.setWorldFrozen(false);
+        }
+        levelMusic.stop();
+        ParticleService.get().free(effect);
+        effect = null;
+    }
 
-                playerCaughtFilm.setFrame(playerCaughtFilm.getFrame()-1);
-            }
+    /**
+     * Returns the file name of the level, which is its name in the save data
+     *
+     * @return the file name of the level
+     */
+    public String getLevelName() {
+        return levelName;
+    }
 
+    /**
+     * Returns the time spent on this attempt at the level, in seconds
+     *
+     * The clock stops while the game is paused, and once Ursa reaches the goal.
+     *
+     * @return the time spent on this attempt at the level
+     */
+    public float getLevelTime() {
+        return levelTime;
+    }
 
+    /**
+     * Returns the number of times Ursa was detected on this attempt at the level
+     *
+     * @return the number of times Ursa was detected on this attempt
+     */
+    public int getDetections() {
+        int total = 0;
+        for (AIController c : controls) {
+            total += c.getDetections();
         }
-
+        return total;
     }
 
     @Override
-    public void hide() {
-        super.hide();
-        levelMusic.stop();
-        levelMusicTense.stop();
-        levelMusicNight.stop();
+    public void dispose() {
+        // Stop the mixing thread before the world goes away
+        if (levelMusic != null) {
+            levelMusic.dispose();
+            levelMusic = null;
+        }
+        super.dispose();
     }
 
     /**
@@ -1128,7 +1399,8 @@ public class SceneModel extends WorldController implements ContactListener {
         }
         tree.putOnShakeCooldown();
         shakingTree = tree;
-        beganShakingTreeFrame = currentFrame;
+        tree.getAnimation().play(treeShakeClip);
+        tree.getAnimation().restart();
 
         for (Enemy enemy : enemies) {
             float enemyStunDistance = 10;
@@ -1181,83 +1453,54 @@ public class SceneModel extends WorldController implements ContactListener {
     /**
      * Callback method for the start of a collision
      * This method is called when we first get a collision between two objects.
-     * We use this method to see if Ursa is in shadow.
-     * Secondarily, it's used to see if Ursa reaches the goal.
+     * We use this method to see if Ursa reaches the goal, and to freeze enemies on ice.
+     * (Shadows are not physics bodies; see ShadowController.isInShadow)
+     *
+     * The pair is identified by the collision categories of the two bodies.  Pairs
+     * that the game ignores are mostly filtered out before they get here.
      *
      * @param contact The two bodies that collided
      */
     public void beginContact(Contact contact) {
-        Fixture fix1 = contact.getFixtureA();
-        Fixture fix2 = contact.getFixtureB();
-
-        Body body1 = fix1.getBody();
-        Body body2 = fix2.getBody();
-
-        Object fd1 = fix1.getUserData();
-        Object fd2 = fix2.getUserData();
-
-        try {
-            Obstacle bd1 = (Obstacle)body1.getUserData();
-            Obstacle bd2 = (Obstacle)body2.getUserData();
-
-            if ((ursa.getSensorName().equals(fd2) && bd1.getName().equals("shadow")) ||
-                    (ursa.getSensorName().equals(fd1) && bd2.getName().equals("shadow"))) {
-                ursa.setInShadow(true);
-                sensorFixtures.add(ursa == bd1 ? fix2 : fix1);
-            }
+        Body body1 = contact.getFixtureA().getBody();
+        Body body2 = contact.getFixtureB().getBody();
 
+        int pair = CollisionCategory.of(body1) | CollisionCategory.of(body2);
+        if (pair == CollisionCategory.PLAYER_GOAL) {
             // Check for win condition
-            if ((bd1 == ursa && bd2 == goal) || (bd1 == goal && bd2 == ursa)) {
-                ursa.setIsFacingRight(goal.getX() - ursa.getX() > 0);
-                hasWon = true;
-                levelMusic.stop();
-                levelMusicTense.stop();
-                levelMusicNight.stop();
-            }
-            if(((bd1.getName().contains("enemy")) && bd2.getName().contains("ice")) || ((bd1.getName().contains("ice")) && bd2.getName().contains("enemy"))){
-                bd1.setLinearDamping(10000);
-                bd2.setLinearDamping(10000);
-                bd2.setVX(0);
-                bd2.setVY(0);
-                bd1.setVY(0);
-                bd1.setVX(0);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            ursa.setIsFacingRight(goal.getX() - ursa.getX() > 0);
+            hasWon = true;
+            levelMusic.stop();
+        } else if (pair == CollisionCategory.ENEMY_ICE) {
+            Obstacle bd1 = (Obstacle) body1.getUserData();
+            Obstacle bd2 = (Obstacle) body2.getUserData();
+            bd1.setLinearDamping(10000);
+            bd2.setLinearDamping(10000);
+            bd2.setVX(0);
+            bd2.setVY(0);
+            bd1.setVY(0);
+            bd1.setVX(0);
         }
-
-
     }
 
     /**
      * Callback method for the start of a collision
      * This method is called when two objects cease to touch.
-     * The main use of this method is to determine when Ursa exits a shadow.
+     * The main use of this method is to release enemies stuck on ice.
      */
     public void endContact(Contact contact) {
-        Fixture fix1 = contact.getFixtureA();
-        Fixture fix2 = contact.getFixtureB();
-
-        Body body1 = fix1.getBody();
-        Body body2 = fix2.getBody();
-
-        Object fd1 = fix1.getUserData();
-        Object fd2 = fix2.getUserData();
-
-        Obstacle bd1 = (Obstacle) body1.getUserData();
-        Obstacle bd2 = (Obstacle) body2.getUserData();
-        if(bd1.getLinearDamping() > 100){
-            bd1.setLinearDamping(0);
-        }
-        if(bd2.getLinearDamping() > 100){
-            bd1.setLinearDamping(0);
-        }
-
-        if ((ursa.getSensorName().equals(fd2) && bd1.getName().equals("shadow")) ||
-                (ursa.getSensorName().equals(fd1) && bd2.getName().equals("shadow"))) {
-            sensorFixtures.remove(ursa == bd1 ? fix2 : fix1);
-            if (sensorFixtures.size == 0) {
-                ursa.setInShadow(false);
+        Body body1 = contact.getFixtureA().getBody();
+        Body body2 = contact.getFixtureB().getBody();
+
+        int pair = CollisionCategory.of(body1) | CollisionCategory.of(body2);
+        if (pair == CollisionCategory.ENEMY_ICE) {
+            Obstacle bd1 = (Obstacle) body1.getUserData();
+            Obstacle bd2 = (Obstacle) body2.getUserData();
+            if(bd1.getLinearDamping() > 100){
+                bd1.setLinearDamping(0);
+            }
+            if(bd2.getLinearDamping() > 100){
+                bd2.setLinearDamping(0);
             }
         }
     }
@@ -1319,17 +1562,19 @@ public class SceneModel extends WorldController implements ContactListener {
         // Draw a tinting over everything
         canvas.draw(whiteTexture,backgroundColor, canvas.getCameraX() - canvas.getWidth() / 2f, canvas.getCameraY() - canvas.getHeight() / 2f, canvas.getWidth(), canvas.getHeight());
         super.updateTinting(backgroundColor);
-
-//        fb.begin();
-//        Gdx.gl.glClearColor(1, 1, 1, 1);
-//        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
-        // Draws shadows for static objects (trees, rocks, trunks, etc)
-//        canvas.draw(salmonTexture,Color.WHITE,128,128,400f,400f);
-//        fb.end();
     }
 
+    /**
+     * Draws the level, reusing the last world frame while the game is paused.
+     *
+     * Nothing in the world moves under the pause overlay, so the world is drawn
+     * once and the overlay is drawn on top of that frame.
+     *
+     * @param dt	Number of seconds since last animation frame
+     */
     @Override
     public void draw(float dt) {
+        canvas.setWorldFrozen(paused);
         super.draw(dt);
     }
 
@@ -1348,7 +1593,9 @@ public class SceneModel extends WorldController implements ContactListener {
             d.postDraw(canvas);
         }
 
-        effect.draw(canvas.getSpriteBatch());
+        if (effect != null) {
+            effect.draw(canvas.getSpriteBatch());
+        }
         float retryUIScale = 1.6f;
         if(startLose){
             if(blackTextureAlpha < 1 && blackTextureAlpha >= 0){
@@ -1472,13 +1719,12 @@ public class SceneModel extends WorldController implements ContactListener {
     /**
      * Finds indices of tile textures that were loaded into levels.
      * These are hard coded to what images are in the tilsets so if you change them, let William know :3
-     * There's similar hard coding in renderDecorations() and renderGameObjects()
+     * There's similar hard coding in buildDecorations() and buildGameObjects()
      */
     private void findTileIndices() {
-        JsonValue tilesetData = jsonData.get("tilesets");
-        for(int i = 0; i < tilesetData.size; i++) {
-            int id = tilesetData.get(i).get("firstgid").asInt();
-            String source = tilesetData.get(i).get("source").asString();
+        for(int i = 0; i < level.getTilesetCount(); i++) {
+            int id = level.getFirstGid(i);
+            String source = level.getTilesetSource(i);
             switch (source) {
                 case "maps/tiles.tsx":
                     firstTileIndex = id;
@@ -1516,41 +1762,46 @@ public class SceneModel extends WorldController implements ContactListener {
      * Parses the shadow starting rotations or the degrees caves rotate the shadows by
      */
     private void renderShadows() {
-        JsonValue tileProperties = jsonData.get("layers").get(0).get("properties");
-        if (tileProperties != null){
-            for(JsonValue property: tileProperties) {
-                switch (property.get("name").asString()) {
-                    case "cave_rotations":
-                        String[] split = property.get("value").asString().split(",");
-                        caveRotations = new float[split.length];
-
-                        for (int j = 0; j < split.length; j++) {
-                            if(j == 0) { shadowStartingRotation = Float.parseFloat(split[j]); }
-                            caveRotations[j] = Float.parseFloat(split[j]);
-                        }
-                        break;
-                    case "starting_rotation":
-                        shadowStartingRotation = property.get("value").asFloat();
-                        break;
-                }
+        String rotations = level.getProperty("cave_rotations");
+        if (rotations != null) {
+            String[] split = rotations.split(",");
+            caveRotations = new float[split.length];
+
+            for (int j = 0; j < split.length; j++) {
+                if(j == 0) { shadowStartingRotation = Float.parseFloat(split[j]); }
+                caveRotations[j] = Float.parseFloat(split[j]);
             }
         }
+        String rotation = level.getProperty("starting_rotation");
+        if (rotation != null) {
+            shadowStartingRotation = Float.parseFloat(rotation);
+        }
     }
 
     /**
-     * Creates invisible walls depending on the tile types
+     * Creates invisible walls depending on the tile types (on a worker thread)
+     *
+     * Only the rows from rowHi down to rowLo are built, so the rows can be split
+     * across threads.  Each call fills a disjoint part of the tiles array.
+     *
+     * @param data  The tile ids of the level, top row first
+     * @param rowLo The lowest row to build
+     * @param rowHi The highest row to build
+     *
+     * @return the walls in the given rows
      */
-    private void renderWalls(){
-        int counter = 0;
+    private LayerBuild buildWalls(int[] data, int rowLo, int rowHi){
+        LayerBuild build = new LayerBuild();
         float x;
         float y;
         JsonValue wallConstants = constants.get("wall");
         GameObject wall;
-        tiles = new int[(int) numTilesX][(int) numTilesY];
+        int width = (int) numTilesX;
         // The array needs to be parsed from top to bottom
-        for (int i = (int) numTilesY - 1; i >= 0 ; i--) {
+        for (int i = rowHi; i >= rowLo ; i--) {
+            int counter = ((int) numTilesY - 1 - i) * width;
             for(int j = 0; j < numTilesX; j++){
-                int tileIndex = jsonData.get("layers").get(0).get("data").get(counter++).asInt();
+                int tileIndex = data[counter++];
                 tiles[j][i] = tileIndex;
                 if(tileIndex == 0 || tileIndex == firstTileIndex) {
                     continue;
@@ -1564,21 +1815,20 @@ public class SceneModel extends WorldController implements ContactListener {
                 wall = new GameObject(points,x, y, 0, textureScale);
                 wall.setDrawScale(scale);
                 wall.setName("wall" + i + " " + j);
-                addObject(wall);
-                // ===================
-                genericObstacles.add(new GenericObstacle(wall.getX(), wall.getY(),
-                        wall.getWidth(), wall.getHeight()));
-                // ===================
+                CollisionCategory.SCENERY.apply(wall);
+                build.add(wall, null);
             }
         }
+        return build;
     }
 
     /**
      * Renders the player into the world by parsing JSON
      */
     private void renderUrsa() {
-        float playerX = jsonData.get("layers").get(9).get("objects").get(0).get(8).asFloat();
-        float playerY = maxY - jsonData.get("layers").get(9).get("objects").get(0).get(9).asFloat();
+        ObjectGroup playerData = level.getObjects(9);
+        float playerX = playerData.getX(0);
+        float playerY = maxY - playerData.getY(0);
 
         JsonValue ursaConstants = constants.get("ursa");
         float playerWidth = ursaConstants.get("width").asFloat() * textureScale;
@@ -1587,8 +1837,10 @@ public class SceneModel extends WorldController implements ContactListener {
         ursa = new UrsaModel(drawToScreenCoordinates(playerX + ursaTexture.getRegionWidth() / 2f), drawToScreenCoordinates(playerY) + playerHeight / 2,
                 ursaConstants, playerWidth, playerHeight, textureScale);
         ursa.setDrawScale(scale);
-        ursa.setTexture(playerWalkFilm);
+        ursa.getAnimation().play(playerIdleClip);
+        ursa.setTexture(ursa.getAnimation().getRegion());
         ursa.setShadowTexture(ursaShadowTexture);
+        CollisionCategory.PLAYER.apply(ursa);
         addObject(ursa);
         dynamicObjects.add(ursa);
     }
@@ -1597,44 +1849,24 @@ public class SceneModel extends WorldController implements ContactListener {
      * Renders the enemies and their corresponding patrol markers by parsing JSON
      */
     private void renderEnemies() {
-        if (jsonData.get("layers").get(7) == null) {
+        ObjectGroup enemyObjectData = level.getObjects(7);
+        if (enemyObjectData == null) {
             return;
         }
         JsonValue enemyConstants = constants.get("enemy");
-        JsonValue enemyObjectData = jsonData.get("layers").get(7).get("objects");
 
-        enemies = new Enemy[enemyObjectData.size];
-        for (int i = 0; i < enemyObjectData.size; i++) {
-            float x = enemyObjectData.get(i).get("x").asFloat() + salmonTexture.getRegionWidth() / 2f;
-            float y = maxY - enemyObjectData.get(i).get("y").asFloat();
-            String enemyName = enemyObjectData.get(i).get("name").asString();
+        enemies = new Enemy[enemyObjectData.size()];
+        for (int i = 0; i < enemyObjectData.size(); i++) {
+            float x = enemyObjectData.getX(i) + salmonTexture.getRegionWidth() / 2f;
+            float y = maxY - enemyObjectData.getY(i);
+            String enemyName = enemyObjectData.getName(i);
 
             float width = enemyConstants.get("width").asFloat();
             float height = enemyConstants.get("height").asFloat();
 
-            boolean is_stupid = false;
-            int starting_rotation = 0;
-            float speed = 8f;
-            try {
-                JsonValue propertyData = enemyObjectData.get(i).get("properties");
-                for(int j = 0; j < propertyData.size; j++) {
-                    JsonValue property = propertyData.get(j);
-                    String name = property.get("name").asString();
-                    switch (name) {
-                        case "is_stupid":
-                            is_stupid = property.get("value").asBoolean();
-                            break;
-
-                        case "starting_rotation":
-                            starting_rotation = property.get("value").asInt();
-                            break;
-
-                        case "speed":
-                            speed = property.get("value").asFloat();
-                            break;
-                    }
-                }
-            } catch (NullPointerException ignored) { }
+            boolean is_stupid = enemyObjectData.getBoolean(i, "is_stupid", false);
+            int starting_rotation = enemyObjectData.getInt(i, "starting_rotation", 0);
+            float speed = enemyObjectData.getFloat(i, "speed", 8f);
 
             Enemy enemy = new Enemy(drawToScreenCoordinates(x), drawToScreenCoordinates(y) + height / 2,20,20,constants.get("enemy"), width, height, textureScale);
             enemy.setDrawScale(scale);
@@ -1643,33 +1875,35 @@ public class SceneModel extends WorldController implements ContactListener {
             enemy.setMass(.01f);
 
             enemy.setLookDirection(1, 0);
-            enemy.setTexture(salmonUprightWalkFilm);
+            enemy.getAnimation().play(salmonWalkClip);
+            enemy.setTexture(enemy.getAnimation().getRegion());
             enemy.setShadowTexture(salmonShadowTexture);
             enemy.setName("enemy" + i);
             enemy.setSpeed(speed);
+            CollisionCategory.ENEMY.apply(enemy);
 
             addObject(enemy);
             dynamicObjects.add(enemy);
+            activity.add(enemy, true);
             enemies[i] = enemy;
 
-            if(jsonData.get("layers").get(8) == null && !is_stupid) {
+            ObjectGroup markerObjectData = level.getObjects(8);
+            if(markerObjectData == null && !is_stupid) {
                 System.out.println("Please put down some markers.");
                 return;
             }
 
             // Parse the markers
-            JsonValue markerObjectData = jsonData.get("layers").get(8).get("objects");
-            EnemyMarker[] enemyPosList = new EnemyMarker[markerObjectData.size];
+            EnemyMarker[] enemyPosList = new EnemyMarker[markerObjectData == null ? 0 : markerObjectData.size()];
             for(int e = 0; e < enemyPosList.length; e++) {
-                String markerName = markerObjectData.get(e).get("name").asString();
+                String markerName = markerObjectData.getName(e);
                 if (markerName.equals(enemyName)) {
-                    int orderNum = (jsonData.get("layers").get(8).get("objects").get(e).get("type")
-                            .asInt());
-                    float markerX = markerObjectData.get(e).get("x").asFloat();
-                    float markerY = maxY - markerObjectData.get(e).get("y").asFloat();
+                    int orderNum = Integer.parseInt(markerObjectData.getType(e));
+                    float markerX = markerObjectData.getX(e);
+                    float markerY = maxY - markerObjectData.getY(e);
 
                     EnemyMarker marker = new EnemyMarker(new Vector2(drawToScreenCoordinates(markerX), drawToScreenCoordinates(markerY)),
-                        markerObjectData.get(e).get("properties"));
+                        markerObjectData, e);
                     enemyPosList[orderNum - 1] = marker;
                 }
             }
@@ -1683,22 +1917,25 @@ public class SceneModel extends WorldController implements ContactListener {
      * Renders smol ursa into the map by parsing JSON
      */
     private void renderSmolUrsa() {
-        if (jsonData.get("layers").get(6) == null) {
+        ObjectGroup smolUrsaObjectData = level.getObjects(6);
+        if (smolUrsaObjectData == null) {
             return;
         }
         JsonValue smolUrsaConstants = constants.get("smolursa");
-        JsonValue smolUrsaObjectData = jsonData.get("layers").get(6).get("objects");
 
-        float x = smolUrsaObjectData.get(0).get(8).asFloat() + smolUrsaTexture.getRegionWidth() / 2f;
-        float y = maxY - smolUrsaObjectData.get(0).get(9).asFloat();
+        float x = smolUrsaObjectData.getX(0) + smolUrsaTexture.getRegionWidth() / 2f;
+        float y = maxY - smolUrsaObjectData.getY(0);
 
         goal = new GameObject(getVertices(smolUrsaConstants), drawToScreenCoordinates(x),
                 drawToScreenCoordinates(y), 0, textureScale);
         goal.setDoesTint(false);
         goal.setSensor(true);
         goal.setDrawScale(scale);
-        goal.setTexture(smolUrsaIdleFilm);
+        smolUrsaAnimation.play(smolUrsaIdleClip);
+        smolUrsaAnimation.restart();
+        goal.setTexture(smolUrsaAnimation.getRegion());
         goal.setName("smolursa");
+        CollisionCategory.GOAL.apply(goal);
         addObject(goal);
 
         // ===================
@@ -1708,40 +1945,49 @@ public class SceneModel extends WorldController implements ContactListener {
     }
 
     /**
-     * Renders all the ice into the map by parsing JSON
+     * Creates all the ice in the map by parsing JSON (on a worker thread)
+     *
+     * @param layer The ice layer (may be null)
+     *
+     * @return the ice blocks
      */
-    private void renderIce() {
-        if (jsonData.get("layers").get(5) == null) {
-            return;
+    private LayerBuild buildIce(ObjectGroup layer) {
+        LayerBuild build = new LayerBuild();
+        if (layer == null) {
+            return build;
         }
         JsonValue iceConstants = constants.get("ice");
-        JsonValue iceObjectData = jsonData.get("layers").get(5).get("objects");
 
-        for (int i = 0; i < iceObjectData.size; i++) {
+        for (int i = 0; i < layer.size(); i++) {
             float yOffset = iceConstants.get("yOffset").asFloat();
-            float x = iceObjectData.get(i).get(8).asFloat() + polarIceTexture.getRegionWidth() / 2f;
-            float y = maxY - iceObjectData.get(i).get(9).asFloat() + yOffset;
+            float x = layer.getX(i) + polarIceTexture.getRegionWidth() / 2f;
+            float y = maxY - layer.getY(i) + yOffset;
 
             Moveable ice = new Moveable(getVertices(iceConstants), drawToScreenCoordinates(x),drawToScreenCoordinates(y), yOffset, textureScale);
             ice.setDrawScale(scale);
             ice.setTexture(polarIceTexture);
             ice.setName("ice" + i);
-            addObject(ice);
+            CollisionCategory.ICE.apply(ice);
+            build.add(ice, null);
         }
+        return build;
     }
 
     /**
-     * Renders all the game objects into the map by parsing JSON
+     * Creates all the game objects in the map by parsing JSON (on a worker thread)
      * If you change the sprite sheets, you need to adjust these numbers (ask William)
+     *
+     * @param layer The game object layer (may be null)
+     *
+     * @return the game objects and their shadows
      */
-    private void renderGameObjects() {
-        if(jsonData.get("layers").get(4) == null) { return; }
-
-        JsonValue objectData = jsonData.get("layers").get(4).get("objects");
+    private LayerBuild buildGameObjects(ObjectGroup layer) {
+        LayerBuild build = new LayerBuild();
+        if(layer == null) { return build; }
 
         String name;
-        for(int i = 0; i < objectData.size; i++) {
-            int objectIndex = objectData.get(i).get("gid").asInt();
+        for(int i = 0; i < layer.size(); i++) {
+            int objectIndex = layer.getGid(i);
             int textureIndex;
 
             if(objectIndex - firstMediumObjectIndex == 0) {
@@ -1778,8 +2024,8 @@ public class SceneModel extends WorldController implements ContactListener {
 
             JsonValue objectConstants = constants.get(name);
             float yOffset = objectConstants.get("yOffset").asFloat();
-            float x = objectData.get(i).get("x").asFloat() + objectTextures[textureIndex].getRegionWidth() / 2f;
-            float y = maxY - objectData.get(i).get("y").asFloat() + yOffset;
+            float x = layer.getX(i) + objectTextures[textureIndex].getRegionWidth() / 2f;
+            float y = maxY - layer.getY(i) + yOffset;
 
             // House and Rock 3 have special drawing order
             GameObject obj;
@@ -1791,118 +2037,113 @@ public class SceneModel extends WorldController implements ContactListener {
             obj.setDrawScale(scale);
             obj.setTexture(objectTextures[textureIndex]);
             obj.setName("game object" + i);
-            addObject(obj);
-            makeShadow(objectConstants,obj);
-
-            // ===================
-            genericObstacles.add(new GenericObstacle(obj.getX(), obj.getY(),
-                    obj.getWidth(), obj.getHeight()));
-            // ===================
+            CollisionCategory.SCENERY.apply(obj);
+            build.add(obj, makeShadow(objectConstants,obj));
         }
+        return build;
     }
 
     /**
-     * Renders all the trees into the map by parsing JSON
+     * Creates all the trees in the map by parsing JSON (on a worker thread)
+     *
+     * @param layer The tree layer (may be null)
+     *
+     * @return the trees and their shadows
      */
-    private void renderTrees() {
-        if(jsonData.get("layers").get(3) == null) { return; }
+    private LayerBuild buildTrees(ObjectGroup layer) {
+        LayerBuild build = new LayerBuild();
+        if(layer == null) { return build; }
 
         JsonValue treeConstants = constants.get("tree");
-        JsonValue treeObjectData = jsonData.get("layers").get(3).get("objects");
 
-        for(int i = 0; i < treeObjectData.size; i++) {
-            int treeIndex = treeObjectData.get(i).get("gid").asInt();
+        for(int i = 0; i < layer.size(); i++) {
+            int treeIndex = layer.getGid(i);
             float yOffset = treeConstants.get("yOffset").asFloat();
-            float x = treeObjectData.get(i).get(8).asFloat() + treeTextures[treeIndex - firstTreeIndex].getRegionWidth() / 2f;
-            float y = maxY - treeObjectData.get(i).get(9).asFloat() + yOffset;
+            float x = layer.getX(i) + treeTextures[treeIndex - firstTreeIndex].getRegionWidth() / 2f;
+            float y = maxY - layer.getY(i) + yOffset;
 
             Tree tree = new Tree(getVertices(treeConstants),drawToScreenCoordinates(x),drawToScreenCoordinates(y), yOffset, textureScale);
             tree.setDrawScale(scale);
             tree.setTexture(treeTextures[treeIndex - firstTreeIndex]);
             tree.setName("tree" + i);
-            // If the tree has no snow
+            CollisionCategory.SCENERY.apply(tree);
+            // If the tree has no snow (trees with snow become interactable in commit)
             if(treeIndex - firstTreeIndex == 1) {
                 tree.putOnShakeCooldown();
-            } else {
-                interactableTrees.add(tree);
             }
 
-            addObject(tree);
-
-            makeShadow(treeConstants,tree);
-
-            // ===================
-            genericObstacles.add(new GenericObstacle(tree.getX(), tree.getY(),
-                    tree.getWidth(), tree.getHeight()));
-            // ===================
+            build.add(tree, makeShadow(treeConstants,tree));
         }
+        return build;
     }
 
     /**
-     * Renders all the caves into the map by parsing JSON
+     * Creates all the caves in the map by parsing JSON (on a worker thread)
+     *
+     * The animations are started in commit, since their film strips are shared.
+     *
+     * @param layer The cave layer (may be null)
+     *
+     * @return the caves and their shadows
      */
-    private void renderCaves() {
-        if (jsonData.get("layers").get(2) == null) {
-            return;
+    private LayerBuild buildCaves(ObjectGroup layer) {
+        LayerBuild build = new LayerBuild();
+        if (layer == null) {
+            return build;
         }
         JsonValue caveConstants = constants.get("cave");
-        JsonValue caveObjectData = jsonData.get("layers").get(2).get("objects");
 
-        for (int i = 0; i < caveObjectData.size; i++) {
+        for (int i = 0; i < layer.size(); i++) {
             float yOffset = caveConstants.get("yOffset").asFloat();
-            float x = caveObjectData.get(i).get(8).asFloat() + polarCaveTexture.getRegionWidth() / 2f;
-            float y = maxY - caveObjectData.get(i).get(9).asFloat() + yOffset;
+            float x = layer.getX(i) + polarCaveTexture.getRegionWidth() / 2f;
+            float y = maxY - layer.getY(i) + yOffset;
             x = drawToScreenCoordinates(x);
             y = drawToScreenCoordinates(y);
             Vector2 caveBubblePos = new Vector2(drawToScreenCoordinates(caveConstants.get("bubbleX").asFloat()), drawToScreenCoordinates(caveConstants.get("bubbleY").asFloat()));
 
             Cave obj = new Cave(getVertices(caveConstants), x, y, yOffset,textureScale, caveBubblePos);
-            obj.setZZZTexture(caveZZZLoopFilm);
             obj.setDrawScale(scale);
             obj.setTexture(polarCaveTexture);
             obj.setName("cave" + i);
+            CollisionCategory.SCENERY.apply(obj);
 
-            addObject(obj);
-            interactableCaves.add(obj);
-
-            makeShadow(caveConstants,obj);
-
-            // ===================g
-            genericObstacles.add(new GenericObstacle(obj.getX(), obj.getY(),
-                    obj.getWidth(), obj.getHeight()));
-            // ===================
+            build.add(obj, makeShadow(caveConstants,obj));
         }
+        return build;
     }
 
     /**
-     * Renders all the decorations into the map by parsing JSON
+     * Creates all the decorations in the map by parsing JSON (on a worker thread)
      * If you change the sprite sheets, you need to adjust these numbers (ask William)
+     *
+     * @param layer The decoration layer (may be null)
+     *
+     * @return the decorations
      */
-    private void renderDecorations() {
-        if(jsonData.get("layers").get(1) == null) { return; }
-        JsonValue decorationData = jsonData.get("layers").get(1).get("objects");
-
-        for(int i = 0; i < decorationData.size; i++) {
-            float x = decorationData.get(i).get("x").asFloat();
-            float y = maxY - decorationData.get(i).get("y").asFloat();
-            int decorationIndex = decorationData.get(i).get("gid").asInt();
+    private LayerBuild buildDecorations(ObjectGroup layer) {
+        LayerBuild build = new LayerBuild();
+        if(layer == null) { return build; }
+        for(int i = 0; i < layer.size(); i++) {
+            float x = layer.getX(i);
+            float y = maxY - layer.getY(i);
+            int decorationIndex = layer.getGid(i);
             int textureIndex;
             if(decorationIndex - firstSmallDecorationIndex < 12) {
                 textureIndex = decorationIndex - firstSmallDecorationIndex;
             } else if(decorationIndex - firstLargeDecorationIndex < 2) {
                 textureIndex = decorationIndex - firstLargeDecorationIndex + 12;
                 Decoration decoration = new Decoration(decorationTextures[textureIndex], scale, drawToScreenCoordinates(x),drawToScreenCoordinates(y), decorationIndex + 12, textureScale);
-                groundDecorations.add(decoration);
+                build.add(decoration, DECORATION_GROUND);
                 continue;
             } else if((decorationIndex - firstLargeDecorationIndex - 2) < 5) {
                 textureIndex = decorationIndex - firstLargeDecorationIndex + 12;
                 Decoration decoration = new Decoration(decorationTextures[textureIndex], scale, drawToScreenCoordinates(x),drawToScreenCoordinates(y), decorationIndex + 12, textureScale);
-                oceanDecorations.add(decoration);
+                build.add(decoration, DECORATION_OCEAN);
                 continue;
             } else if(decorationIndex - firstLargeOceanDecorationIndex < 2){
                 textureIndex = decorationIndex - firstLargeOceanDecorationIndex + 19;
                 Decoration decoration = new Decoration(decorationTextures[textureIndex], scale, drawToScreenCoordinates(x),drawToScreenCoordinates(y), decorationIndex + 12, textureScale);
-                oceanDecorations.add(decoration);
+                build.add(decoration, DECORATION_OCEAN);
                 continue;
             } else {
                 System.out.println("Unidentified decoration.");
@@ -1911,23 +2152,15 @@ public class SceneModel extends WorldController implements ContactListener {
 
 
             Decoration decoration = new Decoration(decorationTextures[textureIndex], scale, drawToScreenCoordinates(x),drawToScreenCoordinates(y), decorationIndex, textureScale);
-            JsonValue propertyData = decorationData.get(i).get("properties");
-            if(propertyData != null) {
-                for(int j = 0; j < propertyData.size; j++) {
-                    if(propertyData.get(j).get("name").asString().equals("dialogue_num")) {
-                        int dialogueIndex = propertyData.get(j).get("value").asInt();
-                        if(dialogueIndex >= 0 && dialogueIndex < dialogueTextures.length) {
-                                decoration.setDialogueTexture(dialogueTextures[dialogueIndex]);
-                        }
-                    }
-                }
+            int dialogueIndex = layer.getInt(i, "dialogue_num", -1);
+            if(dialogueIndex >= 0 && dialogueIndex < dialogueTextures.length) {
+                    decoration.setDialogueTexture(dialogueTextures[dialogueIndex]);
             }
 
 
-            decorations.add(decoration);
+            build.add(decoration, DECORATION_REGULAR);
         }
-        // Since decoration positions never change, we only need to sort once
-        decorations.sort(decorationComparator);
+        return build;
     }
 
     /**
@@ -1948,11 +2181,12 @@ public class SceneModel extends WorldController implements ContactListener {
     }
 
     /**
-     * Initializes and adds a shadow into the game world.
+     * Initializes a shadow for an object (it is added to the world in commit).
      * @param constants constants corresponding to the object
      * @param obj object we are making the shadow for
+     * @return the shadow of the object
      */
-    private void makeShadow(JsonValue constants, PolygonObstacle obj) {
+    private ShadowModel makeShadow(JsonValue constants, PolygonObstacle obj) {
         float[] shadowVertices;
         if(constants.get("shadowVertices") == null) {
             shadowVertices = new float[]{0, -4, -4, -1, -6, 0.6f, 0, 20, 6, 0.6f, 4, -1};
@@ -1979,10 +2213,7 @@ public class SceneModel extends WorldController implements ContactListener {
 
         ShadowModel shadow = new ShadowModel(shadowVertices, obj.getX(), obj.getY(), xOffset, yOffset, moving);
         shadow.setDrawScale(scale);
-        shadowController.addShadow(shadow);
-
-        addObject(shadow);
-        shadow.rotateDirection(shadowStartingRotation - 90);
+        return shadow;
     }
 
     public boolean updateAggro(AIController i) {
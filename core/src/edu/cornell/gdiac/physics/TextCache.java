@@ -0,0 +1,189 @@
+/*
+ * TextCache.java
+ *
+ * Laying out a string (measuring, kerning, wrapping) is a lot of work, and
+ * GlyphLayout allocates while it does it.  Menus and the HUD draw the same few
+ * strings every frame, so there is no reason to lay them out every frame.
+ *
+ * This cache remembers the layout of each (font, string) pair, together with a
+ * BitmapFontCache holding the glyph vertices.  Drawing a cached label is then just
+ * a translation and a vertex copy.  An entry is rebuilt if the font color or scale
+ * changed since it was laid out, and entries that have not been drawn for a while
+ * are dropped, so strings that change every frame (like timers) do not pile up.
+ *
+ * Based on the GameCanvas from the PhysicsDemo Lab by Walker White
+ */
+package edu.cornell.gdiac.physics;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * A cache of text layouts keyed by font and string.
+ *
+ * The layouts are positioned at the origin.  Use {@link #get} to look up (or build)
+ * an entry, then position its font cache before drawing it.  The cache does not own
+ * the fonts, and never disposes them.
+ */
+public class TextCache {
+	/** The default number of frames an entry survives without being drawn */
+	public static final int DEFAULT_LIFETIME = 120;
+
+	/** A cached layout for a single (font, string) pair */
+	public static class Entry {
+		/** The measured layout of the string */
+		public final GlyphLayout layout;
+		/** The glyph vertices for the layout */
+		public final BitmapFontCache cache;
+		/** The font color (packed) when the entry was built */
+		private float color;
+		/** The font x-scale when the entry was built */
+		private float scaleX;
+		/** The font y-scale when the entry was built */
+		private float scaleY;
+		/** The last frame this entry was used */
+		private long used;
+
+		/**
+		 * Creates an empty entry for the given font
+		 *
+		 * @param font	The font for this entry
+		 */
+		private Entry(BitmapFont font) {
+			layout = new GlyphLayout();
+			cache  = font.newFontCache();
+		}
+
+		/**
+		 * Returns true if the font has changed since this entry was built
+		 *
+		 * @param font	The font for this entry
+		 *
+		 * @return true if the font has changed since this entry was built
+		 */
+		private boolean isStale(BitmapFont font) {
+			return color != font.getColor().toFloatBits() ||
+				   scaleX != font.getScaleX() || scaleY != font.getScaleY();
+		}
+
+		/**
+		 * Lays out the text and rebuilds the glyph vertices
+		 *
+		 * @param font	The font for this entry
+		 * @param text	The string to lay out
+		 */
+		private void build(BitmapFont font, String text) {
+			layout.setText(font, text);
+			cache.setText(layout, 0, 0);
+			color  = font.getColor().toFloatBits();
+			scaleX = font.getScaleX();
+			scaleY = font.getScaleY();
+		}
+	}
+
+	/** The entries for each font, keyed by string */
+	private final ObjectMap<BitmapFont, ObjectMap<String, Entry>> entries;
+	/** The number of frames an entry survives without being drawn */
+	private int lifetime;
+	/** The number of entries across all fonts */
+	private int size;
+
+	/**
+	 * Creates an empty cache with the default lifetime
+	 */
+	public TextCache() {
+		this(DEFAULT_LIFETIME);
+	}
+
+	/**
+	 * Creates an empty cache with the given lifetime
+	 *
+	 * @param lifetime	The number of frames an entry survives without being drawn
+	 */
+	public TextCache(int lifetime) {
+		entries = new ObjectMap<>();
+		this.lifetime = lifetime;
+	}
+
+	/**
+	 * Returns the entry for the given font and string, laying it out if necessary.
+	 *
+	 * The entry is laid out again if the font color or scale has changed since it
+	 * was last built.  In every other case, this method does not allocate.
+	 *
+	 * @param font	The font to draw with
+	 * @param text	The string to draw
+	 * @param frame	The current frame (to keep the entry alive)
+	 *
+	 * @return the entry for the given font and string
+	 */
+	public Entry get(BitmapFont font, String text, long frame) {
+		ObjectMap<String, Entry> strings = entries.get(font);
+		if (strings == null) {
+			strings = new ObjectMap<>();
+			entries.put(font, strings);
+		}
+
+		Entry entry = strings.get(text);
+		if (entry == null) {
+			entry = new Entry(font);
+			entry.build(font, text);
+			strings.put(text, entry);
+			size++;
+		} else if (entry.isStale(font)) {
+			entry.build(font, text);
+		}
+		entry.used = frame;
+		return entry;
+	}
+
+	/**
+	 * Drops every entry that has not been used within the lifetime.
+	 *
+	 * @param frame	The current frame
+	 */
+	public void prune(long frame) {
+		for (ObjectMap<String, Entry> strings : entries.values()) {
+			ObjectMap.Values<Entry> values = strings.values();
+			while (values.hasNext()) {
+				if (frame-values.next().used > lifetime) {
+					values.remove();
+					size--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops every entry for the given font.
+	 *
+	 * Call this if a font is disposed or its glyphs are regenerated.
+	 *
+	 * @param font	The font to forget
+	 */
+	public void invalidate(BitmapFont font) {
+		ObjectMap<String, Entry> strings = entries.remove(font);
+		if (strings != null) {
+			size -= strings.size;
+		}
+	}
+
+	/**
+	 * Drops every entry in the cache.
+	 */
+	public void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of entries across all fonts
+	 *
+	 * @return the number of entries across all fonts
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -399,6 +399,14 @@ public abstract class WorldController implements Screen {
 			debug = !debug;
 		}
 
+		// Toggle the render statistics
+		if (input.didStats()) {
+			canvas.setStatsOverlay(!canvas.isStatsOverlay());
+		}
+		if (input.didResolution()) {
+			canvas.setDynamicResolution(!canvas.isDynamicResolution());
+		}
+
 		// Handle resets
 		if (input.didReset() && resetDelay <= 0) {
 			reset();
@@ -504,27 +512,34 @@ public abstract class WorldController implements Screen {
 		}
 		canvas.clear();
 
-		canvas.begin();
+		if (canvas.hasWorldFrame()) {
+			// A frozen world (such as under the pause menu) is not drawn again
+			canvas.drawWorldFrame();
+		} else {
+			// The world pass may be drawn at a lower resolution (see GameCanvas)
+			canvas.beginWorld();
 
-		// Draws backgrounds
-		preDraw(dt);
+			// Draws backgrounds
+			preDraw(dt);
 
-		// Sort to draw higher-up objects first -> Pokemon 3/4
-		objects.sort(obstacleComparator);
-		for(Obstacle obj : objects) {
-			obj.updateTint(tinting);
-			obj.draw(canvas);
-		}
+			// Sort to draw higher-up objects first -> Pokemon 3/4
+			objects.sort(obstacleComparator);
+			for(Obstacle obj : objects) {
+				obj.updateTint(tinting);
+				obj.draw(canvas);
+			}
 
-		// Reset snow back to its original position
-		if (snowFall < -100.0f) {
-			snowFall = 450.0f;
-		}
+			// Reset snow back to its original position
+			if (snowFall < -100.0f) {
+				snowFall = 450.0f;
+			}
 
 
-		snowFall -= 0.2f;
+			snowFall -= 0.2f;
 
-		// Doesn't do anything right now
+			// The UI is always drawn at native resolution
+			canvas.endWorld();
+		}
 		postDraw(dt);
 
 
@@ -538,6 +553,9 @@ public abstract class WorldController implements Screen {
 			}
 			canvas.endDebug();
 		}
+
+		// Draw the render statistics (on top of everything else)
+		canvas.drawStats();
 	}
 
 	/**
@@ -8,6 +8,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import edu.cornell.gdiac.physics.GameCanvas;
 import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
+import edu.cornell.gdiac.util.AnimationCursor;
 
 public class Cave extends PolygonObstacle {
     private boolean canInteract;
@@ -16,6 +17,10 @@ public class Cave extends PolygonObstacle {
     private TextureRegion ZZZTexture;
     private TextureRegion portalTexture;
     private float yOffset;
+    /** The animation playback state of the portal whirl */
+    private final AnimationCursor portalAnimation = new AnimationCursor();
+    /** The animation playback state of the sleep bubble */
+    private final AnimationCursor ZZZAnimation = new AnimationCursor();
 
     public Cave(float[] points, float x, float y, float yOffset, float textureScale, Vector2 ZZZpos) {
         super(points, x, y, yOffset, textureScale);
@@ -34,6 +39,13 @@ public class Cave extends PolygonObstacle {
         canInteract = false;
     }
 
+    /**
+     * Lets the cave be interacted with again. Used when the level restarts.
+     */
+    public void resetInteraction() {
+        canInteract = true;
+    }
+
     public void setZZZTexture(TextureRegion texture) {
         ZZZTexture = texture;
     }
@@ -41,6 +53,24 @@ public class Cave extends PolygonObstacle {
     public void setPortalTexture(TextureRegion texture) {
         portalTexture = texture;
     }
+
+    /**
+     * Returns the animation playback state of the portal whirl.
+     *
+     * @return the animation playback state of the portal whirl.
+     */
+    public AnimationCursor getPortalAnimation() {
+        return portalAnimation;
+    }
+
+    /**
+     * Returns the animation playback state of the sleep bubble.
+     *
+     * @return the animation playback state of the sleep bubble.
+     */
+    public AnimationCursor getZZZAnimation() {
+        return ZZZAnimation;
+    }
     public void draw(GameCanvas canvas) {
         if (region != null) {
             Affine2 affine = new Affine2()
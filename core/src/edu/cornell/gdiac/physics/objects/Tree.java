@@ -10,6 +10,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import edu.cornell.gdiac.physics.GameCanvas;
 import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
+import edu.cornell.gdiac.util.AnimationCursor;
 
 /**
  * This class represents the trees of the game and can either have snow or no snow upon creation.
@@ -19,6 +20,8 @@ import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
 public class Tree extends PolygonObstacle {
 	/** Has the tree shaken yet? Once shaken, trees will not be able to shake again. */
 	private boolean hasShaken;
+	/** The animation playback state of this tree (for shaking) */
+	private final AnimationCursor animation = new AnimationCursor();
 
 	public Tree(float[] points, float x, float y, float offset, float textureScale) {
 		super(points, x, y, offset, textureScale);
@@ -33,4 +36,20 @@ public class Tree extends PolygonObstacle {
 	public void putOnShakeCooldown() {
 		hasShaken = true;
 	}
+
+	/**
+	 * Lets the tree be shaken again. Used when the level restarts.
+	 */
+	public void resetShake() {
+		hasShaken = false;
+	}
+
+	/**
+	 * Returns the animation playback state of this tree.
+	 *
+	 * @return the animation playback state of this tree.
+	 */
+	public AnimationCursor getAnimation() {
+		return animation;
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * PolygonGeometry.java
+ *
+ * Most polygon obstacles in a level are copies of a handful of outlines.  Every
+ * tree uses the tree vertices, every cave the cave vertices, and so on, already
+ * scaled the same way.  Triangulating the same outline hundreds of times per level
+ * load is wasted work, so the triangulation and the Box2D shapes are computed once
+ * per outline and shared by every obstacle that uses it.
+ *
+ * Sharing the shapes is safe because Box2D copies a shape into each fixture it
+ * creates.  An obstacle that is resized makes its own copy first.
+ *
+ * Author: Walker M. White
+ * Based on original PhysicsDemo Lab by Don Holden, 2007
+ * LibGDX version, 2/6/2015
+ */
+package edu.cornell.gdiac.physics.obstacle;
+
+import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ShortArray;
+
+import java.util.Arrays;
+
+/**
+ * The triangulation and physics shapes of a polygon outline.
+ *
+ * Instances are flyweights; get them with {@link #obtain} and never modify them.
+ */
+class PolygonGeometry {
+	/** An earclipping triangular to make sure we work with convex shapes */
+	private static final EarClippingTriangulator TRIANGULATOR = new EarClippingTriangulator();
+	/** Every geometry built so far, bucketed by the hash of its outline */
+	private static final IntMap<Array<PolygonGeometry>> CACHE = new IntMap<>();
+
+	/** The polygon outline (in physics units) */
+	final float[] points;
+	/** The triangle indices, used for drawing */
+	final short[] tridx;
+	/** The vertices of each triangle, 6 floats per triangle */
+	final float[] vertices;
+	/** One Box2D shape per triangle */
+	final PolygonShape[] shapes;
+
+	/**
+	 * Returns the geometry for the given outline, triangulating it if necessary.
+	 *
+	 * Two outlines share a geometry if they have exactly the same vertices.
+	 *
+	 * @param points The polygon vertices (in physics units)
+	 *
+	 * @return the geometry for the given outline
+	 */
+	static synchronized PolygonGeometry obtain(float[] points) {
+		int hash = Arrays.hashCode(points);
+		Array<PolygonGeometry> bucket = CACHE.get(hash);
+		if (bucket == null) {
+			bucket = new Array<>(false, 1);
+			CACHE.put(hash, bucket);
+		}
+		for (PolygonGeometry geometry : bucket) {
+			if (Arrays.equals(geometry.points, points)) {
+				return geometry;
+			}
+		}
+		PolygonGeometry geometry = new PolygonGeometry(points);
+		bucket.add(geometry);
+		return geometry;
+	}
+
+	/**
+	 * Disposes every cached shape.
+	 *
+	 * Only call this when no obstacle will create fixtures again (such as when the
+	 * application shuts down).
+	 */
+	static synchronized void clear() {
+		for (Array<PolygonGeometry> bucket : CACHE.values()) {
+			for (PolygonGeometry geometry : bucket) {
+				for (PolygonShape shape : geometry.shapes) {
+					shape.dispose();
+				}
+			}
+		}
+		CACHE.clear();
+	}
+
+	/**
+	 * Triangulates the given outline
+	 *
+	 * @param points The polygon vertices (in physics units)
+	 */
+	private PolygonGeometry(float[] points) {
+		this.points = points.clone();
+
+		// Triangulate
+		ShortArray array = TRIANGULATOR.computeTriangles(points);
+		trimColinear(points,array);
+
+		tridx = new short[array.items.length];
+		System.arraycopy(array.items, 0, tridx, 0, tridx.length);
+
+		// Allocate space for physics triangles.
+		int tris = array.items.length / 3;
+		vertices = new float[tris*6];
+		shapes = new PolygonShape[tris];
+		for(int ii = 0; ii < tris; ii++) {
+			for(int jj = 0; jj < 3; jj++) {
+				vertices[6*ii+2*jj  ] = points[2*array.items[3*ii+jj]  ];
+				vertices[6*ii+2*jj+1] = points[2*array.items[3*ii+jj]+1];
+			}
+			shapes[ii] = new PolygonShape();
+			shapes[ii].set(vertices,6*ii,6);
+		}
+	}
+
+	/**
+	 * Removes colinear vertices from the given triangulation.
+	 *
+	 * For some reason, the LibGDX triangulator will occasionally return colinear
+	 * vertices.
+	 *
+	 * @param points  The polygon vertices
+	 * @param indices The triangulation indices
+	 */
+	private static void trimColinear(float[] points, ShortArray indices) {
+		int colinear = 0;
+		for(int ii = 0; ii < indices.size/3-colinear; ii++) {
+			float t1 = points[2*indices.items[3*ii  ]]*(points[2*indices.items[3*ii+1]+1]-points[2*indices.items[3*ii+2]+1]);
+			float t2 = points[2*indices.items[3*ii+1]]*(points[2*indices.items[3*ii+2]+1]-points[2*indices.items[3*ii  ]+1]);
+			float t3 = points[2*indices.items[3*ii+2]]*(points[2*indices.items[3*ii  ]+1]-points[2*indices.items[3*ii+1]+1]);
+			if (Math.abs(t1+t2+t3) < 0.0000001f) {
+				indices.swap(3*ii  ,  indices.size-3*colinear-3);
+				indices.swap(3*ii+1,  indices.size-3*colinear-2);
+				indices.swap(3*ii+2,  indices.size-3*colinear-1);
+				colinear++;
+			 }
+		}
+		indices.size -= 3*colinear;
+		indices.shrink();
+	}
+}
@@ -34,11 +34,10 @@ import edu.cornell.gdiac.physics.shadows.ShadowController;
  * from the texture size, using the same policy as PolygonSpriteBatch.
  */
 public class PolygonObstacle extends SimpleObstacle {
-	/** An earclipping triangular to make sure we work with convex shapes */
-	private static final EarClippingTriangulator TRIANGULATOR = new EarClippingTriangulator();
-	
-	/** Shape information for this physics object */
+	/** Shape information for this physics object (shared with identical polygons) */
 	protected PolygonShape[] shapes;
+	/** Whether shapes, vertices and tridx belong to a shared PolygonGeometry */
+	private boolean shared;
 
 	/** Texture information for this object */
 	protected PolygonRegion region;
@@ -185,6 +184,8 @@ public class PolygonObstacle extends SimpleObstacle {
 
 	/**
 	 * Gets the points for this polygon obstacle
+	 *
+	 * These may be shared with other obstacles of the same shape. Do not modify them.
 	 */
 	public float[] getPoints() {
 		return vertices;
@@ -223,33 +224,20 @@ public class PolygonObstacle extends SimpleObstacle {
 	/**
 	 * Initializes the Box2d shapes for this polygon
 	 *
-	 * If the texture is not null, this method also allocates the PolygonRegion 
-	 * for drawing.  However, the points in the polygon region may be rescaled 
-	 * later.
+	 * The triangulation and shapes come from the shared geometry cache, so identical
+	 * polygons are only triangulated once.  If the texture is not null, this method
+	 * also allocates the PolygonRegion for drawing.  However, the points in the
+	 * polygon region may be rescaled later.
 	 *
 	 * @param points   The polygon vertices
 	 */
 	private void initShapes(float[] points) {
-		// Triangulate
-		ShortArray array = TRIANGULATOR.computeTriangles(points);
-		trimColinear(points,array);
-		
-		tridx = new short[array.items.length];
-		System.arraycopy(array.items, 0, tridx, 0, tridx.length);
-		
-		// Allocate space for physics triangles.
-		int tris = array.items.length / 3;
-		vertices = new float[tris*6];
-		shapes = new PolygonShape[tris];
-		geoms  = new Fixture[tris];
-		for(int ii = 0; ii < tris; ii++) {
-			for(int jj = 0; jj < 3; jj++) {
-				vertices[6*ii+2*jj  ] = points[2*array.items[3*ii+jj]  ];
-				vertices[6*ii+2*jj+1] = points[2*array.items[3*ii+jj]+1];
-			}
-			shapes[ii] = new PolygonShape();
-			shapes[ii].set(vertices,6*ii,6);
-		}
+		PolygonGeometry geometry = PolygonGeometry.obtain(points);
+		tridx = geometry.tridx;
+		vertices = geometry.vertices;
+		shapes = geometry.shapes;
+		geoms  = new Fixture[shapes.length];
+		shared = true;
 		
 		// Draw the shape with the appropriate scaling factor
 		scaled = new float[points.length];
@@ -263,31 +251,32 @@ public class PolygonObstacle extends SimpleObstacle {
 		}
 
 	}
-	
+
 	/**
-	 * Removes colinear vertices from the given triangulation.
-	 *
-	 * For some reason, the LibGDX triangulator will occasionally return colinear
-	 * vertices.
-	 *
-	 * @param points  The polygon vertices
-	 * @param indices The triangulation indices
+	 * Replaces the shared shapes with private copies that can be modified.
 	 */
-	private void trimColinear(float[] points, ShortArray indices) {
-		int colinear = 0;
-		for(int ii = 0; ii < indices.size/3-colinear; ii++) {
-			float t1 = points[2*indices.items[3*ii  ]]*(points[2*indices.items[3*ii+1]+1]-points[2*indices.items[3*ii+2]+1]);
-			float t2 = points[2*indices.items[3*ii+1]]*(points[2*indices.items[3*ii+2]+1]-points[2*indices.items[3*ii  ]+1]);
-			float t3 = points[2*indices.items[3*ii+2]]*(points[2*indices.items[3*ii  ]+1]-points[2*indices.items[3*ii+1]+1]);
-			if (Math.abs(t1+t2+t3) < 0.0000001f) {
-				indices.swap(3*ii  ,  indices.size-3*colinear-3);
-				indices.swap(3*ii+1,  indices.size-3*colinear-2);
-				indices.swap(3*ii+2,  indices.size-3*colinear-1);
-				colinear++;
-			 }
+	private void unshare() {
+		if (!shared) {
+			return;
 		}
-		indices.size -= 3*colinear;
-		indices.shrink();
+		vertices = vertices.clone();
+		PolygonShape[] copies = new PolygonShape[shapes.length];
+		for(int ii = 0; ii < copies.length; ii++) {
+			copies[ii] = new PolygonShape();
+			copies[ii].set(vertices,6*ii,6);
+		}
+		shapes = copies;
+		shared = false;
+	}
+
+	/**
+	 * Disposes the shapes shared by identical polygons.
+	 *
+	 * Only call this when no polygon obstacle will create fixtures again (such as
+	 * when the application shuts down).
+	 */
+	public static void clearShapeCache() {
+		PolygonGeometry.clear();
 	}
 	
 	/**
@@ -299,6 +288,7 @@ public class PolygonObstacle extends SimpleObstacle {
 	private void resize(float width, float height) {
 		float scalex = width/dimension.x;
 		float scaley = height/dimension.y;
+		unshare();
 		
 		for(int ii = 0; ii < shapes.length; ii++) {
 			for(int jj = 0; jj < 3; jj++) {
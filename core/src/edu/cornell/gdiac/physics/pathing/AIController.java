@@ -113,10 +113,6 @@ public class AIController {
     /** Ticks spent colliding (consecutive) */
     private int ticks_collided = 0;
 
-    private int confused_anim_index = 0;
-    private int dive_anim_index = 0;
-    private int idle_anim_index = 0;
-
     /* WANDER STATE DATA STRUCTURES */
     LinkedList<Coordinate> queue;
     HashMap<Coordinate, Coordinate> backpack;
@@ -139,8 +135,12 @@ public class AIController {
     private int moveDelay = 0;
 
     private int times_detected;
+    /** The number of times this enemy detected Ursa since the level started (never decays) */
+    private int detections;
 
     private EnemyMarker firstGoal;
+    /** The patrol tiles in their original order */
+    private final EnemyMarker[] patrol;
 
     private Board board;
 
@@ -173,6 +173,7 @@ public class AIController {
         }
         currGoal = goalLocs.peek();
         firstGoal = currGoal;
+        patrol = goalLocs.toArray(new EnemyMarker[0]);
 
         queue = new LinkedList<>();
         backpack = new HashMap<>();
@@ -206,10 +207,54 @@ public class AIController {
         ticks_attacked = 0;
         currGoal = firstGoal;
         times_detected = 0;
+        detections = 0;
         enemy.setX(startLoc.x);
         enemy.setY(startLoc.y);
     }
 
+    /**
+     * Returns this controller to the state it was in when it was created.
+     *
+     * Unlike reset(), this also forgets everything the enemy learned, including the
+     * patrol order and where Ursa was spotted.  It does not touch the enemy itself;
+     * the level snapshot restores the enemy.
+     */
+    public void restart() {
+        state = FSMState.SPAWN;
+        ticks = 0;
+        hasWon = false;
+        action.setZero();
+        locs_spotted.clear();
+        ticks_confused = 0;
+        ticks_attacked = 0;
+        ticks_looking = 0;
+        lastDetection = null;
+        last_time_detected = 0;
+        ticks_detected = 0;
+        ticks_spotted = 0;
+        ticks_collided = 0;
+        queue.clear();
+        backpack.clear();
+
+        goalAngle = 0;
+        isLooking = false;
+        goalLocs.clear();
+        for (EnemyMarker v : patrol) {
+            goalLocs.addLast(v);
+        }
+        currGoal = firstGoal;
+        currRotations = null;
+        currRotationIndex = 0;
+        maxRotationDelay = 60;
+        rotationDelay = 0;
+        rotationSpeed = 0;
+        moveDelay = 0;
+        times_detected = 0;
+        detections = 0;
+        didEnemyMove = false;
+        isAggroNear = false;
+    }
+
     private void changeStateIfApplicable() {
 
         ticks++;
@@ -221,7 +266,10 @@ public class AIController {
             ticks_detected = 0;
         }
 
-        if (ticks_detected == DETECTION_DELAY) times_detected++;
+        if (ticks_detected == DETECTION_DELAY) {
+            times_detected++;
+            detections++;
+        }
 
         if (enemy.isAlerted()) {
             ticks_spotted++;
@@ -851,31 +899,6 @@ public class AIController {
 
     public boolean isChase() { return state == FSMState.CHASE; }
 
-    public int get_confused_anim_index() {
-        return confused_anim_index;
-    }
-
-    public int inc_anim_index() {
-        if (isStunned()) {
-            return confused_anim_index = (confused_anim_index + 1) % 30;
-        }
-        return confused_anim_index = Math.min(confused_anim_index + 1, 24);
-    }
-
-    public void reset_anim_index() { confused_anim_index = 0; }
-
-    public int get_dive_anim_index() { return dive_anim_index; }
-
-    public int inc_dive_anim_index() { return dive_anim_index = (dive_anim_index + 1) % 50; }
-
-    public void reset_dive_anim_index() { dive_anim_index = 0; }
-
-    public int get_idle_anim_index() { return idle_anim_index; }
-
-    public void reset_idle_anim_index() { idle_anim_index = 0; }
-
-    public void inc_idle_anim_index() { idle_anim_index = (idle_anim_index + 1) % 46; }
-
     public void lookAround() {
         rotateEnemy(Math.abs(goalAngle - enemy.getAngle()) / 20, goalAngle);
     }
@@ -900,6 +923,17 @@ public class AIController {
         return nextGoal;
     }
 
+    /**
+     * Returns the number of times this enemy detected Ursa since the level started
+     *
+     * Unlike the detection memory used to adapt the patrol, this count never decays.
+     *
+     * @return the number of times this enemy detected Ursa
+     */
+    public int getDetections() {
+        return detections;
+    }
+
     public boolean isSurprised() {
         return isDetected() && state == FSMState.ATTACK && ticks_attacked <= 20;
     }
@@ -1,7 +1,7 @@
 package edu.cornell.gdiac.physics.pathing;
 
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.JsonValue;
+import edu.cornell.gdiac.physics.LevelData.ObjectGroup;
 
 public class EnemyMarker {
 
@@ -11,38 +11,22 @@ public class EnemyMarker {
 	private int rotationDelay = 60;
 	private int moveDelay = 0;
 
-	public EnemyMarker(Vector2 p, JsonValue properties) {
+	public EnemyMarker(Vector2 p, ObjectGroup markers, int index) {
 		pos = p;
 
 		// Parse all custom properties for this marker
-		if (properties != null) {
-			for(int i = 0; i < properties.size; i++) {
-				JsonValue property = properties.get(i);
+		String value = markers.getProperty(index, "rotations");
+		if (value != null) {
+			String[] split = value.split(",");
+			rotations = new float[split.length];
 
-				switch (property.get("name").asString()) {
-					case "rotations":
-						String[] split = property.get("value").asString().split(",");
-						rotations = new float[split.length];
-
-						for (int j = 0; j < split.length; j++) {
-							rotations[j] = Float.parseFloat(split[j]);
-						}
-						break;
-
-					case "rotation_speed":
-						rotationSpeed = property.get("value").asFloat();
-						break;
-
-					case "rotation_delay":
-						rotationDelay = property.get("value").asInt();
-						break;
-
-					case "move_delay":
-						moveDelay = property.get("value").asInt();
-						break;
-				}
+			for (int j = 0; j < split.length; j++) {
+				rotations[j] = Float.parseFloat(split[j]);
 			}
 		}
+		rotationSpeed = markers.getFloat(index, "rotation_speed", rotationSpeed);
+		rotationDelay = markers.getInt(index, "rotation_delay", rotationDelay);
+		moveDelay = markers.getInt(index, "move_delay", moveDelay);
 	}
 
 	public Vector2 getPosition() {
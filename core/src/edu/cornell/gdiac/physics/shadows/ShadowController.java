@@ -1,12 +1,10 @@
 package edu.cornell.gdiac.physics.shadows;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import edu.cornell.gdiac.physics.GameCanvas;
 import edu.cornell.gdiac.util.PooledList;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.math.*;
 
 /**
@@ -36,10 +34,13 @@ public class ShadowController {
     private float timeRatio;
     /** List of references to all shadows. */
     private PooledList<ShadowModel> shadows = new PooledList<>();
+    /** Spatial index of the shadow polygons for occupancy queries */
+    private final ShadowIndex index = new ShadowIndex();
+    /** The rotation tables, one per distinct shadow outline */
+    private final Array<ShadowShape> shapes = new Array<>();
     private boolean doShadowsMove;
     private float beginningTimeRatio = 0;
     private float endTimeRatio = 0;
-    private FrameBuffer fb = new FrameBuffer(Pixmap.Format.RGBA8888, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight(), false);
 
 
     /**
@@ -72,7 +73,55 @@ public class ShadowController {
      */
     public void addShadow(ShadowModel shadow) {
         shadow.setTexture(shadowTexture);
+        shadow.setShape(getShape(shadow.getOutline()));
         shadows.add(shadow);
+        index.add(shadow);
+    }
+
+    /**
+     * Returns the rotation table for the given outline, creating it if necessary.
+     * Shadows with identical outlines (like all the trees) share one table.
+     * @param outline A shadow outline relative to its origin
+     */
+    private ShadowShape getShape(float[] outline) {
+        for (ShadowShape shape : shapes) {
+            if (shape.matches(outline)) {
+                return shape;
+            }
+        }
+        ShadowShape shape = new ShadowShape(outline);
+        shapes.add(shape);
+        return shape;
+    }
+
+    /**
+     * Returns true if the given point is inside a shadow
+     * @param x x-coordinate in physics units
+     * @param y y-coordinate in physics units
+     */
+    public boolean isInShadow(float x, float y) {
+        return index.contains(x, y);
+    }
+
+    /**
+     * Returns true if the given circle touches a shadow
+     * @param x x-coordinate of the center in physics units
+     * @param y y-coordinate of the center in physics units
+     * @param radius radius in physics units
+     */
+    public boolean isInShadow(float x, float y, float radius) {
+        return index.overlapsCircle(x, y, radius);
+    }
+
+    /**
+     * Returns true if the given axis-aligned box touches a shadow
+     * @param x x-coordinate of the center in physics units
+     * @param y y-coordinate of the center in physics units
+     * @param halfWidth half the box width in physics units
+     * @param halfHeight half the box height in physics units
+     */
+    public boolean isInShadow(float x, float y, float halfWidth, float halfHeight) {
+        return index.overlapsBox(x, y, halfWidth, halfHeight);
     }
 
     /**
@@ -117,6 +166,38 @@ public class ShadowController {
         time = 0;
         isNight = false;
         shadows.clear();
+        index.clear();
+        shapes.clear();
+    }
+
+    /**
+     * Returns the direction of every shadow in degrees, in the order they were added
+     * @return the direction of every shadow in degrees
+     */
+    public float[] getDirections() {
+        float[] directions = new float[shadows.size()];
+        int ii = 0;
+        for (ShadowModel shadow : shadows) {
+            directions[ii++] = shadow.getDirection();
+        }
+        return directions;
+    }
+
+    /**
+     * Restarts the day at time = 0 and turns the shadows back to the given directions.
+     * Unlike reset(), the shadows (and the index) are kept, so nothing is rebuilt.
+     * @param directions The direction of every shadow, as returned by getDirections()
+     */
+    public void restart(float[] directions) {
+        time = 0;
+        isNight = false;
+        timeRatio = 0;
+        beginningTimeRatio = 0;
+        endTimeRatio = 0;
+        int ii = 0;
+        for (ShadowModel shadow : shadows) {
+            shadow.restoreDirection(directions[ii++]);
+        }
     }
 
     /**
@@ -127,11 +208,9 @@ public class ShadowController {
         if(isNight) {
             return;
         }
-        //fb.begin();
         for(ShadowModel shadow: shadows) {
             shadow.preDraw(canvas);
         }
-        //fb.end();
     }
 
     /** Returns if the time of day is night **/
@@ -0,0 +1,359 @@
+package edu.cornell.gdiac.physics.shadows;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * ShadowIndex answers "is this spot in a shadow?" without Box2D.
+ *
+ * Shadows only ever rotate about their (fixed) origin as the sun moves.  So each
+ * shadow is filed in a uniform grid by its bounding circle, which does not change
+ * with rotation, and the grid is built once when the level is loaded.  The rotated
+ * outline comes from the ShadowShape of the shadow, so a query just moves the probe
+ * into the frame of the shadow origin.  Nothing is transformed per frame.
+ *
+ * Shadow polygons do not have to be convex.  All tests work on the outline.
+ */
+public class ShadowIndex {
+    /** The default width and height of a grid cell in physics units */
+    private static final float DEFAULT_CELL_SIZE = 8f;
+
+    /** A single shadow in the index */
+    private static class Entry {
+        /** The shadow this entry is for */
+        final ShadowModel shadow;
+        /** The rotation table of the shadow */
+        final ShadowShape shape;
+        /** The shadow origin */
+        final float x, y;
+        /** The last query that tested this entry (to skip duplicates across cells) */
+        int mark;
+
+        Entry(ShadowModel shadow) {
+            this.shadow = shadow;
+            shape = shadow.getShape();
+            x = shadow.getX();
+            y = shadow.getY();
+        }
+    }
+
+    /** The width and height of a grid cell in physics units */
+    private final float cellSize;
+    /** All of the shadows in the index */
+    private final Array<Entry> entries = new Array<>();
+    /** The entry indices in each grid cell, keyed by packed cell coordinates */
+    private final IntMap<IntArray> cells = new IntMap<>();
+    /** The id of the query in progress */
+    private int query;
+
+    /** The clipping interval for segment tests */
+    private float clipLow, clipHigh;
+
+    /**
+     * Creates an empty index with the default cell size
+     */
+    public ShadowIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty index with the given cell size
+     *
+     * @param cellSize The width and height of a grid cell in physics units
+     */
+    public ShadowIndex(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a shadow to the index.
+     *
+     * The shadow must already have its ShadowShape.  It may rotate afterwards, but
+     * it must not move.
+     *
+     * @param shadow A shadow
+     */
+    public void add(ShadowModel shadow) {
+        Entry entry = new Entry(shadow);
+        int index = entries.size;
+        entries.add(entry);
+
+        float radius = entry.shape.getRadius();
+        int x0 = cell(entry.x - radius);
+        int x1 = cell(entry.x + radius);
+        int y0 = cell(entry.y - radius);
+        int y1 = cell(entry.y + radius);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                int key = key(cx, cy);
+                IntArray bucket = cells.get(key);
+                if (bucket == null) {
+                    bucket = new IntArray(4);
+                    cells.put(key, bucket);
+                }
+                bucket.add(index);
+            }
+        }
+    }
+
+    /**
+     * Removes every shadow from the index
+     */
+    public void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    /**
+     * Returns the number of shadows in the index
+     *
+     * @return the number of shadows in the index
+     */
+    public int size() {
+        return entries.size;
+    }
+
+    /**
+     * Returns true if the given point is inside a shadow.
+     *
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     *
+     * @return true if the given point is inside a shadow.
+     */
+    public boolean contains(float x, float y) {
+        return overlapsCircle(x, y, 0);
+    }
+
+    /**
+     * Returns true if the given circle touches a shadow.
+     *
+     * @param x      The x-coordinate of the circle center
+     * @param y      The y-coordinate of the circle center
+     * @param radius The circle radius
+     *
+     * @return true if the given circle touches a shadow.
+     */
+    public boolean overlapsCircle(float x, float y, float radius) {
+        query++;
+        int x0 = cell(x - radius), x1 = cell(x + radius);
+        int y0 = cell(y - radius), y1 = cell(y + radius);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                IntArray bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int ii = 0; ii < bucket.size; ii++) {
+                    Entry entry = entries.get(bucket.get(ii));
+                    if (entry.mark == query) {
+                        continue;
+                    }
+                    entry.mark = query;
+
+                    // Work in the frame of the shadow origin
+                    ShadowShape shape = entry.shape;
+                    int bucket = entry.shadow.getBucket();
+                    float lx = x - entry.x;
+                    float ly = y - entry.y;
+                    if (lx + radius < shape.getMinX(bucket) || lx - radius > shape.getMaxX(bucket) ||
+                            ly + radius < shape.getMinY(bucket) || ly - radius > shape.getMaxY(bucket)) {
+                        continue;
+                    }
+                    if (polygonHitsCircle(shape.getOutline(bucket), lx, ly, radius)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given axis-aligned box touches a shadow.
+     *
+     * @param x          The x-coordinate of the box center
+     * @param y          The y-coordinate of the box center
+     * @param halfWidth  Half the width of the box
+     * @param halfHeight Half the height of the box
+     *
+     * @return true if the given axis-aligned box touches a shadow.
+     */
+    public boolean overlapsBox(float x, float y, float halfWidth, float halfHeight) {
+        query++;
+        float minX = x - halfWidth, maxX = x + halfWidth;
+        float minY = y - halfHeight, maxY = y + halfHeight;
+        int x0 = cell(minX), x1 = cell(maxX);
+        int y0 = cell(minY), y1 = cell(maxY);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                IntArray bucket = cells.get(key(cx, cy));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int ii = 0; ii < bucket.size; ii++) {
+                    Entry entry = entries.get(bucket.get(ii));
+                    if (entry.mark == query) {
+                        continue;
+                    }
+                    entry.mark = query;
+
+                    // Work in the frame of the shadow origin
+                    ShadowShape shape = entry.shape;
+                    int bucket = entry.shadow.getBucket();
+                    float lx = x - entry.x;
+                    float ly = y - entry.y;
+                    if (lx + halfWidth < shape.getMinX(bucket) || lx - halfWidth > shape.getMaxX(bucket) ||
+                            ly + halfHeight < shape.getMinY(bucket) || ly - halfHeight > shape.getMaxY(bucket)) {
+                        continue;
+                    }
+                    if (polygonHitsBox(shape.getOutline(bucket), lx, ly, lx - halfWidth, ly - halfHeight,
+                            lx + halfWidth, ly + halfHeight)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the point is inside the polygon (even-odd rule)
+     *
+     * @param poly The polygon outline
+     * @param x    The x-coordinate of the point
+     * @param y    The y-coordinate of the point
+     *
+     * @return true if the point is inside the polygon
+     */
+    private static boolean polygonContains(float[] poly, float x, float y) {
+        boolean inside = false;
+        int n = poly.length;
+        for (int ii = 0, jj = n - 2; ii < n; jj = ii, ii += 2) {
+            float xi = poly[ii], yi = poly[ii+1];
+            float xj = poly[jj], yj = poly[jj+1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Returns true if the circle touches the polygon
+     *
+     * @param poly   The polygon outline
+     * @param x      The x-coordinate of the circle center
+     * @param y      The y-coordinate of the circle center
+     * @param radius The circle radius
+     *
+     * @return true if the circle touches the polygon
+     */
+    private static boolean polygonHitsCircle(float[] poly, float x, float y, float radius) {
+        if (polygonContains(poly, x, y)) {
+            return true;
+        }
+        if (radius <= 0) {
+            return false;
+        }
+        float r2 = radius*radius;
+        int n = poly.length;
+        for (int ii = 0, jj = n - 2; ii < n; jj = ii, ii += 2) {
+            float ax = poly[jj], ay = poly[jj+1];
+            float ex = poly[ii] - ax, ey = poly[ii+1] - ay;
+            float len2 = ex*ex + ey*ey;
+            float t = (len2 == 0 ? 0 : ((x - ax)*ex + (y - ay)*ey) / len2);
+            t = Math.max(0, Math.min(1, t));
+            float dx = ax + t*ex - x;
+            float dy = ay + t*ey - y;
+            if (dx*dx + dy*dy <= r2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the axis-aligned box touches the polygon
+     *
+     * The box touches if its center is inside the polygon (box inside polygon) or an
+     * edge of the polygon crosses the box (every other kind of overlap).
+     *
+     * @param poly The polygon outline
+     * @param x    The x-coordinate of the box center
+     * @param y    The y-coordinate of the box center
+     * @param minX The left edge of the box
+     * @param minY The bottom edge of the box
+     * @param maxX The right edge of the box
+     * @param maxY The top edge of the box
+     *
+     * @return true if the axis-aligned box touches the polygon
+     */
+    private boolean polygonHitsBox(float[] poly, float x, float y, float minX, float minY, float maxX, float maxY) {
+        if (polygonContains(poly, x, y)) {
+            return true;
+        }
+        int n = poly.length;
+        for (int ii = 0, jj = n - 2; ii < n; jj = ii, ii += 2) {
+            float x0 = poly[jj], y0 = poly[jj+1];
+            float dx = poly[ii] - x0, dy = poly[ii+1] - y0;
+            clipLow = 0;
+            clipHigh = 1;
+            if (clip(-dx, x0 - minX) && clip(dx, maxX - x0) && clip(-dy, y0 - minY) && clip(dy, maxY - y0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clips the current segment interval against one side of a box (Liang-Barsky)
+     *
+     * @param p The negated/positive direction component for this side
+     * @param q The distance from the segment start to this side
+     *
+     * @return false if the segment misses the box entirely
+     */
+    private boolean clip(float p, float q) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        float t = q / p;
+        if (p < 0) {
+            if (t > clipHigh) {
+                return false;
+            }
+            clipLow = Math.max(clipLow, t);
+        } else {
+            if (t < clipLow) {
+                return false;
+            }
+            clipHigh = Math.min(clipHigh, t);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the grid cell containing the given coordinate
+     *
+     * @param value A coordinate in physics units
+     *
+     * @return the grid cell containing the given coordinate
+     */
+    private int cell(float value) {
+        return (int)Math.floor(value / cellSize);
+    }
+
+    /**
+     * Returns the map key for the given grid cell
+     *
+     * @param cx The cell column
+     * @param cy The cell row
+     *
+     * @return the map key for the given grid cell
+     */
+    private static int key(int cx, int cy) {
+        return (cx << 16) ^ (cy & 0xFFFF);
+    }
+}
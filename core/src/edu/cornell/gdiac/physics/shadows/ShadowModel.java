@@ -1,38 +1,50 @@
 package edu.cornell.gdiac.physics.shadows;
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.graphics.g2d.PolygonRegion;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.*;
 import edu.cornell.gdiac.physics.GameCanvas;
-import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
 
 /**
  * This class represents dynamic shadows for all static game objects.
  * This includes (not expansively) houses, rocks, trunks, and trees.
+ *
+ * Shadows are never added to the physics world.  The ShadowIndex answers whether
+ * something is standing in one.  The rotated outline and drawing polygon are looked
+ * up from a ShadowShape (shared by every shadow with the same outline) using the
+ * nearest 1 degree sun angle bucket.
  */
-public class ShadowModel extends PolygonObstacle {
+public class ShadowModel {
     /** Tinting for the shadow */
     private final Color shadowTint;
 
-    /**
-     * The direction that the shadow is facing.
-     * Invariant: This vector is always normalized.
-     */
-    private Vector2 direction = new Vector2(1, 0);
+    /** The direction that the shadow is facing in degrees (counterclockwise from +x) */
+    private float degrees;
+    /** The sun angle bucket nearest to degrees */
+    private int bucket;
     /** X offset of the shadow. */
     private float xOffset;
     /** Y offset of the shadow. */
     private float yOffset;
     private boolean doesShadowMove;
+    /** The shadow outline relative to its origin (in physics units) */
+    private final float[] outline;
+    /** The shadow origin (in physics units) */
+    private final Vector2 position;
+    /** The drawing scale (pixels per physics unit) */
+    private final Vector2 drawScale = new Vector2(1, 1);
+    /** The rotation table for the outline (shared with other shadows) */
+    private ShadowShape shape;
+    /** The shadow texture */
+    private TextureRegion texture;
 
     public ShadowModel(float[] points, float x, float y, float xOffset, float yOffset, boolean doesShadowMove) {
-        super(points, x, y, 0,1);
         this.shadowTint = new Color(1,1,1,0.35f);
         this.xOffset = xOffset;
         this.yOffset = yOffset;
         this.doesShadowMove = doesShadowMove;
-
-        setSensor(true);
-        setName("shadow");
+        this.outline = points.clone();
+        this.position = new Vector2(x, y);
     }
 
     /**
@@ -43,20 +55,114 @@ public class ShadowModel extends PolygonObstacle {
         if(!doesShadowMove) {
             return;
         }
-        direction.set(newDirec);
+        degrees = vectorToRadians(newDirec) * MathUtils.radiansToDegrees;
+        bucket = ShadowShape.toBucket(degrees);
     }
 
     /**
      * Rotates the direction of the shadow by the given degrees. These rotations are counterclockwise.
+     * Only the bucket lookup changes; nothing is transformed.
      * @param degrees The amount of degrees to rotate the shadow.
      */
     public void rotateDirection(float degrees) {
         if(!doesShadowMove) {
             return;
         }
-        direction.rotateDeg(degrees).nor();
-        Transform transform = body.getTransform();
-        body.setTransform(transform.getPosition(), transform.getRotation() + (float) Math.toRadians(degrees));
+        this.degrees = (this.degrees + degrees) % 360f;
+        bucket = ShadowShape.toBucket(this.degrees);
+    }
+
+    /**
+     * Returns the direction of the shadow in degrees (counterclockwise from +x)
+     * @return the direction of the shadow in degrees
+     */
+    public float getDirection() {
+        return degrees;
+    }
+
+    /**
+     * Puts the shadow back to a direction it had before, even if it does not move.
+     * Used when the level restarts.
+     * @param degrees The direction of the shadow in degrees
+     */
+    public void restoreDirection(float degrees) {
+        this.degrees = degrees;
+        bucket = ShadowShape.toBucket(degrees);
+    }
+
+    /**
+     * Returns the sun angle bucket of this shadow
+     * @return the sun angle bucket of this shadow
+     */
+    public int getBucket() {
+        return bucket;
+    }
+
+    /**
+     * Returns the angle of this shadow in radians (rounded to the bucket)
+     * @return the angle of this shadow in radians
+     */
+    public float getAngle() {
+        return ShadowShape.toRadians(bucket);
+    }
+
+    /**
+     * Returns the x-coordinate of the shadow origin (in physics units)
+     * @return the x-coordinate of the shadow origin
+     */
+    public float getX() {
+        return position.x;
+    }
+
+    /**
+     * Returns the y-coordinate of the shadow origin (in physics units)
+     * @return the y-coordinate of the shadow origin
+     */
+    public float getY() {
+        return position.y;
+    }
+
+    /**
+     * Returns the shadow outline relative to its origin (in physics units)
+     *
+     * The outline is not rotated.  Use getShape() for the rotated outlines.
+     *
+     * @return the shadow outline relative to its origin
+     */
+    public float[] getOutline() {
+        return outline;
+    }
+
+    /**
+     * Returns the rotation table for this shadow
+     * @return the rotation table for this shadow
+     */
+    public ShadowShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Sets the rotation table for this shadow (it must have the same outline)
+     * @param shape the rotation table for this shadow
+     */
+    public void setShape(ShadowShape shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Sets the shadow texture
+     * @param value the shadow texture
+     */
+    public void setTexture(TextureRegion value) {
+        texture = value;
+    }
+
+    /**
+     * Sets the drawing scale (pixels per physics unit)
+     * @param value the drawing scale
+     */
+    public void setDrawScale(Vector2 value) {
+        drawScale.set(value);
     }
 
     /**
@@ -71,27 +177,17 @@ public class ShadowModel extends PolygonObstacle {
     /**
      * preDraw simply draws the shadow to the canvas just as in a normal draw() method.
      * However, we want to do this before all the game objects are drawn.
+     * The polygon is already rotated, so this is only a translation.
      * @param canvas Drawing context
      */
-    @Override
     public void preDraw(GameCanvas canvas) {
-        canvas.draw(region,shadowTint,0,0,getX()*drawScale.x + xOffset,getY()*drawScale.y + yOffset, vectorToRadians(direction), 1, 1);
-    }
-
-    /**
-     * All shadow drawing is done in preDraw() so this method doesn't do anything.
-     * @param canvas Drawing context
-     */
-    @Override
-    public void draw(GameCanvas canvas) {
-        /**if (region != null) {
-            Affine2 affine = new Affine2()
-                    .rotate(vectorToRadians(direction))
-                    .translate(getX() * drawScale.x, getY()* drawScale.y)
-                    .scale(1, 1)
-                    ;
-           // canvas.draw(texture, Color.WHITE, texture.getRegionWidth() / 2f, yOffset, affine);
-        }*/
+        if (texture == null || shape == null) {
+            return;
+        }
+        PolygonRegion region = shape.getRegion(bucket, texture, drawScale.x, drawScale.y);
+        TextureRegion bounds = region.getRegion();
+        canvas.draw(region, shadowTint, getX()*drawScale.x + xOffset, getY()*drawScale.y + yOffset,
+                bounds.getRegionWidth(), bounds.getRegionHeight());
     }
 
     /**
@@ -102,4 +198,4 @@ public class ShadowModel extends PolygonObstacle {
     public static float vectorToRadians(Vector2 vector) {
         return (float) Math.atan2(vector.y, vector.x);
     }
-}
\ No newline at end of file
+}
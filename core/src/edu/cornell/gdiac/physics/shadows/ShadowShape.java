@@ -0,0 +1,254 @@
+package edu.cornell.gdiac.physics.shadows;
+
+import com.badlogic.gdx.graphics.g2d.PolygonRegion;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.math.MathUtils;
+
+import java.util.Arrays;
+
+/**
+ * A shadow outline rotated to every sun angle ahead of time.
+ *
+ * Moving shadows turn a fraction of a degree every tick, which is far less than
+ * anyone can see.  So instead of rotating every shadow every frame, the sun angle
+ * is rounded to the nearest of {@link #BUCKETS} buckets (1 degree each), and the
+ * rotated outline, its bounds, and its drawing polygon for that bucket are simply
+ * looked up.  Many objects (all trees, for example) use the same shadow vertices, so
+ * one ShadowShape is shared by every shadow with the same outline.
+ *
+ * All outlines and bounds are relative to the shadow origin.
+ */
+public class ShadowShape {
+    /** The number of sun angle buckets in a full turn */
+    public static final int BUCKETS = 360;
+    /** The number of degrees in a bucket */
+    private static final float BUCKET_DEGREES = 360f / BUCKETS;
+    /** Shared triangulator for the drawing polygons */
+    private static final EarClippingTriangulator TRIANGULATOR = new EarClippingTriangulator();
+
+    /** The unrotated outline in physics units */
+    private final float[] outline;
+    /** The rotated outline for each bucket in physics units */
+    private final float[][] rotated;
+    /** The bounds (minX, minY, maxX, maxY) of each rotated outline */
+    private final float[] bounds;
+    /** The radius of the bounding circle about the origin */
+    private final float radius;
+    /** The triangulation of the outline (the same for every rotation) */
+    private final short[] triangles;
+
+    /** The drawing polygon for each bucket (built on first draw) */
+    private PolygonRegion[] regions;
+    /** The texture of the drawing polygons */
+    private TextureRegion texture;
+    /** The drawing scale of the drawing polygons */
+    private float scaleX, scaleY;
+
+    /**
+     * Creates the rotation table for the given outline
+     *
+     * @param outline The shadow outline relative to its origin (in physics units)
+     */
+    public ShadowShape(float[] outline) {
+        this.outline = outline.clone();
+        int n = outline.length;
+        rotated = new float[BUCKETS][n];
+        bounds = new float[BUCKETS * 4];
+
+        float r2 = 0;
+        for (int ii = 0; ii < n; ii += 2) {
+            r2 = Math.max(r2, outline[ii] * outline[ii] + outline[ii+1] * outline[ii+1]);
+        }
+        radius = (float) Math.sqrt(r2);
+
+        for (int bb = 0; bb < BUCKETS; bb++) {
+            float rad = bb * BUCKET_DEGREES * MathUtils.degreesToRadians;
+            float c = (float) Math.cos(rad);
+            float s = (float) Math.sin(rad);
+            float[] poly = rotated[bb];
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+            for (int ii = 0; ii < n; ii += 2) {
+                float x = c * outline[ii] - s * outline[ii+1];
+                float y = s * outline[ii] + c * outline[ii+1];
+                poly[ii] = x;
+                poly[ii+1] = y;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+            bounds[4*bb  ] = minX;
+            bounds[4*bb+1] = minY;
+            bounds[4*bb+2] = maxX;
+            bounds[4*bb+3] = maxY;
+        }
+
+        triangles = TRIANGULATOR.computeTriangles(outline).toArray();
+    }
+
+    /**
+     * Returns the bucket nearest to the given angle
+     *
+     * @param degrees An angle in degrees (any range)
+     *
+     * @return the bucket nearest to the given angle
+     */
+    public static int toBucket(float degrees) {
+        int bucket = Math.round(degrees / BUCKET_DEGREES) % BUCKETS;
+        return bucket < 0 ? bucket + BUCKETS : bucket;
+    }
+
+    /**
+     * Returns the angle of the given bucket in radians
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the angle of the given bucket in radians
+     */
+    public static float toRadians(int bucket) {
+        return bucket * BUCKET_DEGREES * MathUtils.degreesToRadians;
+    }
+
+    /**
+     * Returns true if this shape has the given outline
+     *
+     * @param points A shadow outline relative to its origin (in physics units)
+     *
+     * @return true if this shape has the given outline
+     */
+    public boolean matches(float[] points) {
+        return Arrays.equals(outline, points);
+    }
+
+    /**
+     * Returns the unrotated outline (in physics units)
+     *
+     * @return the unrotated outline (in physics units)
+     */
+    public float[] getOutline() {
+        return outline;
+    }
+
+    /**
+     * Returns the outline rotated to the given bucket (in physics units)
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the outline rotated to the given bucket
+     */
+    public float[] getOutline(int bucket) {
+        return rotated[bucket];
+    }
+
+    /**
+     * Returns the smallest x-coordinate of the outline in the given bucket
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the smallest x-coordinate of the outline in the given bucket
+     */
+    public float getMinX(int bucket) {
+        return bounds[4*bucket];
+    }
+
+    /**
+     * Returns the smallest y-coordinate of the outline in the given bucket
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the smallest y-coordinate of the outline in the given bucket
+     */
+    public float getMinY(int bucket) {
+        return bounds[4*bucket+1];
+    }
+
+    /**
+     * Returns the largest x-coordinate of the outline in the given bucket
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the largest x-coordinate of the outline in the given bucket
+     */
+    public float getMaxX(int bucket) {
+        return bounds[4*bucket+2];
+    }
+
+    /**
+     * Returns the largest y-coordinate of the outline in the given bucket
+     *
+     * @param bucket A sun angle bucket
+     *
+     * @return the largest y-coordinate of the outline in the given bucket
+     */
+    public float getMaxY(int bucket) {
+        return bounds[4*bucket+3];
+    }
+
+    /**
+     * Returns the radius of the bounding circle about the origin
+     *
+     * This is the same for every rotation.
+     *
+     * @return the radius of the bounding circle about the origin
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the drawing polygon for the given bucket
+     *
+     * The polygon is already rotated, so it only needs to be translated to the
+     * shadow position.  The table is rebuilt if the texture or scale changes (which
+     * only happens when a level is loaded).
+     *
+     * @param bucket  A sun angle bucket
+     * @param texture The shadow texture
+     * @param sx      The x-axis drawing scale
+     * @param sy      The y-axis drawing scale
+     *
+     * @return the drawing polygon for the given bucket
+     */
+    public PolygonRegion getRegion(int bucket, TextureRegion texture, float sx, float sy) {
+        if (regions == null || this.texture != texture || scaleX != sx || scaleY != sy) {
+            buildRegions(texture, sx, sy);
+        }
+        return regions[bucket];
+    }
+
+    /**
+     * Builds the drawing polygons for every bucket
+     *
+     * The outline is scaled before it is rotated, just as the canvas would do when
+     * drawing an unrotated polygon with a rotation angle.
+     *
+     * @param texture The shadow texture
+     * @param sx      The x-axis drawing scale
+     * @param sy      The y-axis drawing scale
+     */
+    private void buildRegions(TextureRegion texture, float sx, float sy) {
+        this.texture = texture;
+        scaleX = sx;
+        scaleY = sy;
+        if (regions == null) {
+            regions = new PolygonRegion[BUCKETS];
+        }
+
+        int n = outline.length;
+        for (int bb = 0; bb < BUCKETS; bb++) {
+            float rad = toRadians(bb);
+            float c = (float) Math.cos(rad);
+            float s = (float) Math.sin(rad);
+            float[] scaled = new float[n];
+            for (int ii = 0; ii < n; ii += 2) {
+                float x = outline[ii] * sx;
+                float y = outline[ii+1] * sy;
+                scaled[ii] = c * x - s * y;
+                scaled[ii+1] = s * x + c * y;
+            }
+            regions[bb] = new PolygonRegion(texture, scaled, triangles);
+        }
+    }
+}
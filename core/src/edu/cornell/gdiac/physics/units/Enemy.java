@@ -22,6 +22,7 @@ import edu.cornell.gdiac.physics.obstacle.PolygonObstacle;
 import edu.cornell.gdiac.physics.obstacle.SimpleObstacle;
 import edu.cornell.gdiac.physics.shadows.ShadowController;
 import edu.cornell.gdiac.physics.shadows.ShadowModel;
+import edu.cornell.gdiac.util.AnimationCursor;
 import edu.cornell.gdiac.util.PooledList;
 
 public class Enemy extends BoxObstacle {
@@ -71,6 +72,8 @@ public class Enemy extends BoxObstacle {
 	private Vector2 lookDirection = new Vector2(1, 0);
 	protected PolygonRegion sightConeRegion;
 	private TextureRegion shadowTexture;
+	/** The animation playback state of this enemy (independent of other enemies) */
+	private final AnimationCursor animation = new AnimationCursor();
 
 	/**
 	 * The callback class for the enemy line-of-sight raycast towards the targeted body. This is used to detect whether or not there are any obstacles
@@ -246,6 +249,28 @@ public class Enemy extends BoxObstacle {
 		stunDuration = STUN_DURATION;
 	}
 
+	/**
+	 * Returns the enemy to the state it was in when the level began.
+	 *
+	 * This only resets the flags of the enemy.  The level snapshot puts the body back.
+	 *
+	 * @param lookAngle The starting look angle in degrees
+	 */
+	public void restart(float lookAngle) {
+		alerted = false;
+		stunDuration = 0;
+		stunned = false;
+		playerCurrentInSight = false;
+		playerInShadow = false;
+		playerInDynamicShadow = false;
+		detectionRange = ENEMY_DETECTION_RANGE_SIGHT;
+		movementDirection.set(15, 0);
+		previousXMovement = 0;
+		previousYMovement = 0;
+		playerPos = null;
+		lookDirection.set(1, 0).rotateDeg(lookAngle);
+	}
+
 	/**
 	 * Returns whether or not the enemy is alerted by the player
 	 * @return true if the enemy is alerted, false otherwise.
@@ -392,6 +417,15 @@ public class Enemy extends BoxObstacle {
 		this.playerInDynamicShadow = shadowed;
 	}
 
+	/**
+	 * Returns the animation playback state of this enemy.
+	 *
+	 * @return the animation playback state of this enemy.
+	 */
+	public AnimationCursor getAnimation() {
+		return animation;
+	}
+
 	public void setShadowTexture(TextureRegion t) {
 		shadowTexture = t;
 	}
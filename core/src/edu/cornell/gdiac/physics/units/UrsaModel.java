@@ -4,14 +4,13 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.JsonValue;
 import edu.cornell.gdiac.physics.GameCanvas;
 import edu.cornell.gdiac.physics.SceneModel;
 import edu.cornell.gdiac.physics.obstacle.CapsuleObstacle;
+import edu.cornell.gdiac.util.AnimationCursor;
 
 public class UrsaModel extends CapsuleObstacle {
 
@@ -25,15 +24,17 @@ public class UrsaModel extends CapsuleObstacle {
     private final float damping;
     /** The maximum character speed */
     private final float maxspeed;
-    /** Identifier to allow us to track the sensor in ContactListener */
-    private final String sensorName;
+    /** Half the width of the box tested against shadows (physics units) */
+    private static final float SHADOW_PROBE_WIDTH = BLOB_SHADOW_SIZE + 0.5f;
+    /** Half the height of the box tested against shadows (physics units) */
+    private static final float SHADOW_PROBE_HEIGHT = SHADOW_PROBE_WIDTH / 2f;
     /** The current horizontal movement of the character */
     private float xMovement;
     /** The current vertical movement of the character */
     private float yMovement;
     /** Which direction is the character facing */
     private boolean isFacingRight;
-    /** The physics shape of this object */
+    /** The shadow probe (for debug drawing only; it is not a fixture) */
     private PolygonShape sensorShape;
     private boolean inShadow;
 
@@ -44,6 +45,8 @@ public class UrsaModel extends CapsuleObstacle {
     /** Boolean for when Ursa's model and shadow should draw. */
     private boolean isDrawing;
     private TextureRegion shadowTexture;
+    /** The animation playback state of Ursa */
+    private final AnimationCursor animation = new AnimationCursor();
 
 
     /**
@@ -129,14 +132,25 @@ public class UrsaModel extends CapsuleObstacle {
     }
 
     /**
-     * Returns the name of the ground sensor
+     * Returns half the width of the box tested against shadows
      *
-     * This is used by ContactListener
+     * The box is centered on Ursa and is checked by the ShadowController.
      *
-     * @return the name of the ground sensor
+     * @return half the width of the box tested against shadows
      */
-    public String getSensorName() {
-        return sensorName;
+    public float getShadowProbeWidth() {
+        return SHADOW_PROBE_WIDTH;
+    }
+
+    /**
+     * Returns half the height of the box tested against shadows
+     *
+     * The box is centered on Ursa and is checked by the ShadowController.
+     *
+     * @return half the height of the box tested against shadows
+     */
+    public float getShadowProbeHeight() {
+        return SHADOW_PROBE_HEIGHT;
     }
 
     public void setIsFacingRight(boolean direction) {
@@ -166,7 +180,6 @@ public class UrsaModel extends CapsuleObstacle {
         maxspeed = data.getFloat("maxspeed", 0);
         damping = data.getFloat("damping", 0);
         force = data.getFloat("force", 0);
-        sensorName = "shadow_sensor";
         this.data = data;
 
         // Gameplay attributes
@@ -191,24 +204,22 @@ public class UrsaModel extends CapsuleObstacle {
             return false;
         }
 
-        // Shadow sensor
-        Vector2 sensorCenter = new Vector2(0, 0);
-        FixtureDef sensorDef = new FixtureDef();
-        sensorDef.density = data.getFloat("density",0);
-        sensorDef.isSensor = true;
+        // Shadow probe (shadows are not physics bodies, so this is not a fixture)
         sensorShape = new PolygonShape();
-
-        float size = BLOB_SHADOW_SIZE + 0.5f;
-        sensorShape.setAsBox(size, size / 2f, sensorCenter, 0.0f);
-        sensorDef.shape = sensorShape;
-
-        // Ground sensor to represent our feet
-        Fixture sensorFixture = body.createFixture( sensorDef );
-        sensorFixture.setUserData(getSensorName());
+        sensorShape.setAsBox(SHADOW_PROBE_WIDTH, SHADOW_PROBE_HEIGHT, Vector2.Zero, 0.0f);
 
         return true;
     }
 
+    /**
+     * Returns the animation playback state of Ursa.
+     *
+     * @return the animation playback state of Ursa.
+     */
+    public AnimationCursor getAnimation() {
+        return animation;
+    }
+
     public void setShadowTexture(TextureRegion t) {
         shadowTexture = t;
     }
@@ -0,0 +1,133 @@
+/*
+ * AnimationClip.java
+ *
+ * A film strip is just a sheet of frames.  An animation clip is a description of
+ * how to play (part of) that sheet: which frames, how fast, and what to do when we
+ * run out of frames.  Clips are immutable, so one clip can be shared by every object
+ * that plays it.  The per-object playback state lives in an AnimationCursor.
+ *
+ * Based on the FilmStrip class by Walker M. White
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * An immutable, shareable description of a film strip animation.
+ *
+ * A clip plays the frames first..last (inclusive) of a film strip, holding each
+ * frame for the given duration.  The play mode determines what happens at the end
+ * of the clip.
+ */
+public class AnimationClip {
+	/** Enumeration of what to do when a clip runs out of frames */
+	public enum PlayMode {
+		/** Hold the last frame */
+		ONCE,
+		/** Jump back to the first frame */
+		LOOP,
+		/** Reverse direction, bouncing between the first and last frames */
+		PING_PONG
+	}
+
+	/** The film strip with the frame regions */
+	private final FilmStrip strip;
+	/** The first frame of the clip */
+	private final int first;
+	/** The last frame of the clip (inclusive) */
+	private final int last;
+	/** The number of seconds to hold each frame */
+	private final float duration;
+	/** What to do when the clip runs out of frames */
+	private final PlayMode mode;
+
+	/**
+	 * Creates a clip that plays the entire film strip.
+	 *
+	 * @param strip		The film strip with the frame regions
+	 * @param duration	The number of seconds to hold each frame
+	 * @param mode		What to do when the clip runs out of frames
+	 */
+	public AnimationClip(FilmStrip strip, float duration, PlayMode mode) {
+		this(strip, 0, strip.getSize()-1, duration, mode);
+	}
+
+	/**
+	 * Creates a clip that plays the frames first..last of the film strip.
+	 *
+	 * @param strip		The film strip with the frame regions
+	 * @param first		The first frame of the clip
+	 * @param last		The last frame of the clip (inclusive)
+	 * @param duration	The number of seconds to hold each frame
+	 * @param mode		What to do when the clip runs out of frames
+	 */
+	public AnimationClip(FilmStrip strip, int first, int last, float duration, PlayMode mode) {
+		if (first < 0 || last < first || last >= strip.getSize()) {
+			Gdx.app.error("AnimationClip", "Invalid frame range", new IllegalArgumentException());
+			first = 0;
+			last  = strip.getSize()-1;
+		}
+		this.strip = strip;
+		this.first = first;
+		this.last  = last;
+		this.duration = duration;
+		this.mode  = mode;
+	}
+
+	/**
+	 * Returns the film strip with the frame regions
+	 *
+	 * @return the film strip with the frame regions
+	 */
+	public FilmStrip getStrip() {
+		return strip;
+	}
+
+	/**
+	 * Returns the first frame of the clip
+	 *
+	 * @return the first frame of the clip
+	 */
+	public int getFirst() {
+		return first;
+	}
+
+	/**
+	 * Returns the last frame of the clip (inclusive)
+	 *
+	 * @return the last frame of the clip (inclusive)
+	 */
+	public int getLast() {
+		return last;
+	}
+
+	/**
+	 * Returns the number of seconds to hold each frame
+	 *
+	 * @return the number of seconds to hold each frame
+	 */
+	public float getFrameDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns what to do when the clip runs out of frames
+	 *
+	 * @return what to do when the clip runs out of frames
+	 */
+	public PlayMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Returns the precomputed region for the given frame of the film strip
+	 *
+	 * @param frame	The frame index (relative to the strip, not the clip)
+	 *
+	 * @return the precomputed region for the given frame of the film strip
+	 */
+	public TextureRegion getRegion(int frame) {
+		return strip.getRegion(frame);
+	}
+}
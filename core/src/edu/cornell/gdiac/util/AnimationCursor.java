@@ -0,0 +1,194 @@
+/*
+ * AnimationCursor.java
+ *
+ * The per-object half of the animation system.  A cursor is the playback state of
+ * a single object: which clip it is playing, which frame it is on, and how long it
+ * has been on that frame.  It is tiny, so every object can have its own, and two
+ * objects playing the same clip are no longer forced into lockstep.
+ *
+ * All of the cursors in a scene should be advanced by the same clock (the scene
+ * animation step), so that the animations stay in sync with the simulation rather
+ * than with the rendering frame rate.
+ *
+ * Based on the FilmStrip class by Walker M. White
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Playback state for a single animated object.
+ *
+ * Drawing code should use {@link #getRegion()}, which is an array lookup into the
+ * precomputed regions of the film strip.  No texture coordinates are recomputed
+ * when the frame changes.
+ */
+public class AnimationCursor {
+	/** Tolerance for accumulated round-off when comparing against the frame duration */
+	private static final float EPSILON = 1e-5f;
+
+	/** The clip being played (null if none) */
+	private AnimationClip clip;
+	/** The current frame (relative to the film strip) */
+	private int frame;
+	/** The seconds spent on the current frame */
+	private float elapsed;
+	/** The direction of play (+1 or -1; only PING_PONG reverses) */
+	private int direction;
+	/** Whether a ONCE clip has reached its last frame */
+	private boolean finished;
+
+	/**
+	 * Creates a cursor that is not playing anything.
+	 */
+	public AnimationCursor() {
+		clip = null;
+		direction = 1;
+	}
+
+	/**
+	 * Creates a cursor playing the given clip from the start.
+	 *
+	 * @param clip	The clip to play
+	 */
+	public AnimationCursor(AnimationClip clip) {
+		play(clip);
+	}
+
+	/**
+	 * Plays the given clip.
+	 *
+	 * If the cursor is already playing this clip, it keeps its place.  Otherwise
+	 * the clip starts from its first frame.
+	 *
+	 * @param clip	The clip to play
+	 */
+	public void play(AnimationClip clip) {
+		if (this.clip != clip) {
+			this.clip = clip;
+			restart();
+		}
+	}
+
+	/**
+	 * Restarts the current clip from its first frame.
+	 */
+	public void restart() {
+		frame = (clip == null ? 0 : clip.getFirst());
+		elapsed = 0;
+		direction = 1;
+		finished = false;
+	}
+
+	/**
+	 * Advances the cursor by the given amount of time.
+	 *
+	 * @param dt	The number of seconds to advance
+	 *
+	 * @return true if the frame changed
+	 */
+	public boolean update(float dt) {
+		if (clip == null || finished) {
+			return false;
+		}
+
+		int start = frame;
+		float duration = clip.getFrameDuration();
+		elapsed += dt;
+		while (!finished && elapsed >= duration-EPSILON) {
+			elapsed = Math.max(0, elapsed-duration);
+			step();
+		}
+		return frame != start;
+	}
+
+	/**
+	 * Moves the cursor one frame in the current direction, applying the play mode.
+	 */
+	private void step() {
+		int first = clip.getFirst();
+		int last  = clip.getLast();
+		if (first == last) {
+			finished = (clip.getMode() == AnimationClip.PlayMode.ONCE);
+			return;
+		}
+
+		switch (clip.getMode()) {
+			case ONCE:
+				frame++;
+				if (frame >= last) {
+					frame = last;
+					finished = true;
+				}
+				break;
+			case LOOP:
+				frame = (frame >= last ? first : frame+1);
+				break;
+			case PING_PONG:
+				frame += direction;
+				if (frame >= last) {
+					frame = last;
+					direction = -1;
+				} else if (frame <= first) {
+					frame = first;
+					direction = 1;
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Returns the clip being played (null if none)
+	 *
+	 * @return the clip being played (null if none)
+	 */
+	public AnimationClip getClip() {
+		return clip;
+	}
+
+	/**
+	 * Returns the current frame (relative to the film strip)
+	 *
+	 * @return the current frame (relative to the film strip)
+	 */
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * Sets the current frame (relative to the film strip)
+	 *
+	 * This is for animations that are driven by game state instead of time.  The
+	 * value is clamped to the frames of the clip.
+	 *
+	 * @param value	The new frame
+	 */
+	public void setFrame(int value) {
+		if (clip == null) {
+			return;
+		}
+		frame = Math.max(clip.getFirst(), Math.min(value, clip.getLast()));
+		elapsed = 0;
+		finished = (clip.getMode() == AnimationClip.PlayMode.ONCE && frame == clip.getLast());
+	}
+
+	/**
+	 * Returns true if a ONCE clip has reached its last frame
+	 *
+	 * Looping clips are never finished.
+	 *
+	 * @return true if a ONCE clip has reached its last frame
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Returns the region to draw for the current frame (null if not playing)
+	 *
+	 * @return the region to draw for the current frame (null if not playing)
+	 */
+	public TextureRegion getRegion() {
+		return clip == null ? null : clip.getRegion(frame);
+	}
+}
@@ -57,6 +57,8 @@ public class FilmStrip extends TextureRegion {
 	private int size;	
 	/** The active animation frame */
 	private int frame;
+	/** The precomputed region for each frame (shared by all animation cursors) */
+	private TextureRegion[] frames;
 	
 	/**
 	 * Creates a new filmstrip from the given texture.
@@ -120,6 +122,13 @@ public class FilmStrip extends TextureRegion {
 		this.size = size;
 		fwidth  = width/cols;
 		fheight = height/rows;
+
+		// Compute the frame regions once, so that animation is just an array lookup
+		frames = new TextureRegion[size];
+		for(int ii = 0; ii < size; ii++) {
+			frames[ii] = new TextureRegion(texture, this.x+(ii % cols)*fwidth,
+										   this.y+(ii / cols)*fheight, fwidth, fheight);
+		}
 		setFrame(0);
 	}
 
@@ -142,6 +151,27 @@ public class FilmStrip extends TextureRegion {
 		return frame;
 	}
 	
+	/**
+	 * Returns the precomputed region for the given frame.
+	 *
+	 * Unlike {@link #setFrame}, this does not change the state of the film strip,
+	 * so the same strip can be shared by many objects at different frames.  The
+	 * region returned should not be modified.
+	 *
+	 * If the frame index is invalid, an error is raised.
+	 *
+	 * @param frame the frame index
+	 *
+	 * @return the precomputed region for the given frame.
+	 */
+	public TextureRegion getRegion(int frame) {
+		if (frame < 0 || frame >= size) {
+			Gdx.app.error("FilmStrip", "Invalid animation frame", new IllegalArgumentException());
+			return frames[0];
+		}
+		return frames[frame];
+	}
+
 	/**
 	 * Sets the active frame as the given index.
 	 * 
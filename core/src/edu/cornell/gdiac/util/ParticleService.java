@@ -0,0 +1,195 @@
+/*
+ * ParticleService.java
+ *
+ * Loading a particle effect is not cheap.  The .p file has to be parsed, and every
+ * emitter loads its own copy of its image.  If every screen does that in its
+ * constructor, we parse the same file once per level and again every time we go
+ * back to the level select.
+ *
+ * This service loads each effect definition exactly once and hands out copies from
+ * a ParticleEffectPool.  The copies share the sprites of the definition, so the
+ * memory cost no longer depends on how many screens use an effect.  The service also
+ * owns the emitter lifecycle: an effect is started when it is obtained, restarted
+ * if it is looping, and reset when it is returned to the pool.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
+import com.badlogic.gdx.graphics.g2d.ParticleEffectPool.PooledEffect;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * A singleton that shares particle effect definitions across all screens.
+ *
+ * Screens should obtain an effect when they are shown (or reset) and free it when they
+ * are hidden.  In between, they only need to position, update and draw it.  They
+ * should never call start() themselves.
+ */
+public class ParticleService {
+    /** The singleton for this class */
+    static private ParticleService singleton;
+
+    /** The default number of pooled instances per effect */
+    private static final int DEFAULT_CAPACITY = 4;
+    /** The maximum number of pooled instances per effect */
+    private static final int DEFAULT_MAX = 16;
+
+    /** The loaded effect definitions, keyed by file name */
+    private final ObjectMap<String, ParticleEffect> definitions;
+    /** The instance pools, keyed by file name */
+    private final ObjectMap<String, ParticleEffectPool> pools;
+    /** The pool that each outstanding instance came from */
+    private final ObjectMap<PooledEffect, ParticleEffectPool> owners;
+    /** The outstanding instances that restart when they complete */
+    private final ObjectSet<PooledEffect> looping;
+
+    /**
+     * Creates a new, empty particle service
+     */
+    private ParticleService() {
+        definitions = new ObjectMap<>();
+        pools = new ObjectMap<>();
+        owners = new ObjectMap<>();
+        looping = new ObjectSet<>();
+    }
+
+    /**
+     * Returns the particle service singleton
+     *
+     * This method constructs a new service if one did not previously exist.
+     *
+     * @return the particle service singleton
+     */
+    public static ParticleService get() {
+        if (singleton == null) {
+            singleton = new ParticleService();
+        }
+        return singleton;
+    }
+
+    /**
+     * Loads the given effect definition if it is not already loaded.
+     *
+     * The images for the effect are loaded from the same directory as the effect
+     * file.  It is safe to call this method more than once for the same file.
+     *
+     * @param file  The internal path of the .p file
+     */
+    public void preload(String file) {
+        getPool(file);
+    }
+
+    /**
+     * Returns a started instance of the given effect.
+     *
+     * The definition is loaded the first time it is requested.  Afterwards, instances
+     * are recycled from a pool and share the images of the definition.
+     *
+     * @param file  The internal path of the .p file
+     * @param loop  Whether to restart the effect in {@link #update} when it completes
+     *
+     * @return a started instance of the given effect.
+     */
+    public PooledEffect obtain(String file, boolean loop) {
+        ParticleEffectPool pool = getPool(file);
+        PooledEffect effect = pool.obtain();
+        owners.put(effect, pool);
+        if (loop) {
+            looping.add(effect);
+        }
+        effect.start();
+        return effect;
+    }
+
+    /**
+     * Returns an instance to its pool.
+     *
+     * The instance is reset so that it is ready for the next screen.  It is an error
+     * to use the instance after calling this method.
+     *
+     * @param effect    The instance to return (may be null)
+     */
+    public void free(PooledEffect effect) {
+        if (effect == null) {
+            return;
+        }
+        ParticleEffectPool pool = owners.remove(effect);
+        if (pool == null) {
+            Gdx.app.error("ParticleService", "Effect was not obtained from this service", new IllegalArgumentException());
+            return;
+        }
+        looping.remove(effect);
+        pool.free(effect);
+    }
+
+    /**
+     * Advances the given instance, restarting it if it is looping and complete.
+     *
+     * @param effect    The instance to advance
+     * @param delta     The number of seconds to advance
+     */
+    public void update(PooledEffect effect, float delta) {
+        effect.update(delta);
+        if (effect.isComplete() && looping.contains(effect)) {
+            effect.reset();
+        }
+    }
+
+    /**
+     * Returns the number of effect definitions loaded
+     *
+     * @return the number of effect definitions loaded
+     */
+    public int getDefinitionCount() {
+        return definitions.size;
+    }
+
+    /**
+     * Returns the number of instances currently handed out
+     *
+     * @return the number of instances currently handed out
+     */
+    public int getActiveCount() {
+        return owners.size;
+    }
+
+    /**
+     * Disposes all effect definitions and their images.
+     *
+     * All outstanding instances become invalid.
+     */
+    public void dispose() {
+        owners.clear();
+        looping.clear();
+        for (ParticleEffectPool pool : pools.values()) {
+            pool.clear();
+        }
+        pools.clear();
+        for (ParticleEffect effect : definitions.values()) {
+            effect.dispose();
+        }
+        definitions.clear();
+    }
+
+    /**
+     * Returns the pool for the given effect, loading the definition if necessary.
+     *
+     * @param file  The internal path of the .p file
+     *
+     * @return the pool for the given effect
+     */
+    private ParticleEffectPool getPool(String file) {
+        ParticleEffectPool pool = pools.get(file);
+        if (pool == null) {
+            ParticleEffect definition = new ParticleEffect();
+            definition.load(Gdx.files.internal(file), Gdx.files.internal(file).parent());
+            definitions.put(file, definition);
+            pool = new ParticleEffectPool(definition, DEFAULT_CAPACITY, DEFAULT_MAX);
+            pools.put(file, pool);
+        }
+        return pool;
+    }
+}
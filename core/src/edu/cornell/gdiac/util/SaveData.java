@@ -0,0 +1,545 @@
+/*
+ * SaveData.java
+ *
+ * Saving progress through Preferences means a synchronous flush on the render thread
+ * at the end of every level, which is exactly when the game is animating the win.
+ * And a crash in the middle of that flush can leave the file half written.
+ *
+ * This service keeps the save data in memory and writes it on its own thread.  Each
+ * change is first appended to a journal (one small write), and the full save file is
+ * rewritten only once the changes stop coming.  That rewrite goes to a temporary file
+ * that is renamed over the old one, so the save file on disk is always complete: it
+ * is either the old version or the new one.  On startup the journal is replayed over
+ * the save file, so no change that reached the journal is ever lost.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The persistent progress of the player: the levels unlocked and per-level stats.
+ *
+ * Call {@link #start} early (it returns immediately) and read the data once the
+ * loading screen is done.  The methods that read or change the data wait for the
+ * save file to be loaded, but never for it to be written.  Call {@link #dispose} on
+ * exit to write out anything still pending.
+ *
+ * The methods of this class are safe to call on any thread.
+ */
+public class SaveData {
+    /** The version of the save file format */
+    private static final int VERSION = 1;
+    /** How long the data must go unchanged before the save file is rewritten (ms) */
+    private static final long COALESCE_MILLIS = 500;
+    /** How long {@link #dispose} waits for the pending writes (ms) */
+    private static final long FLUSH_MILLIS = 2000;
+
+    /** The stats of a single level */
+    public static class LevelStats {
+        /** The number of times the level was completed */
+        public int completions;
+        /** The fastest completion, in seconds */
+        public float bestTime = Float.MAX_VALUE;
+        /** The fewest times the player was detected in a completion */
+        public int fewestDetections = Integer.MAX_VALUE;
+
+        /**
+         * Returns a copy of these stats
+         *
+         * @return a copy of these stats
+         */
+        LevelStats copy() {
+            LevelStats result = new LevelStats();
+            result.completions = completions;
+            result.bestTime = bestTime;
+            result.fewestDetections = fewestDetections;
+            return result;
+        }
+    }
+
+    /** The save file */
+    private final File file;
+    /** The journal of changes not yet in the save file */
+    private final File journal;
+    /** The temporary file the save file is written to before the rename */
+    private final File temp;
+
+    /** The number of levels completed (and so unlocked) */
+    private int completed;
+    /** The stats of each level, by level name */
+    private final ObjectMap<String, LevelStats> levels = new ObjectMap<String, LevelStats>();
+
+    /** The sequence number of the most recent change */
+    private long sequence;
+    /** The sequence number of the most recent change in the save file */
+    private long saved;
+    /** The journal records waiting to be written */
+    private final List<String> pending = new ArrayList<String>();
+    /** When the data last changed (ms) */
+    private long lastChange;
+
+    /** The thread loading and writing the save data (null if not started) */
+    private Thread writer;
+    /** Whether the save file has been loaded */
+    private boolean loaded;
+    /** Whether the writer should keep running */
+    private boolean running;
+
+    /**
+     * Creates the save data for the given file.
+     *
+     * The journal and temporary file are siblings of the save file.  Nothing is read
+     * until {@link #start} is called.
+     *
+     * @param file  The save file (it must be a writable file, such as a local one)
+     */
+    public SaveData(FileHandle file) {
+        this.file = file.file().getAbsoluteFile();
+        this.journal = new File( this.file.getPath() + ".journal" );
+        this.temp = new File( this.file.getPath() + ".tmp" );
+    }
+
+    /**
+     * Starts loading the save data in the background.
+     *
+     * This method returns immediately.
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        running = true;
+        writer = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                load();
+                write();
+            }
+        }, "save-data" );
+        writer.setDaemon( true );
+        writer.start();
+    }
+
+    /**
+     * Returns true if the save data has been loaded
+     *
+     * @return true if the save data has been loaded
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the number of levels completed
+     *
+     * @return the number of levels completed
+     */
+    public synchronized int getLevelsCompleted() {
+        awaitLoad();
+        return completed;
+    }
+
+    /**
+     * Sets the number of levels completed
+     *
+     * @param value The number of levels completed
+     */
+    public synchronized void setLevelsCompleted(int value) {
+        awaitLoad();
+        if (value == completed) {
+            return;
+        }
+        completed = value;
+        JsonValue record = new JsonValue( JsonValue.ValueType.object );
+        record.addChild( "op", new JsonValue( "completed" ) );
+        record.addChild( "value", new JsonValue( value ) );
+        append( record );
+    }
+
+    /**
+     * Returns a copy of the stats of the given level (null if never completed)
+     *
+     * @param level The level name
+     *
+     * @return a copy of the stats of the given level
+     */
+    public synchronized LevelStats getStats(String level) {
+        awaitLoad();
+        LevelStats stats = levels.get( level );
+        return stats == null ? null : stats.copy();
+    }
+
+    /**
+     * Records a completion of the given level.
+     *
+     * This only updates the data in memory, and returns immediately.
+     *
+     * @param level         The level name
+     * @param time          The time the level took, in seconds
+     * @param detections    The number of times the player was detected
+     */
+    public synchronized void recordCompletion(String level, float time, int detections) {
+        awaitLoad();
+        complete( level, time, detections );
+        JsonValue record = new JsonValue( JsonValue.ValueType.object );
+        record.addChild( "op", new JsonValue( "complete" ) );
+        record.addChild( "level", new JsonValue( level ) );
+        record.addChild( "time", new JsonValue( time ) );
+        record.addChild( "detections", new JsonValue( detections ) );
+        append( record );
+    }
+
+    /**
+     * Stops the writer, waiting a short while for the pending changes to be written.
+     *
+     * Changes made after this call are kept in memory only.
+     */
+    public void dispose() {
+        Thread thread;
+        synchronized (this) {
+            thread = writer;
+            running = false;
+            notifyAll();
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join( FLUSH_MILLIS );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until the save data is loaded
+     */
+    private void awaitLoad() {
+        if (writer == null) {
+            throw new GdxRuntimeException( "Save data was not started" );
+        }
+        boolean interrupted = false;
+        while (!loaded) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies a completion of the given level to the data in memory
+     *
+     * @param level         The level name
+     * @param time          The time the level took, in seconds
+     * @param detections    The number of times the player was detected
+     */
+    private void complete(String level, float time, int detections) {
+        LevelStats stats = levels.get( level );
+        if (stats == null) {
+            stats = new LevelStats();
+            levels.put( level, stats );
+        }
+        stats.completions++;
+        stats.bestTime = Math.min( stats.bestTime, time );
+        stats.fewestDetections = Math.min( stats.fewestDetections, detections );
+    }
+
+    /**
+     * Queues a change for the journal and wakes the writer
+     *
+     * @param record    The change
+     */
+    private void append(JsonValue record) {
+        sequence++;
+        record.addChild( "seq", new JsonValue( sequence ) );
+        pending.add( record.toJson( JsonWriter.OutputType.json ) );
+        lastChange = System.currentTimeMillis();
+        notifyAll();
+    }
+
+    /**
+     * Applies a journal record to the data in memory
+     *
+     * @param record    The journal record
+     */
+    private void replay(JsonValue record) {
+        String op = record.getString( "op" );
+        if (op.equals( "completed" )) {
+            completed = record.getInt( "value" );
+        } else if (op.equals( "complete" )) {
+            complete( record.getString( "level" ), record.getFloat( "time" ), record.getInt( "detections" ) );
+        }
+    }
+
+    /**
+     * Loads the save file and replays the journal over it (writer thread)
+     */
+    private void load() {
+        int completed = 0;
+        ObjectMap<String, LevelStats> levels = new ObjectMap<String, LevelStats>();
+        long sequence = 0;
+
+        // A leftover temporary file is a save that never got renamed
+        if (temp.exists() && !temp.delete()) {
+            Gdx.app.error( "SaveData", "Could not delete "+temp );
+        }
+
+        JsonReader reader = new JsonReader();
+        if (file.exists()) {
+            try {
+                JsonValue root = reader.parse( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+                completed = root.getInt( "completed", 0 );
+                sequence = root.getLong( "sequence", 0 );
+                JsonValue entries = root.get( "levels" );
+                for (JsonValue entry = entries == null ? null : entries.child; entry != null; entry = entry.next) {
+                    LevelStats stats = new LevelStats();
+                    stats.completions = entry.getInt( "completions", 0 );
+                    stats.bestTime = entry.getFloat( "bestTime", Float.MAX_VALUE );
+                    stats.fewestDetections = entry.getInt( "fewestDetections", Integer.MAX_VALUE );
+                    levels.put( entry.name, stats );
+                }
+            } catch (Exception e) {
+                // Not one of ours (such as the old placeholder files)
+                Gdx.app.error( "SaveData", "Could not read "+file+"; starting from the journal", e );
+            }
+        }
+
+        synchronized (this) {
+            this.completed = completed;
+            this.levels.putAll( levels );
+            this.sequence = sequence;
+            this.saved = sequence;
+
+            if (journal.exists()) {
+                try {
+                    List<String> lines = Files.readAllLines( journal.toPath(), StandardCharsets.UTF_8 );
+                    for (String line : lines) {
+                        JsonValue record;
+                        try {
+                            record = reader.parse( line );
+                        } catch (Exception e) {
+                            // A record torn by a crash; nothing after it was written
+                            break;
+                        }
+                        long seq = record.getLong( "seq", 0 );
+                        if (seq > this.sequence) {
+                            replay( record );
+                            this.sequence = seq;
+                        }
+                    }
+                } catch (IOException e) {
+                    Gdx.app.error( "SaveData", "Could not read "+journal, e );
+                }
+            }
+
+            loaded = true;
+            notifyAll();
+        }
+
+        // Fold the journal into the save file, so new records never follow a torn one
+        if (journal.length() > 0) {
+            try {
+                String snapshot;
+                long snapshotSeq;
+                synchronized (this) {
+                    snapshot = toJson().prettyPrint( JsonWriter.OutputType.json, 0 );
+                    snapshotSeq = this.sequence;
+                }
+                writeFile( snapshot );
+                truncateJournal();
+                synchronized (this) {
+                    saved = Math.max( saved, snapshotSeq );
+                }
+            } catch (IOException e) {
+                Gdx.app.error( "SaveData", "Could not write "+file, e );
+            }
+        }
+    }
+
+    /**
+     * Writes the journal and save file as changes come in, until stopped (writer thread)
+     */
+    private void write() {
+        while (true) {
+            List<String> batch = null;
+            String snapshot = null;
+            long snapshotSeq = 0;
+            synchronized (this) {
+                while (running && pending.isEmpty()) {
+                    long delay = saved == sequence ? 0 : quiet();
+                    if (saved != sequence && delay <= 0) {
+                        break;
+                    }
+                    try {
+                        wait( delay );
+                    } catch (InterruptedException e) {
+                        running = false;
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    batch = new ArrayList<String>( pending );
+                    pending.clear();
+                }
+                if (saved != sequence && (!running || quiet() <= 0)) {
+                    snapshot = toJson().prettyPrint( JsonWriter.OutputType.json, 0 );
+                    snapshotSeq = sequence;
+                }
+                if (batch == null && snapshot == null && !running) {
+                    return;
+                }
+            }
+
+            try {
+                if (batch != null) {
+                    appendJournal( batch );
+                }
+                if (snapshot != null) {
+                    writeFile( snapshot );
+                    truncateJournal();
+                    synchronized (this) {
+                        saved = snapshotSeq;
+                    }
+                }
+            } catch (IOException e) {
+                Gdx.app.error( "SaveData", "Could not write "+file, e );
+                synchronized (this) {
+                    if (!running) {
+                        return;
+                    }
+                    // Try again after the next quiet period
+                    lastChange = System.currentTimeMillis();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how much longer the data must go unchanged before the save file is rewritten
+     *
+     * @return how much longer before the save file is rewritten (ms)
+     */
+    private long quiet() {
+        return lastChange + COALESCE_MILLIS - System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the data in memory as a JSON tree
+     *
+     * @return the data in memory as a JSON tree
+     */
+    private JsonValue toJson() {
+        JsonValue root = new JsonValue( JsonValue.ValueType.object );
+        root.addChild( "version", new JsonValue( VERSION ) );
+        root.addChild( "sequence", new JsonValue( sequence ) );
+        root.addChild( "completed", new JsonValue( completed ) );
+        JsonValue entries = new JsonValue( JsonValue.ValueType.object );
+        for (ObjectMap.Entry<String, LevelStats> entry : levels.entries()) {
+            JsonValue stats = new JsonValue( JsonValue.ValueType.object );
+            stats.addChild( "completions", new JsonValue( entry.value.completions ) );
+            stats.addChild( "bestTime", new JsonValue( entry.value.bestTime ) );
+            stats.addChild( "fewestDetections", new JsonValue( entry.value.fewestDetections ) );
+            entries.addChild( entry.key, stats );
+        }
+        root.addChild( "levels", entries );
+        return root;
+    }
+
+    /**
+     * Appends the records to the journal, forcing them to disk (writer thread)
+     *
+     * @param batch The records to append
+     *
+     * @throws IOException if the journal could not be written
+     */
+    private void appendJournal(List<String> batch) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String record : batch) {
+            text.append( record ).append( '\n' );
+        }
+        makeDirectory();
+        FileOutputStream out = new FileOutputStream( journal, true );
+        try {
+            out.write( text.toString().getBytes( StandardCharsets.UTF_8 ) );
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Empties the journal, once its records are in the save file (writer thread)
+     *
+     * @throws IOException if the journal could not be truncated
+     */
+    private void truncateJournal() throws IOException {
+        RandomAccessFile out = new RandomAccessFile( journal, "rw" );
+        try {
+            out.setLength( 0 );
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Replaces the save file with the given contents (writer thread)
+     *
+     * The contents go to a temporary file that is renamed over the save file, so a
+     * crash leaves either the old save file or the new one.
+     *
+     * @param contents  The new contents of the save file
+     *
+     * @throws IOException if the save file could not be written
+     */
+    private void writeFile(String contents) throws IOException {
+        makeDirectory();
+        FileOutputStream out = new FileOutputStream( temp );
+        try {
+            out.write( contents.getBytes( StandardCharsets.UTF_8 ) );
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        try {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * Creates the directory of the save file and journal, if missing (writer thread)
+     *
+     * On a fresh install the directory does not exist until the first write.
+     *
+     * @throws IOException if the directory could not be created
+     */
+    private void makeDirectory() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException( "Could not create "+parent );
+        }
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * StreamingFilmStrip.java
+ *
+ * A FilmStrip needs its whole sprite sheet decoded and on the GPU before the first
+ * frame can be drawn.  That is fine for a character, but the home screen sheets are
+ * full-screen animations packed 8 frames to a row, and each one is tens of megabytes
+ * of RGBA8888 that is only ever seen one frame at a time.
+ *
+ * This class streams the sheet instead.  A worker thread decodes one row of frames
+ * at a time, and the GL thread copies each frame into a small ring of frame-sized
+ * textures just ahead of playback.  Only the ring is ever on the GPU, and only the
+ * row being played and the row after it are ever decoded.
+ *
+ * Decoding a row is slow (a PNG can only be read from the top, so a row costs 100
+ * to 400 ms on the home screen sheets), while a row lasts about a quarter of a
+ * second on screen.  So the next row is decoded as soon as playback enters a row,
+ * not when its first frame is due.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A film strip whose frames are decoded from the sprite sheet as they are played.
+ *
+ * Use it like a {@link FilmStrip}: the region is always the current frame.  The
+ * strip expects to be played forward (looping is fine); the next row of frames is
+ * decoded while the current one plays.  If playback jumps, or gets ahead of the
+ * decoder, the strip keeps showing the last frame it had until the new one is ready.
+ *
+ * Call {@link #update} every animation frame, on the GL thread, so that decoded
+ * frames are uploaded even while the strip is not advancing.
+ */
+public class StreamingFilmStrip extends TextureRegion implements Disposable {
+    /** The number of frames (including the current one) kept on the GPU ahead */
+    private static final int WINDOW = 3;
+    /** The number of frame textures (one more than the window, for the frame shown) */
+    private static final int SLOTS = WINDOW + 1;
+
+    /**
+     * The sprite sheet decoder behind a streaming film strip.
+     *
+     * A decoder has no state beyond the layout of the sheet, so it may decode rows
+     * on any number of threads at once.
+     */
+    public static class Decoder {
+        /** The sprite sheet */
+        private final FileHandle file;
+        /** The number of rows with frames in them */
+        private final int rows;
+        /** The number of columns in the sheet */
+        private final int cols;
+        /** The number of frames in the sheet */
+        private final int size;
+        /** The width of the whole sheet */
+        private final int width;
+        /** The width of a frame */
+        private final int fwidth;
+        /** The height of a frame */
+        private final int fheight;
+
+        /**
+         * Creates a decoder for the given sprite sheet.
+         *
+         * Only the header of the image is read.
+         *
+         * @param file  The sprite sheet (a PNG)
+         * @param rows  The number of rows in the sheet
+         * @param cols  The number of columns in the sheet
+         * @param size  The number of frames in the sheet
+         */
+        public Decoder(FileHandle file, int rows, int cols, int size) {
+            if (size > rows*cols) {
+                throw new GdxRuntimeException( "Invalid strip size for "+file );
+            }
+            this.file = file;
+            this.rows = (size + cols - 1) / cols;
+            this.cols = cols;
+            this.size = size;
+
+            ImageReader reader = reader();
+            InputStream in = file.read();
+            try {
+                reader.setInput( new MemoryCacheImageInputStream( in ), true, true );
+                width = reader.getWidth( 0 );
+                fwidth = width / cols;
+                fheight = reader.getHeight( 0 ) / rows;
+            } catch (IOException e) {
+                throw new GdxRuntimeException( "Couldn't read "+file, e );
+            } finally {
+                reader.dispose();
+                StreamUtils.closeQuietly( in );
+            }
+        }
+
+        /**
+         * Returns the number of frames in the sheet
+         *
+         * @return the number of frames in the sheet
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Returns the decoded images of the frames in the given row.
+         *
+         * The last row may have fewer frames than there are columns.  The images
+         * belong to the caller, who must dispose them.
+         *
+         * @param row   The row index
+         *
+         * @return the decoded images of the frames in the given row
+         */
+        public Pixmap[] decodeRow(int row) {
+            BufferedImage band = readBand( row );
+            Pixmap[] frames = new Pixmap[Math.min( cols, size - row*cols )];
+            for (int ii = 0; ii < frames.length; ii++) {
+                frames[ii] = cut( band, ii );
+            }
+            return frames;
+        }
+
+        /**
+         * Returns the given row of frames, decoded
+         *
+         * @param row   The row index
+         *
+         * @return the given row of frames, decoded
+         */
+        private BufferedImage readBand(int row) {
+            ImageReader reader = reader();
+            InputStream in = file.read();
+            try {
+                reader.setInput( new MemoryCacheImageInputStream( in ), true, true );
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion( new Rectangle( 0, row*fheight, width, fheight ) );
+                return reader.read( 0, param );
+            } catch (IOException e) {
+                throw new GdxRuntimeException( "Couldn't decode "+file, e );
+            } finally {
+                reader.dispose();
+                StreamUtils.closeQuietly( in );
+            }
+        }
+
+        /**
+         * Returns the image of the frame in the given column of a decoded row
+         *
+         * PNGs with an alpha channel decode to ABGR bytes, which are swizzled straight
+         * into the pixmap.  Anything else goes through the (much slower) ARGB ints.
+         *
+         * @param band  The decoded row
+         * @param col   The column of the frame
+         *
+         * @return the image of the frame in the given column of a decoded row
+         */
+        private Pixmap cut(BufferedImage band, int col) {
+            Pixmap pixmap = new Pixmap( fwidth, fheight, Pixmap.Format.RGBA8888 );
+            ByteBuffer pixels = pixmap.getPixels();
+            byte[] line = new byte[fwidth*4];
+            if (band.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+                byte[] data = ((DataBufferByte)band.getRaster().getDataBuffer()).getData();
+                for (int yy = 0; yy < fheight; yy++) {
+                    int src = (yy*width + col*fwidth)*4;
+                    for (int xx = 0; xx < line.length; xx += 4) {
+                        line[xx]   = data[src+xx+3];
+                        line[xx+1] = data[src+xx+2];
+                        line[xx+2] = data[src+xx+1];
+                        line[xx+3] = data[src+xx];
+                    }
+                    pixels.position( yy*line.length );
+                    pixels.put( line );
+                }
+            } else {
+                int[] argb = new int[fwidth];
+                for (int yy = 0; yy < fheight; yy++) {
+                    band.getRGB( col*fwidth, yy, fwidth, 1, argb, 0, fwidth );
+                    for (int xx = 0; xx < fwidth; xx++) {
+                        int pixel = argb[xx];
+                        line[4*xx]   = (byte)(pixel >> 16);
+                        line[4*xx+1] = (byte)(pixel >> 8);
+                        line[4*xx+2] = (byte)pixel;
+                        line[4*xx+3] = (byte)(pixel >>> 24);
+                    }
+                    pixels.position( yy*line.length );
+                    pixels.put( line );
+                }
+            }
+            pixels.position( 0 );
+            return pixmap;
+        }
+
+        /**
+         * Returns a new PNG reader
+         *
+         * @return a new PNG reader
+         */
+        private ImageReader reader() {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName( "png" );
+            if (!readers.hasNext()) {
+                throw new GdxRuntimeException( "No PNG decoder for "+file );
+            }
+            return readers.next();
+        }
+    }
+
+    /** The decoder of the sprite sheet */
+    private final Decoder decoder;
+    /** The frame textures */
+    private final Texture[] slots = new Texture[SLOTS];
+    /** The frame in each texture (-1 if none) */
+    private final int[] slotFrame = new int[SLOTS];
+    /** The decoded frames of each row (null unless the row is resident) */
+    private final Pixmap[][] bands;
+    /** The current frame */
+    private int frame;
+    /** The slot of the frame being drawn */
+    private int shown;
+
+    /** The row being decoded (null if none) */
+    private Future<Void> pending;
+    /** The index of the row being decoded */
+    private int pendingRow;
+    /** The lock for handing a decoded row from the worker to the GL thread */
+    private final Object handoff = new Object();
+    /** The row finished by the worker and not yet taken (guarded by handoff) */
+    private Pixmap[] decoded;
+    /** Whether this strip was disposed (guarded by handoff) */
+    private boolean disposed;
+    /** Whether decoding failed (the strip then stays on the last good frame) */
+    private boolean failed;
+
+    /**
+     * Creates a streaming film strip from the given sprite sheet.
+     *
+     * The first row is decoded on this thread.  Use {@link #StreamingFilmStrip(Decoder, Pixmap[])}
+     * to decode it elsewhere first.
+     *
+     * @param file  The sprite sheet (a PNG)
+     * @param rows  The number of rows in the sheet
+     * @param cols  The number of columns in the sheet
+     */
+    public StreamingFilmStrip(FileHandle file, int rows, int cols) {
+        this( new Decoder( file, rows, cols, rows*cols ) );
+    }
+
+    /**
+     * Creates a streaming film strip with the given decoder (GL thread).
+     *
+     * The first row is decoded on this thread.
+     *
+     * @param decoder   The sprite sheet decoder
+     */
+    private StreamingFilmStrip(Decoder decoder) {
+        this( decoder, decoder.decodeRow( 0 ) );
+    }
+
+    /**
+     * Creates a streaming film strip with the given decoder (GL thread).
+     *
+     * The strip takes ownership of the first row.  It starts decoding the second
+     * row right away.
+     *
+     * @param decoder   The sprite sheet decoder
+     * @param first     The decoded frames of row 0
+     */
+    public StreamingFilmStrip(Decoder decoder, Pixmap[] first) {
+        this.decoder = decoder;
+        bands = new Pixmap[decoder.rows][];
+        bands[0] = first;
+        for (int ii = 0; ii < SLOTS; ii++) {
+            slots[ii] = new Texture( decoder.fwidth, decoder.fheight, Pixmap.Format.RGBA8888 );
+            slots[ii].setFilter( Texture.TextureFilter.Linear, Texture.TextureFilter.Linear );
+            slotFrame[ii] = -1;
+        }
+        slots[0].draw( first[0], 0, 0 );
+        slotFrame[0] = 0;
+
+        shown = 0;
+        setRegion( slots[0] );
+        update();
+    }
+
+    /**
+     * Returns the number of frames in this filmstrip.
+     *
+     * @return the number of frames in this filmstrip.
+     */
+    public int getSize() {
+        return decoder.getSize();
+    }
+
+    /**
+     * Returns the current active frame.
+     *
+     * This is the frame requested, which may not be drawn yet if it is still
+     * being decoded.
+     *
+     * @return the current active frame.
+     */
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * Sets the active frame as the given index.
+     *
+     * If the frame index is invalid, an error is raised.
+     *
+     * @param frame the index to make the active frame
+     */
+    public void setFrame(int frame) {
+        if (frame < 0 || frame >= getSize()) {
+            Gdx.app.error( "StreamingFilmStrip", "Invalid animation frame", new IllegalArgumentException() );
+            return;
+        }
+        this.frame = frame;
+        update();
+    }
+
+    /**
+     * Uploads the next frame and keeps the next row decoding (GL thread).
+     *
+     * Call this every animation frame.  At most one frame is uploaded per call, which
+     * is enough to stay ahead of a strip that advances every other animation frame.
+     */
+    public void update() {
+        int row = frame / decoder.cols;
+        int next = (row + 1) % decoder.rows;
+
+        if (pending != null && pending.isDone()) {
+            Pixmap[] frames;
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Gdx.app.error( "StreamingFilmStrip", "Couldn't decode row "+pendingRow, e.getCause() );
+                failed = true;
+            }
+            pending = null;
+            synchronized (handoff) {
+                frames = decoded;
+                decoded = null;
+            }
+            if (frames != null) {
+                if (bands[pendingRow] == null) {
+                    bands[pendingRow] = frames;
+                } else {
+                    release( frames );
+                }
+            }
+        }
+
+        // Only the row being played and the one after it stay decoded
+        for (int ii = 0; ii < bands.length; ii++) {
+            if (bands[ii] != null && ii != row && ii != next) {
+                release( bands[ii] );
+                bands[ii] = null;
+            }
+        }
+
+        // Upload the first frame of the window that is missing
+        for (int ii = 0; ii < WINDOW; ii++) {
+            int index = (frame + ii) % getSize();
+            Pixmap[] band = bands[index / decoder.cols];
+            if (find( index ) == -1 && band != null) {
+                int slot = freeSlot();
+                slots[slot].draw( band[index % decoder.cols], 0, 0 );
+                slotFrame[slot] = index;
+                break;
+            }
+        }
+
+        // Show the current frame if we have it
+        int slot = find( frame );
+        if (slot != -1 && slot != shown) {
+            shown = slot;
+            setRegion( slots[slot] );
+        }
+
+        // Decode the current row if we jumped, and otherwise the next one
+        if (pending == null && !failed) {
+            if (bands[row] == null) {
+                decode( row );
+            } else if (bands[next] == null) {
+                decode( next );
+            }
+        }
+    }
+
+    /**
+     * Releases the frame textures and decoded rows.
+     *
+     * This never waits for the worker.  A row that has not started decoding is
+     * cancelled, and a row still decoding is released by the worker when it is done.
+     */
+    @Override
+    public void dispose() {
+        if (pending != null) {
+            pending.cancel( false );
+            pending = null;
+        }
+        synchronized (handoff) {
+            disposed = true;
+            if (decoded != null) {
+                release( decoded );
+                decoded = null;
+            }
+        }
+        for (int ii = 0; ii < bands.length; ii++) {
+            if (bands[ii] != null) {
+                release( bands[ii] );
+                bands[ii] = null;
+            }
+        }
+        for (int ii = 0; ii < SLOTS; ii++) {
+            if (slots[ii] != null) {
+                slots[ii].dispose();
+                slots[ii] = null;
+            }
+        }
+        failed = true;
+    }
+
+    /**
+     * Starts decoding the given row on a worker thread
+     *
+     * The worker hands the row over under a lock, rather than as the result of the
+     * future, so that a row finished after {@link #dispose} is never lost.
+     *
+     * @param row   The row index
+     */
+    private void decode(final int row) {
+        pendingRow = row;
+        pending = WorkerPool.get().submit( new Callable<Void>() {
+            @Override
+            public Void call() {
+                Pixmap[] frames = decoder.decodeRow( row );
+                synchronized (handoff) {
+                    if (disposed) {
+                        release( frames );
+                    } else {
+                        decoded = frames;
+                    }
+                }
+                return null;
+            }
+        } );
+    }
+
+    /**
+     * Disposes the decoded frames of a row
+     *
+     * @param frames    The decoded frames
+     */
+    private static void release(Pixmap[] frames) {
+        for (Pixmap pixmap : frames) {
+            pixmap.dispose();
+        }
+    }
+
+    /**
+     * Returns the slot holding the given frame (-1 if none)
+     *
+     * @param index The frame index
+     *
+     * @return the slot holding the given frame
+     */
+    private int find(int index) {
+        for (int ii = 0; ii < SLOTS; ii++) {
+            if (slotFrame[ii] == index) {
+                return ii;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a slot that may be overwritten
+     *
+     * This is never the slot being drawn.  There is always one, since a frame is
+     * only uploaded if it is in the window and missing from the slots.
+     *
+     * @return a slot that may be overwritten
+     */
+    private int freeSlot() {
+        for (int ii = 0; ii < SLOTS; ii++) {
+            if (ii != shown && (slotFrame[ii] == -1 || ahead( slotFrame[ii] ) >= WINDOW)) {
+                return ii;
+            }
+        }
+        // Unreachable, but never overwrite the frame being drawn
+        return (shown + 1) % SLOTS;
+    }
+
+    /**
+     * Returns how many frames the given frame is ahead of the current one
+     *
+     * @param index The frame index
+     *
+     * @return how many frames the given frame is ahead of the current one
+     */
+    private int ahead(int index) {
+        return (index - frame + getSize()) % getSize();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * WorkerPool.java
+ *
+ * Some loading work (parsing, vertex math, triangulation) is pure Java and does not
+ * touch OpenGL or Box2D.  That work can be spread across the cores of the machine
+ * while the GL thread waits, as long as the results are committed on the GL thread
+ * afterwards.  This service owns the threads that do it, so that every screen does
+ * not spin up (and forget to shut down) its own executor.
+ *
+ * The threads are daemons, so a forgotten pool never keeps the application alive.
+ */
+package edu.cornell.gdiac.util;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A singleton pool of background threads for CPU-bound loading work.
+ *
+ * Tasks must not call OpenGL or modify a Box2D World.  Use {@link #invokeAll} to run
+ * a batch of tasks and wait for all of their results on the calling thread.
+ */
+public class WorkerPool {
+    /** The singleton for this class */
+    static private WorkerPool singleton;
+
+    /** The threads running the tasks */
+    private final ExecutorService executor;
+    /** The number of worker threads */
+    private final int size;
+
+    /**
+     * Creates a pool with one thread per core, less the core of the GL thread
+     */
+    private WorkerPool() {
+        size = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(size, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the worker pool singleton
+     *
+     * This method constructs a new pool if one did not previously exist.
+     *
+     * @return the worker pool singleton
+     */
+    public static WorkerPool get() {
+        if (singleton == null) {
+            singleton = new WorkerPool();
+        }
+        return singleton;
+    }
+
+    /**
+     * Returns the number of worker threads
+     *
+     * This is a good number of pieces to split a large job into.
+     *
+     * @return the number of worker threads
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Runs the tasks on the worker threads and waits for all of them.
+     *
+     * The results are in the same order as the tasks.  If a task fails, its exception
+     * is rethrown on the calling thread (after every task has finished).
+     *
+     * @param tasks The tasks to run
+     *
+     * @return the result of each task
+     */
+    public <T> Array<T> invokeAll(Array<Callable<T>> tasks) {
+        Array<T> results = new Array<>(tasks.size);
+        if (tasks.size == 1) {
+            // Not worth a thread handoff
+            try {
+                results.add(tasks.first().call());
+            } catch (Exception e) {
+                throw new GdxRuntimeException(e);
+            }
+            return results;
+        }
+
+        List<Callable<T>> list = new ArrayList<>(tasks.size);
+        for (Callable<T> task : tasks) {
+            list.add(task);
+        }
+        try {
+            for (Future<T> future : executor.invokeAll(list)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Runs the task on a worker thread without waiting for it.
+     *
+     * @param task The task to run
+     *
+     * @return the pending result of the task
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Stops the worker threads.
+     *
+     * The next call to get() creates a new pool.
+     */
+    public void dispose() {
+        executor.shutdownNow();
+        singleton = null;
+    }
+}